@@ -0,0 +1,88 @@
+package com.emreonsur.smesales.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Bloom filter and recent-sale cache over invoice IDs, so idempotent sale creation
+// rarely probes the sales table. The unique key on sales.invoice_id stays authoritative.
+@Component
+public class InvoiceIdIndex {
+    private final JdbcTemplate jdbcTemplate;
+    private final BloomFilter seen;
+    private final Cache<String, Integer> recentSaleIds;
+
+    // Until the existing IDs are loaded every invoice ID is treated as possibly known
+    private volatile boolean loaded;
+
+    @Autowired
+    public InvoiceIdIndex(JdbcTemplate jdbcTemplate,
+                          @Value("${smesales.invoice-index.expected-invoices:1000000}") long expectedInvoices,
+                          @Value("${smesales.invoice-index.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${smesales.invoice-index.recent-size:100000}") long recentSize,
+                          @Value("${smesales.invoice-index.recent-ttl:1h}") Duration recentTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seen = new BloomFilter(expectedInvoices, falsePositiveRate);
+        this.recentSaleIds = Caffeine.newBuilder()
+                .maximumSize(recentSize)
+                .expireAfterWrite(recentTtl)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query("SELECT invoice_id FROM sales WHERE invoice_id IS NOT NULL",
+                (RowCallbackHandler) rs -> seen.put(rs.getString(1)));
+        loaded = true;
+    }
+
+    // Sale ID recently created under the invoice ID, or null
+    public Integer recentSaleId(String invoiceId) {
+        return recentSaleIds.getIfPresent(invoiceId);
+    }
+
+    // False means no sale has this invoice ID; true means a lookup is needed
+    public boolean mightExist(String invoiceId) {
+        return !loaded || seen.mightContain(invoiceId);
+    }
+
+    // The ID joins the filter at once; the sale is only served as a replay once committed
+    public void record(String invoiceId, Integer saleId) {
+        if (invoiceId == null) {
+            return;
+        }
+        seen.put(invoiceId);
+        afterCommit(() -> recentSaleIds.put(invoiceId, saleId));
+    }
+
+    public void forget(String invoiceId) {
+        if (invoiceId == null) {
+            return;
+        }
+        recentSaleIds.invalidate(invoiceId);
+        afterCommit(() -> recentSaleIds.invalidate(invoiceId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
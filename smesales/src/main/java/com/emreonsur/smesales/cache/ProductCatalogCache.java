@@ -0,0 +1,174 @@
+package com.emreonsur.smesales.cache;
+
+import com.emreonsur.smesales.dto.ProductCacheStats;
+import com.emreonsur.smesales.entity.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Read-through product cache by ID; the name indexes only point at IDs
+@Component
+public class ProductCatalogCache {
+    private static final String ACTIVE_KEY = "active";
+
+    private final Cache<Integer, Product> productsById;
+    private final Cache<String, Integer> idsByDisplayName;
+    private final Cache<String, Integer> idsByFormalName;
+    private final Cache<String, List<Product>> activeProducts;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ProductCatalogCache(@Value("${smesales.product-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${smesales.product-cache.ttl:10m}") Duration ttl) {
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsByDisplayName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.idsByFormalName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.activeProducts = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<Product> getById(Integer id, Function<Integer, Optional<Product>> loader) {
+        Product cached = productsById.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return loader.apply(id).map(this::put);
+    }
+
+    public Optional<Product> getByDisplayName(String displayName, Function<String, Optional<Product>> loader) {
+        Integer id = idsByDisplayName.getIfPresent(displayName);
+        Product cached = id != null ? productsById.getIfPresent(id) : null;
+        if (cached != null && displayName.equals(cached.getDisplayName())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return loader.apply(displayName).map(this::put);
+    }
+
+    public Optional<Product> getByFormalName(String formalName, Function<String, Optional<Product>> loader) {
+        Integer id = idsByFormalName.getIfPresent(formalName);
+        Product cached = id != null ? productsById.getIfPresent(id) : null;
+        if (cached != null && formalName.equals(cached.getFormalName())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return loader.apply(formalName).map(this::put);
+    }
+
+    public List<Product> getActive(Supplier<List<Product>> loader) {
+        List<Product> cached = activeProducts.getIfPresent(ACTIVE_KEY);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        List<Product> loaded = List.copyOf(loader.get());
+        activeProducts.put(ACTIVE_KEY, loaded);
+        return loaded;
+    }
+
+    // Evicts the product under its current keys and any previous names it was cached under
+    public void evict(Product product) {
+        evictNow(product);
+        afterCommit(() -> evictNow(product));
+    }
+
+    public void evict(Integer id) {
+        evictNow(id);
+        afterCommit(() -> evictNow(id));
+    }
+
+    public void evictAll(Collection<Integer> ids) {
+        ids.forEach(this::evictNow);
+        afterCommit(() -> ids.forEach(this::evictNow));
+    }
+
+    public void invalidateAll() {
+        productsById.invalidateAll();
+        idsByDisplayName.invalidateAll();
+        idsByFormalName.invalidateAll();
+        activeProducts.invalidateAll();
+    }
+
+    public ProductCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new ProductCacheStats(
+                hitCount,
+                missCount,
+                requests == 0 ? 0.0 : (double) hitCount / requests,
+                productsById.stats().evictionCount(),
+                productsById.estimatedSize());
+    }
+
+    private Product put(Product product) {
+        productsById.put(product.getId(), product);
+        idsByDisplayName.put(product.getDisplayName(), product.getId());
+        idsByFormalName.put(product.getFormalName(), product.getId());
+        return product;
+    }
+
+    private void evictNow(Product product) {
+        if (product.getId() != null) {
+            evictNow(product.getId());
+        }
+        if (product.getDisplayName() != null) {
+            idsByDisplayName.invalidate(product.getDisplayName());
+        }
+        if (product.getFormalName() != null) {
+            idsByFormalName.invalidate(product.getFormalName());
+        }
+        activeProducts.invalidateAll();
+    }
+
+    private void evictNow(Integer id) {
+        Product cached = productsById.getIfPresent(id);
+        productsById.invalidate(id);
+        if (cached != null) {
+            idsByDisplayName.invalidate(cached.getDisplayName());
+            idsByFormalName.invalidate(cached.getFormalName());
+        }
+        activeProducts.invalidateAll();
+    }
+
+    // Evicting again after commit keeps a concurrent reader from re-caching pre-commit state
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
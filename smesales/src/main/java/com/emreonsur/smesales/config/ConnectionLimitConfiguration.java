@@ -0,0 +1,33 @@
+package com.emreonsur.smesales.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Puts a ConnectionLimitingDataSource in front of the Hikari pool, sized to
+// the pool and waiting as long as the pool's own connection timeout.
+// On by default in virtual-thread mode (see application.properties).
+@Configuration
+@ConditionalOnProperty(name = "smesales.datasource.connection-limit.enabled", havingValue = "true")
+public class ConnectionLimitConfiguration {
+
+    // Static so the post-processor is in place before the data source bean is created
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    return new ConnectionLimitingDataSource(hikariDataSource,
+                            hikariDataSource.getMaximumPoolSize(),
+                            Duration.ofMillis(hikariDataSource.getConnectionTimeout()));
+                }
+                return bean;
+            }
+        };
+    }
+}
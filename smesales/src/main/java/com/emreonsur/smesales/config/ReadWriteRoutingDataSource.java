@@ -0,0 +1,24 @@
+package com.emreonsur.smesales.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends read-only transactions to the replica and everything else to the primary.
+// Must sit behind a LazyConnectionDataSourceProxy so the read-only flag is set in time.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return ReadYourWritesFilter.isPinnedToPrimary() ? Route.PRIMARY : Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWritesFilter.recordWrite();
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,89 @@
+package com.emreonsur.smesales.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Keeps a client on the primary for 'window' after it writes, tracked in a cookie
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE_NAME = "smesales-primary-until";
+
+    private static final ThreadLocal<RequestState> CURRENT = new ThreadLocal<>();
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    static boolean isPinnedToPrimary() {
+        RequestState state = CURRENT.get();
+        return state != null && state.pinned;
+    }
+
+    // Pins the current request and tells the client to stay on the primary for the window
+    static void recordWrite() {
+        RequestState state = CURRENT.get();
+        if (state == null || state.written) {
+            return;
+        }
+        state.written = true;
+        state.pinned = true;
+        if (!state.response.isCommitted()) {
+            long until = System.currentTimeMillis() + state.window.toMillis();
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, state.window.toSeconds()));
+            state.response.addCookie(cookie);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestState state = new RequestState(response, window, pinnedUntil(request) > System.currentTimeMillis());
+        CURRENT.set(state);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static final class RequestState {
+        private final HttpServletResponse response;
+        private final Duration window;
+        private boolean pinned;
+        private boolean written;
+
+        private RequestState(HttpServletResponse response, Duration window, boolean pinned) {
+            this.response = response;
+            this.window = window;
+            this.pinned = pinned;
+        }
+    }
+}
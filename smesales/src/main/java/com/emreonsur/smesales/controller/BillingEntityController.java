@@ -1,13 +1,17 @@
 package com.emreonsur.smesales.controller;
 
+import com.emreonsur.smesales.dto.BalanceView;
 import com.emreonsur.smesales.entity.BillingEntity;
 import com.emreonsur.smesales.repository.BillingEntityRepository;
 import com.emreonsur.smesales.service.BillingEntityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/billing-entities")
@@ -23,33 +27,92 @@ public class BillingEntityController {
         this.billingEntityRepository = billingEntityRepository;
     }
 
+    // Collection ETags are checked before the collection is loaded, so an
+    // unchanged collection costs one aggregate query and no serialization
     @GetMapping
-    public List<BillingEntity> getAllBillingEntities() {
-        return billingEntityService.getAllBillingEntities();
+    public ResponseEntity<List<BillingEntity>> getAllBillingEntities(WebRequest request) {
+        String eTag = billingEntityService.getBillingEntitiesETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(billingEntityService.getAllBillingEntities());
     }
 
+    // e.g. /api/billing-entities?fields=tradeName,currentBalance; see FieldProjections
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllBillingEntityFields(@RequestParam String fields,
+                                                                               WebRequest request) {
+        String eTag = billingEntityService.getBillingEntitiesETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(billingEntityService.getAllBillingEntityFields(fields));
+    }
+
+    // The served balance includes ledger entries not yet compacted, which the version does not count
     @GetMapping("/{id}")
     public ResponseEntity<BillingEntity> getBillingEntityById(@PathVariable Integer id) {
         return billingEntityService.getBillingEntityById(id)
+                .map(billingEntity -> ResponseEntity.ok()
+                        .eTag(billingEntity.getVersion() + "-" + billingEntity.getCurrentBalance())
+                        .body(billingEntity))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getBillingEntityFieldsById(@PathVariable Integer id,
+                                                                          @RequestParam String fields) {
+        return ResponseEntity.of(billingEntityService.getBillingEntityFieldsById(id, fields));
+    }
+
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<BalanceView> getBalance(@PathVariable Integer id) {
+        return billingEntityService.getBalance(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/by-trade-name/{tradeName}")
     public ResponseEntity<BillingEntity> getBillingEntityByTradeName(@PathVariable String tradeName) {
-        return billingEntityRepository.findByTradeName(tradeName)
+        return billingEntityService.getBillingEntityByTradeName(tradeName)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/by-trade-name/{tradeName}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getBillingEntityFieldsByTradeName(@PathVariable String tradeName,
+                                                                                 @RequestParam String fields) {
+        return ResponseEntity.of(billingEntityService.getBillingEntityFieldsByTradeName(tradeName, fields));
+    }
+
     @GetMapping("/active")
-    public List<BillingEntity> getAllActiveBillingEntities() {
-        return billingEntityRepository.findByIsActiveTrue();
+    public ResponseEntity<List<BillingEntity>> getAllActiveBillingEntities(WebRequest request) {
+        String eTag = billingEntityService.getActiveBillingEntitiesETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(billingEntityService.getActiveBillingEntities());
+    }
+
+    @GetMapping(value = "/active", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllActiveBillingEntityFields(@RequestParam String fields,
+                                                                                     WebRequest request) {
+        String eTag = billingEntityService.getActiveBillingEntitiesETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(billingEntityService.getActiveBillingEntityFields(fields));
     }
 
     @GetMapping("/by-entity-type/{entityType}")
     public List<BillingEntity> getBillingEntitiesByEntityType(@PathVariable String entityType) {
-        return billingEntityRepository.findByEntityType(entityType);
+        return billingEntityService.getBillingEntitiesByEntityType(entityType);
+    }
+
+    @GetMapping(value = "/by-entity-type/{entityType}", params = "fields")
+    public List<Map<String, Object>> getBillingEntityFieldsByEntityType(@PathVariable String entityType,
+                                                                        @RequestParam String fields) {
+        return billingEntityService.getBillingEntityFieldsByEntityType(entityType, fields);
     }
 
     @GetMapping("/exists/{tradeNumberOrCitizenId}")
@@ -66,12 +129,18 @@ public class BillingEntityController {
     @PutMapping("/{id}")
     public ResponseEntity<BillingEntity> updateBillingEntity(@PathVariable Integer id,
                                                              @RequestBody BillingEntity billingEntity) {
-        try {
-            BillingEntity updated = billingEntityService.updateBillingEntity(id, billingEntity);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        BillingEntity updated = billingEntityService.updateBillingEntity(id, billingEntity);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<BillingEntity> patchBillingEntity(@PathVariable Integer id,
+                                                            @RequestBody BillingEntity billingEntity,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                            String ifMatch) {
+        BillingEntity patched = billingEntityService.patchBillingEntity(id, billingEntity, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -2,37 +2,73 @@ package com.emreonsur.smesales.controller;
 
 import com.emreonsur.smesales.entity.Customer;
 import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.FieldProjections;
 import com.emreonsur.smesales.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+
+import static com.emreonsur.smesales.repository.FieldProjections.where;
 
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController {
     private final CustomerService customerService;
     private final CustomerRepository customerRepository;
+    private final FieldProjections fieldProjections;
 
     @Autowired
-    public CustomerController(CustomerService customerService, CustomerRepository customerRepository) {
+    public CustomerController(CustomerService customerService,
+                              CustomerRepository customerRepository,
+                              FieldProjections fieldProjections) {
         this.customerService = customerService;
         this.customerRepository = customerRepository;
+        this.fieldProjections = fieldProjections;
     }
 
+    // Collection ETags are checked before the collection is loaded, so an
+    // unchanged collection costs one aggregate query and no serialization
     @GetMapping
-    public List<Customer> getAllCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<Customer>> getAllCustomers(WebRequest request) {
+        String eTag = customerService.getCustomersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(customerService.getAllCustomers());
+    }
+
+    // e.g. /api/customers?fields=displayName,billingEntity.tradeName; see FieldProjections
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllCustomerFields(@RequestParam String fields,
+                                                                          WebRequest request) {
+        String eTag = customerService.getCustomersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(fieldProjections.findAll(Customer.class, fields, null));
     }
 
+    // The customer is served with its billing entity, so both versions make up the ETag
     @GetMapping("/{id}")
     public ResponseEntity<Customer> getCustomerById(@PathVariable Integer id) {
         return customerService.getCustomerById(id)
-                .map(ResponseEntity::ok)
+                .map(customer -> ResponseEntity.ok()
+                        .eTag(customer.getVersion() + "-" + customer.getBillingEntity().getVersion())
+                        .body(customer))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getCustomerFieldsById(@PathVariable Integer id,
+                                                                     @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Customer.class, fields, where("id", id)));
+    }
+
     @GetMapping("/by-display-name/{displayName}")
     public ResponseEntity<Customer> getCustomerByDisplayName(@PathVariable String displayName) {
         return customerRepository.findByDisplayName(displayName)
@@ -40,9 +76,31 @@ public class CustomerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/by-display-name/{displayName}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getCustomerFieldsByDisplayName(@PathVariable String displayName,
+                                                                              @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Customer.class, fields,
+                where("displayName", displayName)));
+    }
+
     @GetMapping("/active")
-    public List<Customer> getAllActiveCustomers() {
-        return customerRepository.findByIsActiveTrue();
+    public ResponseEntity<List<Customer>> getAllActiveCustomers(WebRequest request) {
+        String eTag = customerService.getActiveCustomersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(customerRepository.findByIsActiveTrue());
+    }
+
+    @GetMapping(value = "/active", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllActiveCustomerFields(@RequestParam String fields,
+                                                                                WebRequest request) {
+        String eTag = customerService.getActiveCustomersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag)
+                .body(fieldProjections.findAll(Customer.class, fields, where("isActive", true)));
     }
 
     @GetMapping("/by-billing-entity/{billingEntityId}")
@@ -50,6 +108,12 @@ public class CustomerController {
         return customerRepository.findByBillingEntity_Id(billingEntityId);
     }
 
+    @GetMapping(value = "/by-billing-entity/{billingEntityId}", params = "fields")
+    public List<Map<String, Object>> getCustomerFieldsByBillingEntityId(@PathVariable Integer billingEntityId,
+                                                                        @RequestParam String fields) {
+        return fieldProjections.findAll(Customer.class, fields, where("billingEntity.id", billingEntityId));
+    }
+
     @GetMapping("/exists/{displayName}")
     public ResponseEntity<Boolean> checkCustomerExistsByDisplayName(@PathVariable String displayName) {
         boolean exists = customerRepository.existsByDisplayName(displayName);
@@ -64,12 +128,17 @@ public class CustomerController {
     @PutMapping("/{id}")
     public ResponseEntity<Customer> updateCustomer(@PathVariable Integer id,
                                                    @RequestBody Customer customer) {
-        try {
-            Customer updated = customerService.updateCustomer(id, customer);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        Customer updated = customerService.updateCustomer(id, customer);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<Customer> patchCustomer(@PathVariable Integer id,
+                                                  @RequestBody Customer customer,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Customer patched = customerService.patchCustomer(id, customer, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,67 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+// CSV exports, streamed while the query runs; gzip-compressed when the client accepts it
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+    private static final int GZIP_BUFFER_SIZE = 16 * 1024;
+
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // e.g. /api/exports/sales?from=2025-06-01&to=2025-06-30&billingEntityId=3
+    @GetMapping("/sales")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer customerId,
+            @RequestParam(required = false) Integer billingEntityId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Checked here: once the body starts streaming the status can no longer change
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (OutputStream compressed = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE)) {
+                    exportService.exportSales(from, to, customerId, billingEntityId, compressed);
+                }
+            } else {
+                exportService.exportSales(from, to, customerId, billingEntityId, outputStream);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("sales-" + from + "-" + to + ".csv")
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
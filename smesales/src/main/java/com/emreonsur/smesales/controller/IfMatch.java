@@ -0,0 +1,29 @@
+package com.emreonsur.smesales.controller;
+
+// Reads the entity version a conditional update is based on from an If-Match header
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    // The ETags served for single entities start with the entity's version;
+    // no header, or '*', means the update applies to any version
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.startsWith("W/")) {
+            throw new IllegalArgumentException("If-Match needs a strong ETag");
+        }
+        if (eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            eTag = eTag.substring(1, eTag.length() - 1);
+        }
+        int end = eTag.indexOf('-');
+        try {
+            return Long.valueOf(end >= 0 ? eTag.substring(0, end) : eTag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.dto.ImportReport;
+import com.emreonsur.smesales.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Bulk CSV import; the request body is the raw CSV file with a header row
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/products")
+    public ImportReport importProducts(InputStream body) throws IOException {
+        return importService.importProducts(body);
+    }
+
+    @PostMapping("/customers")
+    public ImportReport importCustomers(InputStream body) throws IOException {
+        return importService.importCustomers(body);
+    }
+
+    @PostMapping("/billing-entities")
+    public ImportReport importBillingEntities(InputStream body) throws IOException {
+        return importService.importBillingEntities(body);
+    }
+}
@@ -1,24 +1,37 @@
 package com.emreonsur.smesales.controller;
 
+import com.emreonsur.smesales.dto.CursorPage;
 import com.emreonsur.smesales.entity.Payment;
+import com.emreonsur.smesales.repository.FieldProjections;
 import com.emreonsur.smesales.repository.PaymentRepository;
 import com.emreonsur.smesales.service.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+
+import static com.emreonsur.smesales.repository.FieldProjections.where;
 
 @RestController
 @RequestMapping("/api/payments")
 public class PaymentController {
     private final PaymentService paymentService;
     private final PaymentRepository paymentRepository;
+    private final FieldProjections fieldProjections;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PaymentController(PaymentService paymentService, PaymentRepository paymentRepository) {
+    public PaymentController(PaymentService paymentService, PaymentRepository paymentRepository,
+                             FieldProjections fieldProjections, ObjectMapper objectMapper) {
         this.paymentService = paymentService;
         this.paymentRepository = paymentRepository;
+        this.fieldProjections = fieldProjections;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -26,6 +39,23 @@ public class PaymentController {
         return paymentService.getAllPayments();
     }
 
+    // e.g. /api/payments?fields=customer.displayName,amount,paymentDate; see FieldProjections
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getAllPaymentFields(@RequestParam String fields) {
+        return fieldProjections.findAll(Payment.class, fields, null);
+    }
+
+    @GetMapping("/page")
+    public CursorPage<Payment> getPaymentsPage(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int size) {
+        return paymentService.getPaymentsPage(cursor, size);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPayments() {
+        return NdjsonResponses.stream(objectMapper, paymentService::streamPayments);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Payment> getPaymentById(@PathVariable Integer id) {
         return paymentService.getPaymentById(id)
@@ -33,16 +63,34 @@ public class PaymentController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getPaymentFieldsById(@PathVariable Integer id,
+                                                                    @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Payment.class, fields, where("id", id)));
+    }
+
     @GetMapping("/customer/{customerId}")
     public List<Payment> getPaymentsByCustomerId(@PathVariable Integer customerId) {
         return paymentService.getPaymentsByCustomerId(customerId);
     }
 
+    @GetMapping(value = "/customer/{customerId}", params = "fields")
+    public List<Map<String, Object>> getPaymentFieldsByCustomerId(@PathVariable Integer customerId,
+                                                                  @RequestParam String fields) {
+        return fieldProjections.findAll(Payment.class, fields, where("customer.id", customerId));
+    }
+
     @GetMapping("/method/{method}")
     public List<Payment> getPaymentsByMethod(@PathVariable String method) {
         return paymentRepository.findByMethod(method);
     }
 
+    @GetMapping(value = "/method/{method}", params = "fields")
+    public List<Map<String, Object>> getPaymentFieldsByMethod(@PathVariable String method,
+                                                              @RequestParam String fields) {
+        return fieldProjections.findAll(Payment.class, fields, where("method", method));
+    }
+
     @PostMapping
     public Payment createPayment(@RequestBody Payment payment) {
         return paymentService.createPayment(payment);
@@ -51,12 +99,17 @@ public class PaymentController {
     @PutMapping("/{id}")
     public ResponseEntity<Payment> updatePayment(@PathVariable Integer id,
                                                  @RequestBody Payment payment) {
-        try {
-            Payment updated = paymentService.updatePayment(id, payment);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        Payment updated = paymentService.updatePayment(id, payment);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<Payment> patchPayment(@PathVariable Integer id,
+                                                @RequestBody Payment payment,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Payment patched = paymentService.patchPayment(id, payment, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -1,13 +1,20 @@
 package com.emreonsur.smesales.controller;
 
+import com.emreonsur.smesales.dto.ProductCacheStats;
 import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.repository.FieldProjections;
 import com.emreonsur.smesales.repository.ProductRepository;
 import com.emreonsur.smesales.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+
+import static com.emreonsur.smesales.repository.FieldProjections.where;
 
 @RestController
 @RequestMapping("/api/products")
@@ -15,42 +22,96 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductRepository productRepository;
+    private final FieldProjections fieldProjections;
 
     @Autowired
-    public ProductController(ProductService productService, ProductRepository productRepository) {
+    public ProductController(ProductService productService,
+                             ProductRepository productRepository,
+                             FieldProjections fieldProjections) {
         this.productService = productService;
         this.productRepository = productRepository;
+        this.fieldProjections = fieldProjections;
     }
 
+    // Collection ETags are checked before the collection is loaded, so an
+    // unchanged collection costs one aggregate query and no serialization
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        String eTag = productService.getProductsETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(productService.getAllProducts());
+    }
+
+    // e.g. /api/products?fields=displayName,unitPrice; see FieldProjections
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProductFields(@RequestParam String fields,
+                                                                         WebRequest request) {
+        String eTag = productService.getProductsETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(fieldProjections.findAll(Product.class, fields, null));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Integer id) {
         return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok().eTag(String.valueOf(product.getVersion())).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductFieldsById(@PathVariable Integer id,
+                                                                    @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Product.class, fields, where("id", id)));
+    }
+
     @GetMapping("/by-formal-name/{formalName}")
     public ResponseEntity<Product> getProductByFormalName(@PathVariable String formalName) {
-        return productRepository.findByFormalName(formalName)
+        return productService.getProductByFormalName(formalName)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/by-formal-name/{formalName}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductFieldsByFormalName(@PathVariable String formalName,
+                                                                            @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Product.class, fields, where("formalName", formalName)));
+    }
+
     @GetMapping("/by-display-name/{displayName}")
     public ResponseEntity<Product> getProductByDisplayName(@PathVariable String displayName) {
-        return productRepository.findByDisplayName(displayName)
+        return productService.getProductByDisplayName(displayName)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/by-display-name/{displayName}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductFieldsByDisplayName(@PathVariable String displayName,
+                                                                             @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Product.class, fields, where("displayName", displayName)));
+    }
+
     @GetMapping("/active")
-    public List<Product> getAllActiveProducts() {
-        return productRepository.findByIsActiveTrue();
+    public ResponseEntity<List<Product>> getAllActiveProducts(WebRequest request) {
+        String eTag = productService.getActiveProductsETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(productService.getActiveProducts());
+    }
+
+    @GetMapping(value = "/active", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllActiveProductFields(@RequestParam String fields,
+                                                                               WebRequest request) {
+        String eTag = productService.getActiveProductsETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag)
+                .body(fieldProjections.findAll(Product.class, fields, where("isActive", true)));
     }
 
     @GetMapping("/exists/{displayName}")
@@ -59,6 +120,11 @@ public class ProductController {
         return ResponseEntity.ok(exists);
     }
 
+    @GetMapping("/cache-stats")
+    public ProductCacheStats getCacheStats() {
+        return productService.getCacheStats();
+    }
+
     @PostMapping
     public Product createProduct(@RequestBody Product product) {
         return productService.createProduct(product);
@@ -67,12 +133,17 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Integer id,
                                                  @RequestBody Product product) {
-        try {
-            Product updated = productService.updateProduct(id, product);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        Product updated = productService.updateProduct(id, product);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<Product> patchProduct(@PathVariable Integer id,
+                                                @RequestBody Product product,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product patched = productService.patchProduct(id, product, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,38 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.dto.ReceivablesView;
+import com.emreonsur.smesales.entity.PaymentAllocation;
+import com.emreonsur.smesales.service.ReceivablesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/receivables")
+public class ReceivablesController {
+    private final ReceivablesService receivablesService;
+
+    @Autowired
+    public ReceivablesController(ReceivablesService receivablesService) {
+        this.receivablesService = receivablesService;
+    }
+
+    @GetMapping("/{billingEntityId}")
+    public ResponseEntity<ReceivablesView> getReceivables(@PathVariable Integer billingEntityId) {
+        return receivablesService.getReceivables(billingEntityId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{billingEntityId}/allocations")
+    public List<PaymentAllocation> getAllocations(@PathVariable Integer billingEntityId) {
+        return receivablesService.getAllocations(billingEntityId);
+    }
+
+    @GetMapping("/payments/{paymentId}/allocations")
+    public List<PaymentAllocation> getAllocationsByPaymentId(@PathVariable Integer paymentId) {
+        return receivablesService.getAllocationsByPaymentId(paymentId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.dto.ReconciliationReport;
+import com.emreonsur.smesales.service.ReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Bank statement reconciliation, from a file in the statements directory or from the request body.
+// With createMissing=true, payments are created for unmatched lines that name a customer.
+@RestController
+@RequestMapping("/api/reconciliation")
+public class ReconciliationController {
+    private final ReconciliationService reconciliationService;
+
+    @Autowired
+    public ReconciliationController(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    @PostMapping("/statements")
+    public ReconciliationReport reconcile(InputStream body,
+                                          @RequestParam(defaultValue = "false") boolean createMissing)
+            throws IOException {
+        return reconciliationService.reconcile(body, createMissing);
+    }
+
+    @PostMapping("/statements/{fileName}")
+    public ReconciliationReport reconcileFile(@PathVariable String fileName,
+                                              @RequestParam(defaultValue = "false") boolean createMissing)
+            throws IOException {
+        return reconciliationService.reconcileFile(fileName, createMissing);
+    }
+}
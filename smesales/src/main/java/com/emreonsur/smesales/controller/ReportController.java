@@ -0,0 +1,33 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.dto.SalesReport;
+import com.emreonsur.smesales.service.SalesReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+    private final SalesReportService salesReportService;
+
+    @Autowired
+    public ReportController(SalesReportService salesReportService) {
+        this.salesReportService = salesReportService;
+    }
+
+    // e.g. /api/reports/sales?bucket=week&from=2025-01-01&to=2025-03-31&groupBy=billing-entity
+    @GetMapping("/sales")
+    public SalesReport getSalesReport(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer customerId,
+            @RequestParam(required = false) Integer billingEntityId,
+            @RequestParam(required = false) Integer productId,
+            @RequestParam(required = false) String groupBy) {
+        return salesReportService.getSalesReport(bucket, from, to, customerId, billingEntityId, productId, groupBy);
+    }
+}
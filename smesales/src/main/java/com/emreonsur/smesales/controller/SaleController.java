@@ -1,29 +1,65 @@
 package com.emreonsur.smesales.controller;
 
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.dto.OrderConfirmation;
+import com.emreonsur.smesales.dto.OrderRequest;
+import com.emreonsur.smesales.dto.SaleSummary;
 import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.repository.FieldProjections;
 import com.emreonsur.smesales.repository.SaleRepository;
 import com.emreonsur.smesales.service.SaleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+
+import static com.emreonsur.smesales.repository.FieldProjections.where;
 
 @RestController
 @RequestMapping("/api/sales")
 public class SaleController {
     private final SaleService saleService;
     private final SaleRepository saleRepository;
+    private final FieldProjections fieldProjections;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public SaleController(SaleService saleService, SaleRepository saleRepository) {
+    public SaleController(SaleService saleService,
+                          SaleRepository saleRepository,
+                          FieldProjections fieldProjections,
+                          ObjectMapper objectMapper) {
         this.saleService = saleService;
         this.saleRepository = saleRepository;
+        this.fieldProjections = fieldProjections;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<Sale> getAllSales() {
-        return saleService.getAllSales();
+    public List<SaleSummary> getAllSales() {
+        return saleService.getSaleSummaries();
+    }
+
+    // e.g. /api/sales?fields=invoiceId,totalAmount,customer.displayName; see FieldProjections.
+    // The lines are a collection and are never part of a projection.
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getAllSaleFields(@RequestParam String fields) {
+        return fieldProjections.findAll(Sale.class, fields, null);
+    }
+
+    @GetMapping("/page")
+    public CursorPage<Sale> getSalesPage(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "100") int size) {
+        return saleService.getSalesPage(cursor, size);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamSales() {
+        return NdjsonResponses.stream(objectMapper, saleService::streamSales);
     }
 
     @GetMapping("/{id}")
@@ -33,9 +69,21 @@ public class SaleController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getSaleFieldsById(@PathVariable Integer id,
+                                                                 @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Sale.class, fields, where("id", id)));
+    }
+
     @GetMapping("/by-customer/{customerId}")
-    public List<Sale> getSalesByCustomerId(@PathVariable Integer customerId) {
-        return saleRepository.findByCustomer_Id(customerId);
+    public List<SaleSummary> getSalesByCustomerId(@PathVariable Integer customerId) {
+        return saleService.getSaleSummariesByCustomerId(customerId);
+    }
+
+    @GetMapping(value = "/by-customer/{customerId}", params = "fields")
+    public List<Map<String, Object>> getSaleFieldsByCustomerId(@PathVariable Integer customerId,
+                                                               @RequestParam String fields) {
+        return fieldProjections.findAll(Sale.class, fields, where("customer.id", customerId));
     }
 
     @GetMapping("/by-invoice/{invoiceId}")
@@ -48,20 +96,36 @@ public class SaleController {
         }
     }
 
+    @GetMapping(value = "/by-invoice/{invoiceId}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getSaleFieldsByInvoiceId(@PathVariable String invoiceId,
+                                                                        @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(Sale.class, fields, where("invoiceId", invoiceId)));
+    }
+
     @PostMapping
     public Sale createSale(@RequestBody Sale sale) {
         return saleService.createSale(sale);
     }
 
+    @PostMapping("/orders")
+    public OrderConfirmation placeOrder(@RequestBody OrderRequest order) {
+        return saleService.placeOrder(order);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Sale> updateSale(@PathVariable Integer id,
                                            @RequestBody Sale sale) {
-        try {
-            Sale updated = saleService.updateSale(id, sale);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        Sale updated = saleService.updateSale(id, sale);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<Sale> patchSale(@PathVariable Integer id,
+                                          @RequestBody Sale sale,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Sale patched = saleService.patchSale(id, sale, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
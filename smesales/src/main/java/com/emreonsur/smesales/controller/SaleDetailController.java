@@ -1,24 +1,35 @@
 package com.emreonsur.smesales.controller;
 
+import com.emreonsur.smesales.dto.CursorPage;
 import com.emreonsur.smesales.entity.SaleDetail;
-import com.emreonsur.smesales.repository.SaleDetailRepository;
+import com.emreonsur.smesales.repository.FieldProjections;
 import com.emreonsur.smesales.service.SaleDetailService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+
+import static com.emreonsur.smesales.repository.FieldProjections.where;
 
 @RestController
 @RequestMapping("/api/sale-details")
 public class SaleDetailController {
     private final SaleDetailService saleDetailService;
-    private final SaleDetailRepository saleDetailRepository;
+    private final FieldProjections fieldProjections;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public SaleDetailController(SaleDetailService saleDetailService, SaleDetailRepository saleDetailRepository) {
+    public SaleDetailController(SaleDetailService saleDetailService,
+                                FieldProjections fieldProjections,
+                                ObjectMapper objectMapper) {
         this.saleDetailService = saleDetailService;
-        this.saleDetailRepository = saleDetailRepository;
+        this.fieldProjections = fieldProjections;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -26,6 +37,23 @@ public class SaleDetailController {
         return saleDetailService.getAllSaleDetails();
     }
 
+    // e.g. /api/sale-details?fields=sale,product.displayName,quantity; see FieldProjections
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getAllSaleDetailFields(@RequestParam String fields) {
+        return fieldProjections.findAll(SaleDetail.class, fields, null);
+    }
+
+    @GetMapping("/page")
+    public CursorPage<SaleDetail> getSaleDetailsPage(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "100") int size) {
+        return saleDetailService.getSaleDetailsPage(cursor, size);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamSaleDetails() {
+        return NdjsonResponses.stream(objectMapper, saleDetailService::streamSaleDetails);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SaleDetail> getSaleDetailById(@PathVariable Integer id) {
         return saleDetailService.getSaleDetailById(id)
@@ -33,14 +61,32 @@ public class SaleDetailController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getSaleDetailFieldsById(@PathVariable Integer id,
+                                                                       @RequestParam String fields) {
+        return ResponseEntity.of(fieldProjections.findOne(SaleDetail.class, fields, where("id", id)));
+    }
+
     @GetMapping("/sale/{saleId}")
     public List<SaleDetail> getSaleDetailsBySaleId(@PathVariable Integer saleId) {
         return saleDetailService.getSaleDetailsBySaleId(saleId);
     }
 
+    @GetMapping(value = "/sale/{saleId}", params = "fields")
+    public List<Map<String, Object>> getSaleDetailFieldsBySaleId(@PathVariable Integer saleId,
+                                                                 @RequestParam String fields) {
+        return fieldProjections.findAll(SaleDetail.class, fields, where("sale.id", saleId));
+    }
+
     @GetMapping("/product/{productId}")
     public List<SaleDetail> getSaleDetailsByProductId(@PathVariable Integer productId) {
-        return saleDetailRepository.findByProduct_Id(productId);
+        return saleDetailService.getSaleDetailsByProductId(productId);
+    }
+
+    @GetMapping(value = "/product/{productId}", params = "fields")
+    public List<Map<String, Object>> getSaleDetailFieldsByProductId(@PathVariable Integer productId,
+                                                                    @RequestParam String fields) {
+        return fieldProjections.findAll(SaleDetail.class, fields, where("product.id", productId));
     }
 
     @PostMapping
@@ -51,12 +97,18 @@ public class SaleDetailController {
     @PutMapping("/{id}")
     public ResponseEntity<SaleDetail> updateSaleDetail(@PathVariable Integer id,
                                                        @RequestBody SaleDetail saleDetail) {
-        try {
-            SaleDetail updated = saleDetailService.updateSaleDetail(id, saleDetail);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        SaleDetail updated = saleDetailService.updateSaleDetail(id, saleDetail);
+        return ResponseEntity.ok(updated);
+    }
+
+    // Changes only the fields present in the body; with If-Match, only the version it names
+    @PatchMapping("/{id}")
+    public ResponseEntity<SaleDetail> patchSaleDetail(@PathVariable Integer id,
+                                                      @RequestBody SaleDetail saleDetail,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        SaleDetail patched = saleDetailService.patchSaleDetail(id, saleDetail, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok(patched);
     }
 
     @DeleteMapping("/{id}")
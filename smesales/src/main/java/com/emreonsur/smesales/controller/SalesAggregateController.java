@@ -0,0 +1,45 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.entity.CustomerSalesAggregate;
+import com.emreonsur.smesales.entity.ProductSalesAggregate;
+import com.emreonsur.smesales.service.SalesAggregateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/aggregates")
+public class SalesAggregateController {
+    private final SalesAggregateService salesAggregateService;
+
+    @Autowired
+    public SalesAggregateController(SalesAggregateService salesAggregateService) {
+        this.salesAggregateService = salesAggregateService;
+    }
+
+    @GetMapping("/customers")
+    public List<CustomerSalesAggregate> getAllCustomerAggregates() {
+        return salesAggregateService.getAllCustomerAggregates();
+    }
+
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<CustomerSalesAggregate> getCustomerAggregate(@PathVariable Integer customerId) {
+        return salesAggregateService.getCustomerAggregate(customerId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/products")
+    public List<ProductSalesAggregate> getAllProductAggregates() {
+        return salesAggregateService.getAllProductAggregates();
+    }
+
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<ProductSalesAggregate> getProductAggregate(@PathVariable Integer productId) {
+        return salesAggregateService.getProductAggregate(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
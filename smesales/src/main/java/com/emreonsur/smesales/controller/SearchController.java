@@ -0,0 +1,28 @@
+package com.emreonsur.smesales.controller;
+
+import com.emreonsur.smesales.dto.SearchResult;
+import com.emreonsur.smesales.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // e.g. /api/search?q=mil&type=product&type=customer
+    @GetMapping
+    public List<SearchResult> search(@RequestParam String q,
+                                     @RequestParam(name = "type", required = false) List<String> types,
+                                     @RequestParam(defaultValue = "false") boolean includeInactive,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        return searchService.search(q, types, includeInactive, limit);
+    }
+}
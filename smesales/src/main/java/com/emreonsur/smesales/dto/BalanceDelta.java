@@ -0,0 +1,14 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.math.BigDecimal;
+
+// Sum of ledger amounts for one billing entity
+public record BalanceDelta(Integer billingEntityId, Money amount) {
+
+    // For JPQL constructor expressions, where SUM over a Money column yields the column's BigDecimal
+    public BalanceDelta(Integer billingEntityId, BigDecimal amount) {
+        this(billingEntityId, Money.of(amount));
+    }
+}
@@ -0,0 +1,7 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+// A billing entity's balance: the compacted snapshot plus the ledger entries not yet folded into it
+public record BalanceView(Integer billingEntityId, Money compactedBalance, Money pendingAmount, Money currentBalance) {
+}
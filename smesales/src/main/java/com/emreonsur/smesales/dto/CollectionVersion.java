@@ -0,0 +1,13 @@
+package com.emreonsur.smesales.dto;
+
+// Fingerprint of a set of versioned rows. The row count and ID sum change
+// when a row joins or leaves the set, the version sum when one of them is
+// updated, so it changes whenever the collection's representation does.
+public record CollectionVersion(Long count, Integer maxId, Long idSum, Long versionSum) {
+
+    // The fingerprint as an ETag value
+    public String eTag() {
+        return count + "-" + (maxId != null ? maxId : 0) + "-"
+                + (idSum != null ? idSum : 0) + "-" + (versionSum != null ? versionSum : 0);
+    }
+}
@@ -0,0 +1,7 @@
+package com.emreonsur.smesales.dto;
+
+import java.util.List;
+
+// One keyset page of results; 'nextCursor' is null on the last page
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
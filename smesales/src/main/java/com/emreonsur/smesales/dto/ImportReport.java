@@ -0,0 +1,16 @@
+package com.emreonsur.smesales.dto;
+
+import java.util.List;
+
+// Outcome of a bulk CSV import; 'errors' holds at most the configured number of row errors
+public record ImportReport(String target,
+                           long rowsRead,
+                           long rowsImported,
+                           long rowsFailed,
+                           List<RowError> errors,
+                           boolean errorsTruncated) {
+
+    // 'line' is the line of the CSV file on which the failed record starts
+    public record RowError(long line, String message) {
+    }
+}
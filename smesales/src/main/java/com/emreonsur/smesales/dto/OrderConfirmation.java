@@ -0,0 +1,17 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Result of a placed order, with the prices applied to each line
+public record OrderConfirmation(Integer saleId,
+                                String invoiceId,
+                                LocalDateTime orderDate,
+                                Money totalAmount,
+                                List<Line> lines) {
+
+    public record Line(Integer productId, Integer quantity, Money unitPrice, Money totalPrice) {
+    }
+}
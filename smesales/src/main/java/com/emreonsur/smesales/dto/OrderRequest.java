@@ -0,0 +1,14 @@
+package com.emreonsur.smesales.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A whole basket submitted in one call: the sale header and its lines
+public record OrderRequest(Integer customerId,
+                           LocalDateTime orderDate,
+                           String invoiceId,
+                           List<Line> lines) {
+
+    public record Line(Integer productId, Integer quantity) {
+    }
+}
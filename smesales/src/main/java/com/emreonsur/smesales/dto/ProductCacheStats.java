@@ -0,0 +1,5 @@
+package com.emreonsur.smesales.dto;
+
+// Counters of the in-memory product catalog cache
+public record ProductCacheStats(long hits, long misses, double hitRate, long evictions, long size) {
+}
@@ -0,0 +1,10 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDate;
+
+// What a billing entity still owes, split by the age of the unpaid sales, and its unallocated payments
+public record ReceivablesView(Integer billingEntityId, LocalDate asOf, Money openAmount, Money unappliedCredit,
+                              Money days0To30, Money days31To60, Money days61To90, Money over90Days) {
+}
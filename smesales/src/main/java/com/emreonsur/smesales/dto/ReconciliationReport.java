@@ -0,0 +1,27 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Outcome of reconciling a bank statement against the payments.
+// Each list holds at most the configured number of lines; the counts are always complete.
+public record ReconciliationReport(String source,
+                                   long linesRead,
+                                   long debitsIgnored,
+                                   long matchedCount,
+                                   long suspiciousCount,
+                                   long unmatchedCount,
+                                   long paymentsCreated,
+                                   List<Line> matched,
+                                   List<Line> suspicious,
+                                   List<Line> unmatched,
+                                   List<ImportReport.RowError> errors,
+                                   boolean truncated) {
+
+    // 'paymentId' is the matched, suspected or created payment; 'reason' says why a line is not a clean match
+    public record Line(long line, LocalDate date, Money amount, String reference, Integer paymentId,
+                       String reason) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDateTime;
+
+// Flat read model of a sale with its customer and billing entity names
+public record SaleSummary(Integer saleId,
+                          LocalDateTime orderDate,
+                          String invoiceId,
+                          Money totalAmount,
+                          Integer customerId,
+                          String customerName,
+                          Integer billingEntityId,
+                          String billingEntityName) {
+}
@@ -0,0 +1,18 @@
+package com.emreonsur.smesales.dto;
+
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Sales per time bucket, optionally per customer, billing entity or product ('key').
+// 'orders' is null when the report is sliced by product, as orders span products.
+public record SalesReport(String bucket,
+                          String groupBy,
+                          LocalDate from,
+                          LocalDate to,
+                          List<Row> rows) {
+
+    public record Row(LocalDate period, Integer key, Money revenue, Long units, Long orders) {
+    }
+}
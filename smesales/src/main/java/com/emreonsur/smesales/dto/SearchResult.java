@@ -0,0 +1,5 @@
+package com.emreonsur.smesales.dto;
+
+// One typeahead hit; 'type' is product, customer or billing-entity
+public record SearchResult(String type, Integer id, String label, Boolean active, Double score) {
+}
@@ -0,0 +1,36 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One signed change to a billing entity's balance; 'compactionId' is set once it is folded in
+@Entity
+@Table(name = "balance_ledger")
+@Data
+public class BalanceLedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long id;
+
+    @Column(name = "billing_entity_id", nullable = false)
+    private Integer billingEntityId;
+
+    @Column(name = "amount", nullable = false)
+    private Money amount;
+
+    @Column(name = "source_type", nullable = false, length = 16)
+    private String sourceType;
+
+    @Column(name = "source_id")
+    private Integer sourceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "compaction_id")
+    private Long compactionId;
+}
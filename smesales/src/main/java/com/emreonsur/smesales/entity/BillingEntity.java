@@ -1,10 +1,16 @@
 package com.emreonsur.smesales.entity;
 
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "billing_entities")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@DynamicUpdate
 @Data
 public class BillingEntity {
     @Id
@@ -27,9 +33,16 @@ public class BillingEntity {
     @Column(name = "billing_address", nullable = false, columnDefinition = "TEXT")
     private String billingAddress;
 
+    // Owned by the balance ledger, never taken from a request
     @Column(name = "current_balance", nullable = false)
-    private Double currentBalance;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Money currentBalance;
 
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.emreonsur.smesales.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "customers")
+@NamedEntityGraph(name = "Customer.billingEntity", attributeNodes = @NamedAttributeNode("billingEntity"))
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@DynamicUpdate
 @Data
 public class Customer {
     @Id
@@ -15,7 +21,7 @@ public class Customer {
     @Column(name = "display_name", nullable = false, unique = true)
     private String displayName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "billing_entity_id", nullable = false)
     private BillingEntity billingEntity;
 
@@ -24,4 +30,9 @@ public class Customer {
 
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Running sales totals of one customer, kept up to date as sales and sale lines change
+@Entity
+@Table(name = "customer_sales_aggregates")
+@Data
+public class CustomerSalesAggregate {
+    @Id
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    @Column(name = "revenue", nullable = false)
+    private Money revenue;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "last_order_date")
+    private LocalDateTime lastOrderDate;
+}
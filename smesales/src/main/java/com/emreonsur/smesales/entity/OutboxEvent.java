@@ -0,0 +1,43 @@
+package com.emreonsur.smesales.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One change to a sale, sale line, payment or product, written in the transaction that made it.
+// 'origin' is APP for changes made through the application and SQL for changes made directly
+// in the database (stored procedures, manual fixes), which are recorded by triggers.
+@Entity
+@Table(name = "outbox_events")
+@Data
+public class OutboxEvent {
+    public static final String ORIGIN_APP = "APP";
+    public static final String ORIGIN_SQL = "SQL";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Integer aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 16)
+    private String eventType;
+
+    @Column(name = "origin", nullable = false, length = 8)
+    private String origin;
+
+    // JSON with the 'before' and 'after' state of the row
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    // Set by the database, so events written by the application and by triggers share one clock
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime createdAt;
+}
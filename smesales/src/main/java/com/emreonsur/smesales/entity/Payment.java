@@ -1,12 +1,21 @@
 package com.emreonsur.smesales.entity;
 
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "payments")
+@NamedEntityGraph(
+        name = "Payment.customer",
+        attributeNodes = @NamedAttributeNode(value = "customer", subgraph = "customer"),
+        subgraphs = @NamedSubgraph(name = "customer", attributeNodes = @NamedAttributeNode("billingEntity"))
+)
+@DynamicUpdate
 @Data
 public class Payment {
     @Id
@@ -14,7 +23,7 @@ public class Payment {
     @Column(name = "payment_id")
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
@@ -22,7 +31,7 @@ public class Payment {
     private LocalDateTime paymentDate;
 
     @Column(name = "amount", nullable = false)
-    private Double amount;
+    private Money amount;
 
     @Column(name = "method", nullable = false)
     private String method;
@@ -32,4 +41,9 @@ public class Payment {
 
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
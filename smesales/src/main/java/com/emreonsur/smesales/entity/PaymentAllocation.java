@@ -0,0 +1,33 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Part of a payment applied to one sale
+@Entity
+@Table(name = "payment_allocations")
+@Data
+public class PaymentAllocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "allocation_id")
+    private Long id;
+
+    @Column(name = "billing_entity_id", nullable = false)
+    private Integer billingEntityId;
+
+    @Column(name = "payment_id", nullable = false)
+    private Integer paymentId;
+
+    @Column(name = "sale_id", nullable = false)
+    private Integer saleId;
+
+    @Column(name = "amount", nullable = false)
+    private Money amount;
+
+    @Column(name = "allocated_at", nullable = false)
+    private LocalDateTime allocatedAt;
+}
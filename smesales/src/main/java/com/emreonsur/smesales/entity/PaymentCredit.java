@@ -0,0 +1,30 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// How much of one payment has been applied to sales. The part not yet
+// allocated is credit held for the billing entity's next sales.
+@Entity
+@Table(name = "payment_credits")
+@Data
+public class PaymentCredit {
+    @Id
+    @Column(name = "payment_id")
+    private Integer paymentId;
+
+    @Column(name = "billing_entity_id", nullable = false)
+    private Integer billingEntityId;
+
+    @Column(name = "payment_date", nullable = false)
+    private LocalDateTime paymentDate;
+
+    @Column(name = "amount", nullable = false)
+    private Money amount;
+
+    @Column(name = "allocated_amount", nullable = false)
+    private Money allocatedAmount;
+}
@@ -0,0 +1,22 @@
+package com.emreonsur.smesales.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// How far one outbox consumer has got: every event up to 'lastEventId' has been delivered to it
+@Entity
+@Table(name = "processing_checkpoints")
+@Data
+public class ProcessingCheckpoint {
+    @Id
+    @Column(name = "consumer", length = 64)
+    private String consumer;
+
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
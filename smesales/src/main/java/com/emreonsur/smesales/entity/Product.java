@@ -1,10 +1,16 @@
 package com.emreonsur.smesales.entity;
 
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "products")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@DynamicUpdate
 @Data
 public class Product {
     @Id
@@ -19,11 +25,16 @@ public class Product {
     private String displayName;
 
     @Column(name = "unit_price", nullable = false)
-    private Double unitPrice;
+    private Money unitPrice;
 
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity;
 
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Running sales totals of one product; 'orderCount' is the number of sale lines for it
+@Entity
+@Table(name = "product_sales_aggregates")
+@Data
+public class ProductSalesAggregate {
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "revenue", nullable = false)
+    private Money revenue;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "last_order_date")
+    private LocalDateTime lastOrderDate;
+}
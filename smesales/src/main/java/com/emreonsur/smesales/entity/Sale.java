@@ -1,13 +1,35 @@
 package com.emreonsur.smesales.entity;
 
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "sales")
+@NamedEntityGraph(
+        name = "Sale.customer",
+        attributeNodes = @NamedAttributeNode(value = "customer", subgraph = "customer"),
+        subgraphs = @NamedSubgraph(name = "customer", attributeNodes = @NamedAttributeNode("billingEntity"))
+)
+@NamedEntityGraph(
+        name = "Sale.full",
+        attributeNodes = {
+                @NamedAttributeNode(value = "customer", subgraph = "customer"),
+                @NamedAttributeNode(value = "saleDetails", subgraph = "saleDetails")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "customer", attributeNodes = @NamedAttributeNode("billingEntity")),
+                @NamedSubgraph(name = "saleDetails", attributeNodes = @NamedAttributeNode("product"))
+        }
+)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@DynamicUpdate
 @Data
 public class Sale {
     @Id
@@ -15,7 +37,7 @@ public class Sale {
     @Column(name = "sale_id")
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
@@ -25,9 +47,16 @@ public class Sale {
     @Column(name = "invoice_id")
     private String invoiceId;
 
+    // Kept in step with the lines by the sale detail service, never taken from a request
     @Column(name = "total_amount", nullable = false)
-    private Double totalAmount;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Money totalAmount;
 
     @OneToMany(mappedBy = "sale", cascade = CascadeType.ALL)
     private List<SaleDetail> saleDetails;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
@@ -1,10 +1,26 @@
 package com.emreonsur.smesales.entity;
 
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "sale_details")
+@NamedEntityGraph(
+        name = "SaleDetail.saleAndProduct",
+        attributeNodes = {
+                @NamedAttributeNode(value = "sale", subgraph = "sale"),
+                @NamedAttributeNode("product")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "sale", attributeNodes = @NamedAttributeNode(value = "customer", subgraph = "customer")),
+                @NamedSubgraph(name = "customer", attributeNodes = @NamedAttributeNode("billingEntity"))
+        }
+)
+@DynamicUpdate
 @Data
 public class SaleDetail {
     @Id
@@ -12,11 +28,12 @@ public class SaleDetail {
     @Column(name = "sale_detail_id")
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sale_id", nullable = false)
+    @JsonIgnoreProperties("saleDetails")
     private Sale sale;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
@@ -24,8 +41,13 @@ public class SaleDetail {
     private Integer quantity;
 
     @Column(name = "unit_price", nullable = false)
-    private Double unitPrice;
+    private Money unitPrice;
 
     @Column(name = "total_price", nullable = false)
-    private Double totalPrice;
+    private Money totalPrice;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
\ No newline at end of file
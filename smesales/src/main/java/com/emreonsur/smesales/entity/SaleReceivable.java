@@ -0,0 +1,30 @@
+package com.emreonsur.smesales.entity;
+
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// What is still owed on one sale: its total less the payments allocated to it.
+// The row goes away with the sale; 'allocatedAmount' only changes through allocations.
+@Entity
+@Table(name = "sale_receivables")
+@Data
+public class SaleReceivable {
+    @Id
+    @Column(name = "sale_id")
+    private Integer saleId;
+
+    @Column(name = "billing_entity_id", nullable = false)
+    private Integer billingEntityId;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    @Column(name = "total_amount", nullable = false)
+    private Money totalAmount;
+
+    @Column(name = "allocated_amount", nullable = false)
+    private Money allocatedAmount;
+}
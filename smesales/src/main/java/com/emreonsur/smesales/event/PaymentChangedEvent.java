@@ -0,0 +1,20 @@
+package com.emreonsur.smesales.event;
+
+import com.emreonsur.smesales.entity.Payment;
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDateTime;
+
+// Published inside the transaction that creates, updates or deletes a payment.
+// 'before' is null on create and 'after' is null on delete. Payments written by
+// SQL carry their billing entity instead of a customer.
+public record PaymentChangedEvent(Snapshot before, Snapshot after) {
+
+    public record Snapshot(Integer paymentId, Integer customerId, LocalDateTime paymentDate, Money amount,
+                           Integer billingEntityId) {
+        public static Snapshot of(Payment payment) {
+            return new Snapshot(payment.getId(), payment.getCustomer().getId(),
+                    payment.getPaymentDate(), payment.getAmount(), null);
+        }
+    }
+}
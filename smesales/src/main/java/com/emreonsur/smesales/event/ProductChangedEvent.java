@@ -0,0 +1,17 @@
+package com.emreonsur.smesales.event;
+
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.money.Money;
+
+// Published inside the transaction that creates, updates or deletes a product.
+// 'before' is null on create and 'after' is null on delete.
+public record ProductChangedEvent(Snapshot before, Snapshot after) {
+
+    public record Snapshot(Integer productId, String formalName, String displayName, Money unitPrice,
+                           Integer stockQuantity, Boolean isActive) {
+        public static Snapshot of(Product product) {
+            return new Snapshot(product.getId(), product.getFormalName(), product.getDisplayName(),
+                    product.getUnitPrice(), product.getStockQuantity(), product.getIsActive());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.emreonsur.smesales.event;
+
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDateTime;
+
+// Published inside the transaction that creates, updates or deletes a sale.
+// 'before' is null on create and 'after' is null on delete.
+public record SaleChangedEvent(Snapshot before, Snapshot after) {
+
+    public record Snapshot(Integer saleId, Integer customerId, LocalDateTime orderDate, Money totalAmount) {
+        public static Snapshot of(Sale sale) {
+            return new Snapshot(sale.getId(), sale.getCustomer().getId(), sale.getOrderDate(), sale.getTotalAmount());
+        }
+    }
+}
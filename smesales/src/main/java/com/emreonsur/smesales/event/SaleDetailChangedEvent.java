@@ -0,0 +1,28 @@
+package com.emreonsur.smesales.event;
+
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.money.Money;
+
+import java.time.LocalDateTime;
+
+// Published inside the transaction that creates, updates or deletes a sale line,
+// including lines removed along with their sale.
+// 'before' is null on create and 'after' is null on delete.
+public record SaleDetailChangedEvent(Snapshot before, Snapshot after) {
+
+    // Carries the owning sale's customer and order date so consumers need no extra lookup
+    public record Snapshot(Integer saleDetailId,
+                           Integer saleId,
+                           Integer productId,
+                           Integer customerId,
+                           LocalDateTime orderDate,
+                           Integer quantity,
+                           Money totalPrice) {
+        public static Snapshot of(SaleDetail saleDetail, Sale sale) {
+            return new Snapshot(saleDetail.getId(), sale.getId(), saleDetail.getProduct().getId(),
+                    sale.getCustomer().getId(), sale.getOrderDate(),
+                    saleDetail.getQuantity(), saleDetail.getTotalPrice());
+        }
+    }
+}
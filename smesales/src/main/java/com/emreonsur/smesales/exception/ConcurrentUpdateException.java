@@ -0,0 +1,7 @@
+package com.emreonsur.smesales.exception;
+
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String resource, Integer id) {
+        super(resource + " with id: " + id + " was changed by another request");
+    }
+}
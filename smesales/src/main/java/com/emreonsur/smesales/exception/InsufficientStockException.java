@@ -0,0 +1,7 @@
+package com.emreonsur.smesales.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(Integer productId, Integer requested) {
+        super("Insufficient stock for product id: " + productId + " (requested: " + requested + ")");
+    }
+}
@@ -0,0 +1,83 @@
+package com.emreonsur.smesales.exception;
+
+import org.hibernate.PropertyValueException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+// The kind of constraint a write broke. MySQL reports all of them under SQL state
+// 23000, so its vendor codes are checked before the standard states.
+public enum IntegrityViolation {
+    UNIQUE(HttpStatus.CONFLICT, "A record with the same unique value already exists"),
+    NOT_NULL(HttpStatus.BAD_REQUEST, "A required value is missing"),
+    FOREIGN_KEY(HttpStatus.BAD_REQUEST, "The request refers to a record that does not exist, or to one still in use"),
+    OTHER(HttpStatus.BAD_REQUEST, "The request violates a data integrity constraint");
+
+    // Some extractors return part of the message instead of a bare name
+    private static final Pattern CONSTRAINT_NAME = Pattern.compile("[A-Za-z0-9_$.]+");
+
+    private final HttpStatus status;
+    private final String message;
+
+    IntegrityViolation(HttpStatus status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    HttpStatus status() {
+        return status;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public static IntegrityViolation of(DataIntegrityViolationException ex) {
+        if (ex instanceof DuplicateKeyException) {
+            return UNIQUE;
+        }
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+                return UNIQUE;
+            }
+            // Hibernate's own check of a non-nullable attribute, before any SQL is sent
+            if (cause instanceof PropertyValueException) {
+                return NOT_NULL;
+            }
+            if (cause instanceof SQLException sqlException) {
+                return of(sqlException);
+            }
+        }
+        return OTHER;
+    }
+
+    // Name of the violated constraint, when Hibernate could read it from the error
+    static String constraintNameOf(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && CONSTRAINT_NAME.matcher(name).matches() ? name : null;
+            }
+        }
+        return null;
+    }
+
+    private static IntegrityViolation of(SQLException ex) {
+        return switch (ex.getErrorCode()) {
+            case 1062, 1586 -> UNIQUE;
+            case 1048, 1364 -> NOT_NULL;
+            case 1216, 1217, 1451, 1452 -> FOREIGN_KEY;
+            default -> switch (String.valueOf(ex.getSQLState())) {
+                case "23505" -> UNIQUE;
+                case "23502" -> NOT_NULL;
+                case "23503", "23506" -> FOREIGN_KEY;
+                default -> OTHER;
+            };
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.emreonsur.smesales.exception;
+
+public class ResourceNotFoundException extends RuntimeException {
+    public ResourceNotFoundException(String resource, Integer id) {
+        super(resource + " not found with id: " + id);
+    }
+
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package com.emreonsur.smesales.exporter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Minimal RFC 4180 writer, the counterpart of the import CsvReader.
+//
+// Fields are written as they arrive; only values containing a delimiter,
+// quote or line break are quoted. Records end with CRLF.
+public final class CsvWriter implements Closeable, Flushable {
+    private final Writer writer;
+    private final char delimiter;
+    private boolean recordStarted;
+
+    public CsvWriter(Writer writer) {
+        this(writer, ',');
+    }
+
+    public CsvWriter(Writer writer, char delimiter) {
+        this.writer = writer;
+        this.delimiter = delimiter;
+    }
+
+    // Writes a whole record, e.g. the header row
+    public void record(String... fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        endRecord();
+    }
+
+    // Null is written as an empty field
+    public void field(Object value) throws IOException {
+        if (recordStarted) {
+            writer.write(delimiter);
+        }
+        recordStarted = true;
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (needsQuotes(text)) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    public void endRecord() throws IOException {
+        writer.write("\r\n");
+        recordStarted = false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,486 @@
+package com.emreonsur.smesales.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Cursor over the transactions of a memory-mapped bank statement, either CSV with a
+// header row or a lite MT940 (':61:' lines with '/CUST/<id>' in ':86:' information).
+public final class StatementReader implements Closeable {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_FIELDS = 64;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+
+    private final boolean mt940;
+    private byte delimiter;
+    private int dateColumn;
+    private int amountColumn;
+    private int referenceColumn;
+    private int customerColumn = -1;
+    private int columnCount;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+
+    // An MT940 ':61:' line already read while finishing the previous transaction
+    private boolean pendingStatementLine;
+
+    private long transactionLine;
+    private LocalDate date;
+    private long amountCents;
+    private String reference;
+    private Integer customerId;
+
+    private StatementReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+        if (!nextNonBlankLine()) {
+            throw new IllegalArgumentException("Statement file is empty");
+        }
+        this.mt940 = window.get(lineStart) == ':';
+        if (mt940) {
+            // The first line is read again as part of the first transaction
+            position = lineStart;
+            lineNumber--;
+        } else {
+            readHeader();
+        }
+    }
+
+    public static StatementReader open(Path path) throws IOException {
+        return new StatementReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // Moves to the next transaction; false at the end of the file.
+    // A malformed transaction throws IllegalArgumentException, and reading may continue after it.
+    public boolean next() throws IOException {
+        return mt940 ? nextMt940() : nextCsv();
+    }
+
+    // Line of the file on which the current transaction starts
+    public long line() {
+        return transactionLine;
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    // Signed: credits to the account are positive, debits negative
+    public long amountCents() {
+        return amountCents;
+    }
+
+    // Null when the transaction carries no reference
+    public String reference() {
+        return reference;
+    }
+
+    public Integer customerId() {
+        return customerId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readHeader() {
+        int semicolons = 0;
+        int commas = 0;
+        for (int i = lineStart; i < lineEnd; i++) {
+            byte b = window.get(i);
+            if (b == ';') {
+                semicolons++;
+            } else if (b == ',') {
+                commas++;
+            }
+        }
+        delimiter = semicolons > commas ? (byte) ';' : (byte) ',';
+        columnCount = split();
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            String name = text(i);
+            columns.put(name == null ? "" : name.toLowerCase(Locale.ROOT), i);
+        }
+        dateColumn = column(columns, "date");
+        amountColumn = column(columns, "amount");
+        referenceColumn = column(columns, "reference");
+        customerColumn = columns.getOrDefault("customer_id", -1);
+    }
+
+    private static int column(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Missing statement column: " + name);
+        }
+        return index;
+    }
+
+    private boolean nextCsv() throws IOException {
+        if (!nextNonBlankLine()) {
+            return false;
+        }
+        transactionLine = lineNumber;
+        int fields = split();
+        if (fields != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " fields but found " + fields);
+        }
+        date = parseDate(fieldStarts[dateColumn], fieldEnds[dateColumn]);
+        amountCents = parseAmount(fieldStarts[amountColumn], fieldEnds[amountColumn]);
+        reference = text(referenceColumn);
+        customerId = null;
+        if (customerColumn >= 0) {
+            String value = text(customerColumn);
+            if (value != null) {
+                customerId = parseCustomerId(value);
+            }
+        }
+        return true;
+    }
+
+    private boolean nextMt940() throws IOException {
+        if (!pendingStatementLine) {
+            // Skip header tags (:20:, :25:, :60F: ...) up to the first statement line
+            do {
+                if (!nextNonBlankLine()) {
+                    return false;
+                }
+            } while (!startsWith(":61:"));
+        }
+        pendingStatementLine = false;
+        transactionLine = lineNumber;
+        parseStatementLine();
+
+        // ':86:' and its continuation lines belong to this transaction; any other tag ends it
+        boolean information = false;
+        while (nextNonBlankLine()) {
+            if (startsWith(":61:")) {
+                pendingStatementLine = true;
+                break;
+            }
+            if (startsWith(":86:")) {
+                information = true;
+                lineStart += 4;
+            } else if (window.get(lineStart) == ':' || startsWith("-}") || startsWith("{")) {
+                information = false;
+                continue;
+            }
+            if (information && customerId == null) {
+                customerId = findCustomerId();
+            }
+        }
+        return true;
+    }
+
+    // :61:YYMMDD[MMDD](C|D|RC|RD)[funds code]amount,ccTTTTreference[//bank reference]
+    private void parseStatementLine() {
+        int i = lineStart + 4;
+        date = mt940Date(i);
+        i += 6;
+        if (i + 4 <= lineEnd && isDigit(window.get(i)) && isDigit(window.get(i + 3))) {
+            i += 4;
+        }
+        boolean debit;
+        if (i < lineEnd && window.get(i) == 'R') {
+            i++;
+            debit = i < lineEnd && window.get(i) == 'C';
+        } else {
+            debit = i < lineEnd && window.get(i) == 'D';
+        }
+        if (i >= lineEnd || (window.get(i) != 'C' && window.get(i) != 'D')) {
+            throw new IllegalArgumentException("Invalid debit/credit mark");
+        }
+        i++;
+        if (i < lineEnd && !isDigit(window.get(i))) {
+            i++;
+        }
+        int amountStart = i;
+        while (i < lineEnd && (isDigit(window.get(i)) || window.get(i) == ',')) {
+            i++;
+        }
+        long cents = parseAmount(amountStart, i);
+        amountCents = debit ? -cents : cents;
+
+        // Four characters of transaction type, then the reference up to '//'
+        i = Math.min(i + 4, lineEnd);
+        int referenceEnd = i;
+        while (referenceEnd < lineEnd && !(window.get(referenceEnd) == '/'
+                && referenceEnd + 1 < lineEnd && window.get(referenceEnd + 1) == '/')) {
+            referenceEnd++;
+        }
+        reference = string(i, referenceEnd);
+        if ("NONREF".equals(reference)) {
+            reference = null;
+        }
+        customerId = null;
+    }
+
+    private LocalDate mt940Date(int i) {
+        int year = 2000 + parseDigits(i, i + 2, "value date");
+        int month = parseDigits(i + 2, i + 4, "value date");
+        int day = parseDigits(i + 4, i + 6, "value date");
+        return date(year, month, day);
+    }
+
+    private Integer findCustomerId() {
+        for (int i = lineStart; i + 6 <= lineEnd; i++) {
+            if (window.get(i) == '/' && window.get(i + 1) == 'C' && window.get(i + 2) == 'U'
+                    && window.get(i + 3) == 'S' && window.get(i + 4) == 'T' && window.get(i + 5) == '/') {
+                int start = i + 6;
+                int end = start;
+                while (end < lineEnd && isDigit(window.get(end))) {
+                    end++;
+                }
+                return end > start ? parseCustomerId(string(start, end)) : null;
+            }
+        }
+        return null;
+    }
+
+    // Splits the current line into fields; quotes are stripped, doubled quotes stay until text()
+    private int split() {
+        int count = 0;
+        int i = lineStart;
+        while (true) {
+            if (count == MAX_FIELDS) {
+                throw new IllegalArgumentException("More than " + MAX_FIELDS + " fields");
+            }
+            if (i < lineEnd && window.get(i) == '"') {
+                int start = ++i;
+                while (i < lineEnd && !(window.get(i) == '"' && (i + 1 == lineEnd || window.get(i + 1) != '"'))) {
+                    i += window.get(i) == '"' ? 2 : 1;
+                }
+                fieldStarts[count] = start;
+                fieldEnds[count] = Math.min(i, lineEnd);
+                i++;
+            } else {
+                fieldStarts[count] = i;
+                while (i < lineEnd && window.get(i) != delimiter) {
+                    i++;
+                }
+                fieldEnds[count] = i;
+            }
+            count++;
+            if (i >= lineEnd) {
+                return count;
+            }
+            i++;
+        }
+    }
+
+    private String text(int field) {
+        String value = string(fieldStarts[field], fieldEnds[field]);
+        if (value == null) {
+            return null;
+        }
+        return value.indexOf('"') >= 0 ? value.replace("\"\"", "\"") : value;
+    }
+
+    // Trimmed text between two positions of the window, or null when blank
+    private String string(int start, int end) {
+        while (start < end && window.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && window.get(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // yyyy-MM-dd, or dd.MM.yyyy as most local bank exports write it
+    private LocalDate parseDate(int start, int end) {
+        while (start < end && window.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && window.get(end - 1) == ' ') {
+            end--;
+        }
+        if (end - start == 10 && window.get(start + 4) == '-' && window.get(start + 7) == '-') {
+            return date(parseDigits(start, start + 4, "date"), parseDigits(start + 5, start + 7, "date"),
+                    parseDigits(start + 8, start + 10, "date"));
+        }
+        if (end - start == 10 && window.get(start + 2) == '.' && window.get(start + 5) == '.') {
+            return date(parseDigits(start + 6, start + 10, "date"), parseDigits(start + 3, start + 5, "date"),
+                    parseDigits(start, start + 2, "date"));
+        }
+        throw new IllegalArgumentException("Invalid date: " + string(start, end));
+    }
+
+    private static LocalDate date(int year, int month, int day) {
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date: " + year + "-" + month + "-" + day);
+        }
+    }
+
+    private int parseDigits(int start, int end, String what) {
+        if (end > lineEnd) {
+            throw new IllegalArgumentException("Invalid " + what);
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = window.get(i);
+            if (!isDigit(b)) {
+                throw new IllegalArgumentException("Invalid " + what);
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    // The last '.' or ',' followed by one or two digits is the decimal separator; other separators group thousands
+    private long parseAmount(int start, int end) {
+        while (start < end && window.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && window.get(end - 1) == ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (window.get(start) == '-' || window.get(start) == '+')) {
+            negative = window.get(start) == '-';
+            start++;
+        }
+        int decimalSeparator = -1;
+        for (int i = end - 1; i >= start && i >= end - 3; i--) {
+            byte b = window.get(i);
+            if (b == '.' || b == ',') {
+                decimalSeparator = i;
+                break;
+            }
+        }
+        // MT940 always writes the comma, also for whole amounts ("120,")
+        if (decimalSeparator == -1 && end > start && window.get(end - 1) == ',') {
+            decimalSeparator = end - 1;
+        }
+
+        long units = 0;
+        int digits = 0;
+        int integerEnd = decimalSeparator == -1 ? end : decimalSeparator;
+        for (int i = start; i < integerEnd; i++) {
+            byte b = window.get(i);
+            if (isDigit(b)) {
+                units = units * 10 + (b - '0');
+                if (++digits > 15) {
+                    throw new IllegalArgumentException("Amount too large: " + string(start, end));
+                }
+            } else if (b != '.' && b != ',' && b != '\'') {
+                throw new IllegalArgumentException("Invalid amount: " + string(start, end));
+            }
+        }
+        long cents = 0;
+        if (decimalSeparator != -1) {
+            int fraction = end - decimalSeparator - 1;
+            for (int i = decimalSeparator + 1; i < end; i++) {
+                byte b = window.get(i);
+                if (!isDigit(b)) {
+                    throw new IllegalArgumentException("Invalid amount: " + string(start, end));
+                }
+                cents = cents * 10 + (b - '0');
+            }
+            if (fraction == 1) {
+                cents *= 10;
+            }
+        }
+        if (digits == 0 && decimalSeparator == -1) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+        long amount = units * 100 + cents;
+        return negative ? -amount : amount;
+    }
+
+    private static Integer parseCustomerId(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid customer ID: " + value);
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private boolean startsWith(String tag) {
+        if (lineEnd - lineStart < tag.length()) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (window.get(lineStart + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nextNonBlankLine() throws IOException {
+        while (nextLine()) {
+            if (lineEnd > lineStart) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Finds the next line in the window, moving the window forward when a line runs past its end
+    private boolean nextLine() throws IOException {
+        while (true) {
+            int limit = window.limit();
+            if (position >= limit && windowStart + limit >= size) {
+                return false;
+            }
+            int i = position;
+            while (i < limit && window.get(i) != '\n') {
+                i++;
+            }
+            if (i == limit && windowStart + limit < size) {
+                if (position == 0) {
+                    throw new IllegalArgumentException("Line " + (lineNumber + 1) + " is too long");
+                }
+                map(windowStart + position);
+                continue;
+            }
+            lineNumber++;
+            lineStart = position;
+            lineEnd = i > position && window.get(i - 1) == '\r' ? i - 1 : i;
+            // Skip a UTF-8 byte order mark left by spreadsheet exports
+            if (windowStart == 0 && lineStart == 0 && lineEnd >= 3 && window.get(0) == (byte) 0xEF
+                    && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                lineStart = 3;
+            }
+            position = i + 1;
+            return true;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        position = 0;
+    }
+}
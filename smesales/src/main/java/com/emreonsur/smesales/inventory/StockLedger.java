@@ -0,0 +1,248 @@
+package com.emreonsur.smesales.inventory;
+
+import com.emreonsur.smesales.cache.ProductCatalogCache;
+import com.emreonsur.smesales.exception.InsufficientStockException;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Available stock per product as atomic counters in front of products.stock_quantity;
+// confirmed quantities are written back in batches by flush().
+// Counter changes hold the read side of the product's lock and resync() the write side.
+@Component
+public class StockLedger {
+    private static final String LOAD_STOCK_SQL = "SELECT stock_quantity FROM products WHERE product_id = ?";
+    private static final String WRITE_BACK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCatalogCache productCatalogCache;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // Held while deltas are in flight, so a resync never reads a stock level missing one
+    private final ReentrantLock writeBackLock = new ReentrantLock();
+
+    @Autowired
+    public StockLedger(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ProductCatalogCache productCatalogCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productCatalogCache = productCatalogCache;
+    }
+
+    // Takes stock for the current transaction: confirmed on commit, released on rollback
+    public void reserveForTransaction(Integer productId, int quantity) {
+        Reservation reservation = reserve(productId, quantity);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirm(reservation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    confirm(reservation);
+                } else {
+                    release(reservation);
+                }
+            }
+        });
+    }
+
+    // Returns stock for the current transaction, e.g. when a sale line is reduced or deleted
+    public void restockForTransaction(Integer productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            restock(productId, quantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                restock(productId, quantity);
+            }
+        });
+    }
+
+    public Reservation reserve(Integer productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Entry entry = entry(productId);
+        entry.lock.readLock().lock();
+        try {
+            while (true) {
+                int available = entry.available.get();
+                if (available < quantity) {
+                    throw new InsufficientStockException(productId, quantity);
+                }
+                if (entry.available.compareAndSet(available, available - quantity)) {
+                    entry.reserved.addAndGet(quantity);
+                    return new Reservation(productId, quantity);
+                }
+            }
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    public void confirm(Reservation reservation) {
+        Entry entry = entry(reservation.productId());
+        entry.lock.readLock().lock();
+        try {
+            entry.reserved.addAndGet(-reservation.quantity());
+            entry.pendingDecrement.addAndGet(reservation.quantity());
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    public void release(Reservation reservation) {
+        Entry entry = entry(reservation.productId());
+        entry.lock.readLock().lock();
+        try {
+            entry.reserved.addAndGet(-reservation.quantity());
+            entry.available.addAndGet(reservation.quantity());
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    public void restock(Integer productId, int quantity) {
+        Entry entry = entry(productId);
+        entry.lock.readLock().lock();
+        try {
+            entry.pendingDecrement.addAndGet(-quantity);
+            entry.available.addAndGet(quantity);
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    public int available(Integer productId) {
+        return entry(productId).available.get();
+    }
+
+    // Re-reads a product's stock once the current transaction has set it directly
+    public void resyncAfterCommit(Integer productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            resync(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                resync(productId);
+            }
+        });
+    }
+
+    public void resync(Integer productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return;
+        }
+        writeBackLock.lock();
+        entry.lock.writeLock().lock();
+        try {
+            Integer stock = loadStock(productId);
+            if (stock == null) {
+                entries.remove(productId);
+                return;
+            }
+            // Sales confirmed but not yet written back are still owed by the new stock level
+            entry.available.set(stock - entry.reserved.get() - entry.pendingDecrement.get());
+        } finally {
+            entry.lock.writeLock().unlock();
+            writeBackLock.unlock();
+        }
+    }
+
+    public void forget(Integer productId) {
+        entries.remove(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${smesales.stock-ledger.flush-interval:1s}")
+    public void flush() {
+        writeBackLock.lock();
+        try {
+            List<Object[]> deltas = new ArrayList<>();
+            List<Integer> productIds = new ArrayList<>();
+            for (Map.Entry<Integer, Entry> mapEntry : entries.entrySet()) {
+                int delta = mapEntry.getValue().pendingDecrement.getAndSet(0);
+                if (delta != 0) {
+                    deltas.add(new Object[]{delta, mapEntry.getKey()});
+                    productIds.add(mapEntry.getKey());
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(WRITE_BACK_SQL, deltas));
+            } catch (RuntimeException e) {
+                // Put the deltas back so the next flush retries them
+                for (Object[] delta : deltas) {
+                    Entry entry = entries.get((Integer) delta[1]);
+                    if (entry != null) {
+                        entry.pendingDecrement.addAndGet((Integer) delta[0]);
+                    }
+                }
+                throw e;
+            }
+            productCatalogCache.evictAll(productIds);
+        } finally {
+            writeBackLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Entry entry(Integer productId) {
+        return entries.computeIfAbsent(productId, id -> {
+            Integer stock = loadStock(id);
+            if (stock == null) {
+                throw new ResourceNotFoundException("Product", id);
+            }
+            return new Entry(stock);
+        });
+    }
+
+    private Integer loadStock(Integer productId) {
+        List<Integer> stock = jdbcTemplate.queryForList(LOAD_STOCK_SQL, Integer.class, productId);
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+
+    public record Reservation(Integer productId, int quantity) {
+    }
+
+    private static final class Entry {
+        private final AtomicInteger available;
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final AtomicInteger pendingDecrement = new AtomicInteger();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Entry(int stock) {
+            this.available = new AtomicInteger(stock);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.emreonsur.smesales.metrics;
+
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Counters of business operations, counted only once their transaction has committed
+@Component
+public class BusinessMetrics {
+    private final Counter salesInserted;
+    private final Counter saleLinesInserted;
+    private final Counter paymentsPosted;
+    private final Counter paymentAmount;
+
+    @Autowired
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.salesInserted = Counter.builder("smesales.sales.inserted")
+                .description("Sales inserted, including placed orders")
+                .register(meterRegistry);
+        this.saleLinesInserted = Counter.builder("smesales.sale.lines.inserted")
+                .description("Sale lines inserted")
+                .register(meterRegistry);
+        this.paymentsPosted = Counter.builder("smesales.payments.posted")
+                .description("Payments posted")
+                .register(meterRegistry);
+        this.paymentAmount = Counter.builder("smesales.payments.amount")
+                .description("Total amount of posted payments")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaleChanged(SaleChangedEvent event) {
+        if (event.before() == null) {
+            salesInserted.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaleDetailChanged(SaleDetailChangedEvent event) {
+        if (event.before() == null) {
+            saleLinesInserted.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        if (event.before() == null) {
+            paymentsPosted.increment();
+            paymentAmount.increment(event.after().amount().doubleValue());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.emreonsur.smesales.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Logs a random share ('sample-rate') of the SQL Hibernate prepares, in place of show-sql.
+// Slow statements are logged separately under org.hibernate.SQL_SLOW.
+@Component
+public class SampledStatementLog implements StatementInspector, HibernatePropertiesCustomizer {
+    private static final Logger log = LoggerFactory.getLogger(SampledStatementLog.class);
+
+    private final double sampleRate;
+
+    public SampledStatementLog(@Value("${smesales.sql-log.sample-rate:0.01}") double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("smesales.sql-log.sample-rate must be between 0 and 1, got: "
+                    + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled SQL: {}", sql);
+        }
+        return sql;
+    }
+}
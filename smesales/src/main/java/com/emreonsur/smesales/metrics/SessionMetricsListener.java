@@ -0,0 +1,63 @@
+package com.emreonsur.smesales.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-session Hibernate work, recorded when the session closes. Created by Hibernate
+// for every session, so its meters go to the global registry.
+public class SessionMetricsListener implements SessionEventListener {
+    private static final DistributionSummary STATEMENTS = DistributionSummary.builder("hibernate.session.statements")
+            .description("JDBC statements and batches executed per Hibernate session")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(Metrics.globalRegistry);
+    private static final DistributionSummary FLUSHES = DistributionSummary.builder("hibernate.session.flushes")
+            .description("Flushes per Hibernate session")
+            .register(Metrics.globalRegistry);
+    private static final Timer JDBC_TIME = Timer.builder("hibernate.session.jdbc.time")
+            .description("Time spent executing JDBC statements per Hibernate session")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(Metrics.globalRegistry);
+
+    private int statements;
+    private int flushes;
+    private long jdbcStart;
+    private long jdbcNanos;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statements++;
+        jdbcStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        jdbcNanos += System.nanoTime() - jdbcStart;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statements++;
+        jdbcStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcNanos += System.nanoTime() - jdbcStart;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        flushes++;
+    }
+
+    @Override
+    public void end() {
+        STATEMENTS.record(statements);
+        FLUSHES.record(flushes);
+        JDBC_TIME.record(jdbcNanos, TimeUnit.NANOSECONDS);
+    }
+}
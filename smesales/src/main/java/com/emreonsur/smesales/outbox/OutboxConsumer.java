@@ -0,0 +1,14 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.entity.OutboxEvent;
+
+import java.util.List;
+
+// Receives outbox events in ID order, inside the transaction that moves its checkpoint past them
+public interface OutboxConsumer {
+
+    // Key of the consumer's checkpoint; renaming it makes the consumer start over
+    String name();
+
+    void accept(List<OutboxEvent> events);
+}
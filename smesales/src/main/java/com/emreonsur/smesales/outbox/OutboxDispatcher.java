@@ -0,0 +1,148 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.entity.OutboxEvent;
+import com.emreonsur.smesales.entity.ProcessingCheckpoint;
+import com.emreonsur.smesales.repository.OutboxEventRepository;
+import com.emreonsur.smesales.repository.ProcessingCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Delivers outbox events to every OutboxConsumer in ID order, keeping each consumer's
+// position in processing_checkpoints. IDs become visible at commit, so delivery waits
+// in front of a missing ID for the gap timeout before skipping it.
+@Component
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProcessingCheckpointRepository processingCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxConsumer> consumers;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    // The gap each consumer is waiting on, with when it was first found
+    private final Map<String, Gap> gaps = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ProcessingCheckpointRepository processingCheckpointRepository,
+                            TransactionTemplate transactionTemplate,
+                            List<OutboxConsumer> consumers,
+                            @Value("${smesales.outbox.batch-size:500}") int batchSize,
+                            @Value("${smesales.outbox.gap-timeout:10s}") Duration gapTimeout,
+                            @Value("${smesales.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.processingCheckpointRepository = processingCheckpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+    }
+
+    // A consumer that fails keeps its checkpoint and gets the batch again on the next poll
+    @Scheduled(fixedDelayString = "${smesales.outbox.poll-interval:500ms}")
+    public void dispatch() {
+        for (OutboxConsumer consumer : consumers) {
+            try {
+                drain(consumer);
+            } catch (RuntimeException e) {
+                log.error("Outbox consumer {} failed; its batch is retried on the next poll", consumer.name(), e);
+            }
+        }
+    }
+
+    private void drain(OutboxConsumer consumer) {
+        Integer delivered;
+        do {
+            delivered = transactionTemplate.execute(status -> deliverBatch(consumer));
+        } while (delivered != null && delivered == batchSize);
+    }
+
+    // Deletes events every consumer has received once they are older than the retention period
+    @Scheduled(fixedDelayString = "${smesales.outbox.purge-interval:1h}")
+    public void purge() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long upToId = Long.MAX_VALUE;
+            for (OutboxConsumer consumer : consumers) {
+                upToId = Math.min(upToId, processingCheckpointRepository.findById(consumer.name())
+                        .map(ProcessingCheckpoint::getLastEventId)
+                        .orElse(0L));
+            }
+            if (upToId > 0) {
+                outboxEventRepository.deleteDelivered(upToId, LocalDateTime.now().minus(retention));
+            }
+        });
+    }
+
+    private int deliverBatch(OutboxConsumer consumer) {
+        ProcessingCheckpoint checkpoint = processingCheckpointRepository.findForUpdate(consumer.name())
+                .orElseGet(() -> startCheckpoint(consumer.name()));
+
+        List<OutboxEvent> events = deliverable(consumer.name(), checkpoint.getLastEventId(),
+                outboxEventRepository.findByIdGreaterThanOrderByIdAsc(checkpoint.getLastEventId(),
+                        PageRequest.ofSize(batchSize)));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        consumer.accept(events);
+
+        checkpoint.setLastEventId(events.get(events.size() - 1).getId());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        processingCheckpointRepository.save(checkpoint);
+        return events.size();
+    }
+
+    // The events up to the first gap that may still be filled by a transaction in progress
+    private List<OutboxEvent> deliverable(String consumer, long lastEventId, List<OutboxEvent> events) {
+        long expectedId = lastEventId + 1;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            if (event.getId() != expectedId) {
+                if (!gapTimedOut(consumer, expectedId)) {
+                    return events.subList(0, i);
+                }
+                for (long id = expectedId; id < event.getId(); id++) {
+                    log.warn("Outbox event {} did not appear within {}; consumer {} skips it", id, gapTimeout, consumer);
+                }
+            }
+            expectedId = event.getId() + 1;
+        }
+        return events;
+    }
+
+    // Timed from the poll that first found the gap
+    private boolean gapTimedOut(String consumer, long firstMissingId) {
+        Gap gap = gaps.compute(consumer, (name, seen) -> seen != null && seen.firstMissingId() == firstMissingId
+                ? seen : new Gap(firstMissingId, System.nanoTime()));
+        if (System.nanoTime() - gap.seenAtNanos() < gapTimeout.toNanos()) {
+            return false;
+        }
+        gaps.remove(consumer);
+        return true;
+    }
+
+    private ProcessingCheckpoint startCheckpoint(String consumer) {
+        ProcessingCheckpoint checkpoint = new ProcessingCheckpoint();
+        checkpoint.setConsumer(consumer);
+        checkpoint.setLastEventId(0L);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return processingCheckpointRepository.saveAndFlush(checkpoint);
+    }
+
+    private record Gap(long firstMissingId, long seenAtNanos) {
+    }
+}
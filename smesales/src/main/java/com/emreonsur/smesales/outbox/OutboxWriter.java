@@ -0,0 +1,89 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.entity.OutboxEvent;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.ProductChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Records every application change event in the outbox, as JSON, in the transaction that made it
+@Component
+public class OutboxWriter {
+    public static final String SALE = "SALE";
+    public static final String SALE_DETAIL = "SALE_DETAIL";
+    public static final String PAYMENT = "PAYMENT";
+    public static final String PRODUCT = "PRODUCT";
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    // Set while already-recorded events are replayed to the in-process listeners
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    public void onSaleChanged(SaleChangedEvent event) {
+        SaleChangedEvent.Snapshot snapshot = event.after() != null ? event.after() : event.before();
+        write(SALE, snapshot.saleId(), event.before(), event.after(), event);
+    }
+
+    @EventListener
+    public void onSaleDetailChanged(SaleDetailChangedEvent event) {
+        SaleDetailChangedEvent.Snapshot snapshot = event.after() != null ? event.after() : event.before();
+        write(SALE_DETAIL, snapshot.saleDetailId(), event.before(), event.after(), event);
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        PaymentChangedEvent.Snapshot snapshot = event.after() != null ? event.after() : event.before();
+        write(PAYMENT, snapshot.paymentId(), event.before(), event.after(), event);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductChangedEvent.Snapshot snapshot = event.after() != null ? event.after() : event.before();
+        write(PRODUCT, snapshot.productId(), event.before(), event.after(), event);
+    }
+
+    // Publishes events that are already in the outbox without recording them a second time
+    public void replay(Runnable publish) {
+        REPLAYING.set(true);
+        try {
+            publish.run();
+        } finally {
+            REPLAYING.remove();
+        }
+    }
+
+    private void write(String aggregateType, Integer aggregateId, Object before, Object after, Object event) {
+        if (REPLAYING.get()) {
+            return;
+        }
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(aggregateType);
+        outboxEvent.setAggregateId(aggregateId);
+        outboxEvent.setEventType(before == null ? CREATED : after == null ? DELETED : UPDATED);
+        outboxEvent.setOrigin(OutboxEvent.ORIGIN_APP);
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event, e);
+        }
+        outboxEventRepository.save(outboxEvent);
+    }
+}
@@ -0,0 +1,97 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.cache.ProductCatalogCache;
+import com.emreonsur.smesales.entity.OutboxEvent;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.inventory.StockLedger;
+import com.emreonsur.smesales.repository.ProductRepository;
+import com.emreonsur.smesales.search.SearchIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Publishes the changes recorded by the triggers again as application change events
+@Component
+public class SqlChangeReplayer implements OutboxConsumer {
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxWriter outboxWriter;
+    private final ObjectMapper objectMapper;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final StockLedger stockLedger;
+    private final SearchIndex searchIndex;
+
+    @Autowired
+    public SqlChangeReplayer(ApplicationEventPublisher eventPublisher,
+                             OutboxWriter outboxWriter,
+                             ObjectMapper objectMapper,
+                             ProductRepository productRepository,
+                             ProductCatalogCache productCatalogCache,
+                             StockLedger stockLedger,
+                             SearchIndex searchIndex) {
+        this.eventPublisher = eventPublisher;
+        this.outboxWriter = outboxWriter;
+        this.objectMapper = objectMapper;
+        this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.stockLedger = stockLedger;
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public String name() {
+        return "sql-change-replayer";
+    }
+
+    @Override
+    public void accept(List<OutboxEvent> events) {
+        boolean productsChanged = false;
+        for (OutboxEvent event : events) {
+            if (!OutboxEvent.ORIGIN_SQL.equals(event.getOrigin())) {
+                continue;
+            }
+            switch (event.getAggregateType()) {
+                case OutboxWriter.SALE -> publish(read(event, SaleChangedEvent.class));
+                case OutboxWriter.SALE_DETAIL -> publish(read(event, SaleDetailChangedEvent.class));
+                case OutboxWriter.PAYMENT -> publish(read(event, PaymentChangedEvent.class));
+                case OutboxWriter.PRODUCT -> {
+                    refreshProduct(event.getAggregateId());
+                    productsChanged = true;
+                }
+                default -> {
+                }
+            }
+        }
+        if (productsChanged) {
+            productCatalogCache.invalidateAll();
+        }
+    }
+
+    private void refreshProduct(Integer productId) {
+        productRepository.findById(productId).ifPresentOrElse(product -> {
+            searchIndex.index(product);
+            stockLedger.resyncAfterCommit(productId);
+        }, () -> {
+            searchIndex.remove(SearchIndex.Type.PRODUCT, productId);
+            stockLedger.forget(productId);
+        });
+    }
+
+    private void publish(Object event) {
+        outboxWriter.replay(() -> eventPublisher.publishEvent(event));
+    }
+
+    private <T> T read(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.emreonsur.smesales.report;
+
+import java.util.Arrays;
+
+// Cube cells keyed by (day, customer, product) in parallel primitive arrays.
+// Cells are never removed. Not thread-safe; SalesCube guards it.
+final class CellTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] customers = new int[INITIAL_CAPACITY];
+    private int[] products = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+
+    // Slot + 1 of the cell for each hash position, 0 when free; kept at most half full
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+
+    @FunctionalInterface
+    interface CellConsumer {
+        void accept(int day, int customerId, int productId, long amount, long count);
+    }
+
+    void add(int day, int customerId, int productId, long amount, long count) {
+        int mask = index.length - 1;
+        int position = hash(day, customerId, productId) & mask;
+        while (index[position] != 0) {
+            int slot = index[position] - 1;
+            if (days[slot] == day && customers[slot] == customerId && products[slot] == productId) {
+                amounts[slot] += amount;
+                counts[slot] += count;
+                return;
+            }
+            position = (position + 1) & mask;
+        }
+
+        if (size == days.length) {
+            grow();
+            add(day, customerId, productId, amount, count);
+            return;
+        }
+        int slot = size++;
+        days[slot] = day;
+        customers[slot] = customerId;
+        products[slot] = productId;
+        amounts[slot] = amount;
+        counts[slot] = count;
+        index[position] = slot + 1;
+    }
+
+    // Visits every cell whose day lies in [fromDay, toDay]
+    void forEach(int fromDay, int toDay, CellConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            int day = days[slot];
+            if (day >= fromDay && day <= toDay) {
+                consumer.accept(day, customers[slot], products[slot], amounts[slot], counts[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = days.length * 2;
+        days = Arrays.copyOf(days, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+        products = Arrays.copyOf(products, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+
+        index = new int[capacity * 2];
+        int mask = index.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int position = hash(days[slot], customers[slot], products[slot]) & mask;
+            while (index[position] != 0) {
+                position = (position + 1) & mask;
+            }
+            index[position] = slot + 1;
+        }
+    }
+
+    private static int hash(int day, int customerId, int productId) {
+        int h = day * 0x9E3779B1;
+        h = (h ^ customerId) * 0x85EBCA6B;
+        h = (h ^ productId) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,184 @@
+package com.emreonsur.smesales.report;
+
+import com.emreonsur.smesales.dto.SalesReport;
+import com.emreonsur.smesales.money.Money;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+// In-memory sales cube at day grain: sales per (day, customer) and lines per
+// (day, customer, product). Reports not sliced by product take revenue from the sales.
+@Component
+public class SalesCube {
+
+    public enum Bucket {
+        DAY, WEEK, MONTH
+    }
+
+    public enum GroupBy {
+        CUSTOMER, BILLING_ENTITY, PRODUCT
+    }
+
+    // One delta to a sale cell (productId null) or a sale line cell; 'amount' is in minor units
+    public record Change(LocalDateTime orderDate, int customerId, Integer productId, long amount, long count) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CellTable sales = new CellTable();
+    private CellTable lines = new CellTable();
+
+    // Changes of one transaction are applied together, so no report sees half of them
+    public void apply(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            for (Change change : changes) {
+                int day = (int) change.orderDate().toLocalDate().toEpochDay();
+                if (change.productId() == null) {
+                    sales.add(day, change.customerId(), 0, change.amount(), change.count());
+                } else {
+                    lines.add(day, change.customerId(), change.productId(), change.amount(), change.count());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Swaps in a fully loaded cube
+    public void replace(Builder builder) {
+        lock.writeLock().lock();
+        try {
+            sales = builder.sales;
+            lines = builder.lines;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // customerFilter and productId narrow the cells (null for all); billingEntityOf maps
+    // a customer to its billing entity and is only used when grouping by billing entity
+    public List<SalesReport.Row> query(Bucket bucket, LocalDate from, LocalDate to,
+                                       IntPredicate customerFilter, Integer productId,
+                                       GroupBy groupBy, IntUnaryOperator billingEntityOf) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int[] bucketStarts = bucketStarts(bucket, fromDay, toDay);
+        boolean byProduct = productId != null || groupBy == GroupBy.PRODUCT;
+
+        Map<Long, Totals> totals = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            lines.forEach(fromDay, toDay, (day, customerId, lineProductId, amount, count) -> {
+                if ((customerFilter != null && !customerFilter.test(customerId))
+                        || (productId != null && productId != lineProductId)) {
+                    return;
+                }
+                Totals cell = totals.computeIfAbsent(
+                        key(bucketStarts[day - fromDay], groupKey(groupBy, customerId, lineProductId, billingEntityOf)),
+                        k -> new Totals());
+                cell.units += count;
+                if (byProduct) {
+                    cell.revenue += amount;
+                }
+            });
+            if (!byProduct) {
+                sales.forEach(fromDay, toDay, (day, customerId, ignored, amount, count) -> {
+                    if (customerFilter != null && !customerFilter.test(customerId)) {
+                        return;
+                    }
+                    Totals cell = totals.computeIfAbsent(
+                            key(bucketStarts[day - fromDay], groupKey(groupBy, customerId, 0, billingEntityOf)),
+                            k -> new Totals());
+                    cell.revenue += amount;
+                    cell.orders += count;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SalesReport.Row> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, cell) -> {
+            if (cell.units == 0 && cell.orders == 0 && cell.revenue == 0) {
+                return;
+            }
+            rows.add(new SalesReport.Row(
+                    LocalDate.ofEpochDay((int) (key >> 32)),
+                    groupBy != null ? (int) (long) key : null,
+                    Money.ofMinor(cell.revenue),
+                    cell.units,
+                    byProduct ? null : cell.orders));
+        });
+        rows.sort(Comparator.comparing(SalesReport.Row::period)
+                .thenComparing(SalesReport.Row::key, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    public int cellCount() {
+        lock.readLock().lock();
+        try {
+            return sales.size() + lines.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int groupKey(GroupBy groupBy, int customerId, int productId, IntUnaryOperator billingEntityOf) {
+        if (groupBy == null) {
+            return 0;
+        }
+        return switch (groupBy) {
+            case CUSTOMER -> customerId;
+            case BILLING_ENTITY -> billingEntityOf.applyAsInt(customerId);
+            case PRODUCT -> productId;
+        };
+    }
+
+    private static long key(int bucketStart, int groupKey) {
+        return ((long) bucketStart << 32) | (groupKey & 0xFFFFFFFFL);
+    }
+
+    // Start day of the bucket for every day in the range
+    private static int[] bucketStarts(Bucket bucket, int fromDay, int toDay) {
+        int[] starts = new int[toDay - fromDay + 1];
+        for (int day = fromDay; day <= toDay; day++) {
+            starts[day - fromDay] = switch (bucket) {
+                case DAY -> day;
+                // Day 0 (1970-01-01) was a Thursday
+                case WEEK -> day - Math.floorMod(day + 3, 7);
+                case MONTH -> (int) LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay();
+            };
+        }
+        return starts;
+    }
+
+    // Collects cells off to the side while the cube keeps serving reports
+    public static final class Builder {
+        private final CellTable sales = new CellTable();
+        private final CellTable lines = new CellTable();
+
+        public void addSales(LocalDate day, int customerId, Money amount, long orders) {
+            sales.add((int) day.toEpochDay(), customerId, 0, amount.minorUnits(), orders);
+        }
+
+        public void addLines(LocalDate day, int customerId, int productId, Money amount, long units) {
+            lines.add((int) day.toEpochDay(), customerId, productId, amount.minorUnits(), units);
+        }
+    }
+
+    private static final class Totals {
+        private long revenue;
+        private long units;
+        private long orders;
+    }
+}
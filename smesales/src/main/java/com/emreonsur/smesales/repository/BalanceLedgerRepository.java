@@ -0,0 +1,45 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.dto.BalanceDelta;
+import com.emreonsur.smesales.entity.BalanceLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedgerEntry, Long> {
+
+    // Sum of the entries of one billing entity not yet compacted
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM BalanceLedgerEntry e " +
+            "WHERE e.billingEntityId = :billingEntityId AND e.compactionId IS NULL")
+    BigDecimal sumPendingByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Sums of all entries not yet compacted, per billing entity
+    @Query("SELECT new com.emreonsur.smesales.dto.BalanceDelta(e.billingEntityId, SUM(e.amount)) " +
+            "FROM BalanceLedgerEntry e WHERE e.compactionId IS NULL GROUP BY e.billingEntityId")
+    List<BalanceDelta> sumPendingPerBillingEntity();
+
+    // Highest entry ID; it changes with every entry written
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM BalanceLedgerEntry e")
+    Long findMaxId();
+
+    // Lowest entry ID not yet compacted, or null when all are
+    @Query("SELECT MIN(e.id) FROM BalanceLedgerEntry e WHERE e.compactionId IS NULL")
+    Long findMinPendingId();
+
+    // Claim the uncompacted entries of one primary key range for one compaction run
+    @Modifying
+    @Query("UPDATE BalanceLedgerEntry e SET e.compactionId = :compactionId " +
+            "WHERE e.id BETWEEN :fromId AND :toId AND e.compactionId IS NULL")
+    int claimForCompaction(@Param("compactionId") Long compactionId,
+                           @Param("fromId") Long fromId,
+                           @Param("toId") Long toId);
+
+    // Sums of the entries claimed by one compaction run, per billing entity
+    @Query("SELECT new com.emreonsur.smesales.dto.BalanceDelta(e.billingEntityId, SUM(e.amount)) " +
+            "FROM BalanceLedgerEntry e WHERE e.compactionId = :compactionId GROUP BY e.billingEntityId")
+    List<BalanceDelta> sumByCompactionId(@Param("compactionId") Long compactionId);
+}
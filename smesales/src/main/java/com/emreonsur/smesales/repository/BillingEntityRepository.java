@@ -1,7 +1,14 @@
 package com.emreonsur.smesales.repository;
 
+import com.emreonsur.smesales.dto.CollectionVersion;
 import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.money.Money;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.List;
@@ -16,6 +23,27 @@ public interface BillingEntityRepository extends JpaRepository<BillingEntity, In
     // List by entity type
     List<BillingEntity> findByEntityType(String entityType);
 
+    // Version fingerprint of all billing entities
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(b), MAX(b.id), SUM(b.id), SUM(b.version)) " +
+            "FROM BillingEntity b")
+    CollectionVersion findCollectionVersion();
+
+    // Version fingerprint of the active billing entities
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(b), MAX(b.id), SUM(b.id), SUM(b.version)) " +
+            "FROM BillingEntity b WHERE b.isActive = true")
+    CollectionVersion findActiveCollectionVersion();
+
+    // Fold compacted ledger entries into the stored balance
+    @Modifying
+    @Query("UPDATE BillingEntity b SET b.currentBalance = b.currentBalance + :amount, " +
+            "b.version = b.version + 1 WHERE b.id = :id")
+    int addToCurrentBalance(@Param("id") Integer id, @Param("amount") Money amount);
+
+    // Lock a billing entity's row until the end of the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM BillingEntity b WHERE b.id = :id")
+    Optional<Integer> lockById(@Param("id") Integer id);
+
     // Check if billing entity exists, by trade_number_or_citizen_id
     default boolean existsByTradeNumberOrCitizenId(String tradeNumberOrCitizenId) {
         return false;
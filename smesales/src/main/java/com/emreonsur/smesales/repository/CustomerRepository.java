@@ -1,22 +1,61 @@
 package com.emreonsur.smesales.repository;
 
+import com.emreonsur.smesales.dto.CollectionVersion;
 import com.emreonsur.smesales.entity.Customer;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
 
+    // Find a customer with its billing entity
+    @Override
+    @EntityGraph("Customer.billingEntity")
+    Optional<Customer> findById(Integer id);
+
+    // List all customers with their billing entities
+    @Override
+    @EntityGraph("Customer.billingEntity")
+    List<Customer> findAll();
+
     // Find by display name
+    @EntityGraph("Customer.billingEntity")
     Optional<Customer> findByDisplayName(String displayName);
 
     // List all active customers
+    @EntityGraph("Customer.billingEntity")
     List<Customer> findByIsActiveTrue();
 
     // List customers by billing entity ID
+    @EntityGraph("Customer.billingEntity")
     List<Customer> findByBillingEntity_Id(Integer billingEntityId);
 
+    // Billing entity ID of a customer, without loading either entity
+    @Query("SELECT c.billingEntity.id FROM Customer c WHERE c.id = :customerId")
+    Optional<Integer> findBillingEntityIdById(@Param("customerId") Integer customerId);
+
+    // IDs of the customers of a billing entity
+    @Query("SELECT c.id FROM Customer c WHERE c.billingEntity.id = :billingEntityId")
+    List<Integer> findIdsByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Customer ID and billing entity ID of every customer
+    @Query("SELECT c.id, c.billingEntity.id FROM Customer c")
+    List<Object[]> findAllBillingEntityIds();
+
+    // Version fingerprint of all customers, including the billing entities embedded in them
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(c), MAX(c.id), SUM(c.id), " +
+            "SUM(c.version + b.version)) FROM Customer c JOIN c.billingEntity b")
+    CollectionVersion findCollectionVersion();
+
+    // Version fingerprint of the active customers, including the billing entities embedded in them
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(c), MAX(c.id), SUM(c.id), " +
+            "SUM(c.version + b.version)) FROM Customer c JOIN c.billingEntity b WHERE c.isActive = true")
+    CollectionVersion findActiveCollectionVersion();
+
     // Check if customer exists, by display name
     boolean existsByDisplayName(String displayName);
 }
\ No newline at end of file
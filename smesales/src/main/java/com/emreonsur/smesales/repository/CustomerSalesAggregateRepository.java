@@ -0,0 +1,38 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.CustomerSalesAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface CustomerSalesAggregateRepository extends JpaRepository<CustomerSalesAggregate, Integer> {
+
+    // Add deltas to a customer's totals, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO customer_sales_aggregates " +
+            "(customer_id, revenue, units_sold, order_count, last_order_date) " +
+            "VALUES (:customerId, :revenue, :units, :orders, :orderDate) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "revenue = revenue + :revenue, " +
+            "units_sold = units_sold + :units, " +
+            "order_count = order_count + :orders, " +
+            "last_order_date = GREATEST(COALESCE(last_order_date, :orderDate), COALESCE(:orderDate, last_order_date))",
+            nativeQuery = true)
+    void add(@Param("customerId") Integer customerId,
+             @Param("revenue") BigDecimal revenue,
+             @Param("units") long units,
+             @Param("orders") long orders,
+             @Param("orderDate") LocalDateTime orderDate);
+
+    // Recompute the last order date after a sale was removed or moved back in time
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE customer_sales_aggregates SET last_order_date = " +
+            "(SELECT MAX(s.order_date) FROM sales s WHERE s.customer_id = :customerId) " +
+            "WHERE customer_id = :customerId",
+            nativeQuery = true)
+    void refreshLastOrderDate(@Param("customerId") Integer customerId);
+}
@@ -0,0 +1,198 @@
+package com.emreonsur.smesales.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Sparse fieldsets: reads only the requested attributes of an entity with a
+// tuple query, so other columns and associations are neither loaded nor
+// serialized.
+//
+// 'fields' is a comma-separated list of attribute names as they appear in
+// the JSON, e.g. "id,displayName,billingEntity.tradeName". A dotted name
+// reads through a many-to-one association with a join; the association's
+// name alone gives just its ID, read from the foreign key without a join.
+// Collections such as Sale.saleDetails cannot be selected. The entity's ID
+// is always included, and rows come back in ID order as nested maps. Bad
+// field names are rejected with an IllegalArgumentException (400).
+@Component
+public class FieldProjections {
+    private final EntityManager entityManager;
+
+    @Autowired
+    public FieldProjections(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // The requested fields of every row matching the filter; a null filter matches all rows
+    public <T> List<Map<String, Object>> findAll(Class<T> type, String fields, Specification<T> filter) {
+        return query(type, fields, filter, null);
+    }
+
+    // The requested fields of the one row matching the filter
+    public <T> Optional<Map<String, Object>> findOne(Class<T> type, String fields, Specification<T> filter) {
+        return query(type, fields, filter, 1).stream().findFirst();
+    }
+
+    // Matches rows whose attribute, or dotted path such as "customer.id", equals the value
+    public static <T> Specification<T> where(String path, Object value) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(path(root, path.split("\\.")), value);
+    }
+
+    private <T> List<Map<String, Object>> query(Class<T> type, String fields, Specification<T> filter, Integer maxResults) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(type);
+        String idName = idName(entityType);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(type);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Field field : parse(entityType, idName, fields)) {
+            selections.add(field.select(root, joins).alias(field.name()));
+        }
+        query.multiselect(selections);
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(criteriaBuilder.asc(root.get(idName)));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (maxResults != null) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(toMap(tuple));
+        }
+        return rows;
+    }
+
+    // Validates the field names against the entity model; an association on its own becomes its ID
+    private static Collection<Field> parse(EntityType<?> entityType, String idName, String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(idName);
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+
+        Map<String, Field> parsed = new LinkedHashMap<>();
+        for (String name : names) {
+            List<String> segments = new ArrayList<>(List.of(name.split("\\.")));
+            ManagedType<?> managedType = entityType;
+            boolean foreignKey = false;
+            for (int i = 0; i < segments.size(); i++) {
+                Attribute<?, ?> attribute = attribute(managedType, segments.get(i), name);
+                if (attribute.isCollection()) {
+                    throw new IllegalArgumentException("Field '" + name + "' is a collection and cannot be selected");
+                }
+                boolean last = i == segments.size() - 1;
+                if (attribute.isAssociation()) {
+                    EntityType<?> target = (EntityType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+                    String targetIdName = idName(target);
+                    if (last) {
+                        segments.add(targetIdName);
+                    }
+                    foreignKey = i == segments.size() - 2 && segments.get(i + 1).equals(targetIdName);
+                    managedType = target;
+                } else if (!last) {
+                    throw new IllegalArgumentException("Field '" + name + "' does not name an association");
+                }
+            }
+            Field field = new Field(String.join(".", segments), segments, foreignKey);
+            parsed.putIfAbsent(field.name(), field);
+        }
+        return parsed.values();
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> managedType, String name, String field) {
+        try {
+            return managedType.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    private static String idName(EntityType<?> entityType) {
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    // A selected attribute; 'foreignKey' when it is the ID of the last association on the path
+    private record Field(String name, List<String> segments, boolean foreignKey) {
+
+        // Joins the associations on the path, except one whose ID the foreign key already holds
+        Path<?> select(Root<?> root, Map<String, From<?, ?>> joins) {
+            int joined = segments.size() - (foreignKey ? 2 : 1);
+            From<?, ?> from = root;
+            for (int i = 0; i < joined; i++) {
+                From<?, ?> parent = from;
+                String segment = segments.get(i);
+                from = joins.computeIfAbsent(String.join(".", segments.subList(0, i + 1)),
+                        key -> parent.join(segment, JoinType.LEFT));
+            }
+            Path<?> path = from;
+            for (String segment : segments.subList(joined, segments.size())) {
+                path = path.get(segment);
+            }
+            return path;
+        }
+    }
+
+    private static Path<?> path(Root<?> root, String[] segments) {
+        Path<?> path = root;
+        for (String segment : segments) {
+            path = path.get(segment);
+        }
+        return path;
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            Map<String, Object> target = row;
+            String[] segments = element.getAlias().split("\\.");
+            for (int i = 0; i < segments.length - 1; i++) {
+                target = nested(target, segments[i]);
+            }
+            target.put(segments[segments.length - 1], tuple.get(element));
+        }
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> map, String key) {
+        return (Map<String, Object>) map.computeIfAbsent(key, k -> new LinkedHashMap<String, Object>());
+    }
+}
@@ -0,0 +1,22 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Keyset page of events after the given event ID
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Remove events every consumer is past, once they are old enough
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :upToId AND e.createdAt < :before")
+    int deleteDelivered(@Param("upToId") Long upToId, @Param("before") LocalDateTime before);
+}
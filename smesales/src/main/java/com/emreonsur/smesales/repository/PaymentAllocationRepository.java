@@ -0,0 +1,18 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.PaymentAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PaymentAllocationRepository extends JpaRepository<PaymentAllocation, Long> {
+
+    // List allocations of a billing entity, newest first
+    List<PaymentAllocation> findByBillingEntityIdOrderByIdDesc(Integer billingEntityId);
+
+    // List allocations made from a payment
+    List<PaymentAllocation> findByPaymentId(Integer paymentId);
+
+    // List allocations made to a sale
+    List<PaymentAllocation> findBySaleId(Integer saleId);
+}
@@ -0,0 +1,36 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.PaymentCredit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface PaymentCreditRepository extends JpaRepository<PaymentCredit, Integer> {
+
+    // Payments of a billing entity with an unallocated part, oldest first
+    @Query("SELECT c FROM PaymentCredit c WHERE c.billingEntityId = :billingEntityId " +
+            "AND c.allocatedAmount < c.amount ORDER BY c.paymentDate ASC, c.paymentId ASC")
+    List<PaymentCredit> findOpenByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Check if a billing entity has any unallocated credit
+    @Query("SELECT COUNT(c) > 0 FROM PaymentCredit c WHERE c.billingEntityId = :billingEntityId " +
+            "AND c.allocatedAmount < c.amount")
+    boolean existsOpenByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Unallocated credit of a billing entity
+    @Query("SELECT COALESCE(SUM(c.amount - c.allocatedAmount), 0) FROM PaymentCredit c " +
+            "WHERE c.billingEntityId = :billingEntityId AND c.allocatedAmount < c.amount")
+    BigDecimal sumOpenByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Billing entities holding unallocated credit while they also have unpaid sales,
+    // and those with a sale whose total fell below what was allocated to it
+    @Query("SELECT DISTINCT c.billingEntityId FROM PaymentCredit c WHERE (c.allocatedAmount < c.amount " +
+            "AND EXISTS (SELECT 1 FROM SaleReceivable r WHERE r.billingEntityId = c.billingEntityId " +
+            "AND r.allocatedAmount < r.totalAmount)) " +
+            "OR EXISTS (SELECT 1 FROM SaleReceivable r WHERE r.billingEntityId = c.billingEntityId " +
+            "AND r.allocatedAmount > r.totalAmount)")
+    List<Integer> findBillingEntityIdsToAllocate();
+}
@@ -1,15 +1,50 @@
 package com.emreonsur.smesales.repository;
 
 import com.emreonsur.smesales.entity.Payment;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
+    // Find a payment with its customer
+    @Override
+    @EntityGraph("Payment.customer")
+    Optional<Payment> findById(Integer id);
+
+    // List all payments with their customers
+    @Override
+    @EntityGraph("Payment.customer")
+    List<Payment> findAll();
+
     // Find payments by customer ID
+    @EntityGraph("Payment.customer")
     List<Payment> findByCustomer_Id(Integer customerId);
 
     // List payments by method
+    @EntityGraph("Payment.customer")
     List<Payment> findByMethod(String method);
-}
\ No newline at end of file
+
+    // Keyset page of payments after the given payment ID
+    @EntityGraph("Payment.customer")
+    List<Payment> findByIdGreaterThanOrderByIdAsc(Integer afterId, Pageable pageable);
+
+    // Stream all payments through a forward-only cursor
+    @EntityGraph("Payment.customer")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p ORDER BY p.id")
+    Stream<Payment> streamAll();
+}
@@ -0,0 +1,18 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.ProcessingCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ProcessingCheckpointRepository extends JpaRepository<ProcessingCheckpoint, String> {
+
+    // Find a consumer's checkpoint and lock it until the end of the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ProcessingCheckpoint c WHERE c.consumer = :consumer")
+    Optional<ProcessingCheckpoint> findForUpdate(@Param("consumer") String consumer);
+}
@@ -1,7 +1,9 @@
 package com.emreonsur.smesales.repository;
 
+import com.emreonsur.smesales.dto.CollectionVersion;
 import com.emreonsur.smesales.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +18,16 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // List all active products
     List<Product> findByIsActiveTrue();
 
+    // Version fingerprint of all products
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(p), MAX(p.id), SUM(p.id), SUM(p.version)) " +
+            "FROM Product p")
+    CollectionVersion findCollectionVersion();
+
+    // Version fingerprint of the active products
+    @Query("SELECT new com.emreonsur.smesales.dto.CollectionVersion(COUNT(p), MAX(p.id), SUM(p.id), SUM(p.version)) " +
+            "FROM Product p WHERE p.isActive = true")
+    CollectionVersion findActiveCollectionVersion();
+
     // Check if product exists, by display name
     boolean existsByDisplayName(String displayName);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.ProductSalesAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface ProductSalesAggregateRepository extends JpaRepository<ProductSalesAggregate, Integer> {
+
+    // Add deltas to a product's totals, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_aggregates " +
+            "(product_id, revenue, units_sold, order_count, last_order_date) " +
+            "VALUES (:productId, :revenue, :units, :orders, :orderDate) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "revenue = revenue + :revenue, " +
+            "units_sold = units_sold + :units, " +
+            "order_count = order_count + :orders, " +
+            "last_order_date = GREATEST(COALESCE(last_order_date, :orderDate), COALESCE(:orderDate, last_order_date))",
+            nativeQuery = true)
+    void add(@Param("productId") Integer productId,
+             @Param("revenue") BigDecimal revenue,
+             @Param("units") long units,
+             @Param("orders") long orders,
+             @Param("orderDate") LocalDateTime orderDate);
+
+    // Recompute the last order date after a sale line was removed or moved back in time
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE product_sales_aggregates SET last_order_date = " +
+            "(SELECT MAX(s.order_date) FROM sale_details d JOIN sales s ON s.sale_id = d.sale_id " +
+            "WHERE d.product_id = :productId) " +
+            "WHERE product_id = :productId",
+            nativeQuery = true)
+    void refreshLastOrderDate(@Param("productId") Integer productId);
+
+    // Recompute the last order date of every product on a sale whose order date changed
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE product_sales_aggregates SET last_order_date = " +
+            "(SELECT MAX(s.order_date) FROM sale_details d JOIN sales s ON s.sale_id = d.sale_id " +
+            "WHERE d.product_id = product_sales_aggregates.product_id) " +
+            "WHERE product_id IN (SELECT d.product_id FROM sale_details d WHERE d.sale_id = :saleId)",
+            nativeQuery = true)
+    void refreshLastOrderDateForSale(@Param("saleId") Integer saleId);
+}
@@ -1,14 +1,58 @@
 package com.emreonsur.smesales.repository;
 
 import com.emreonsur.smesales.entity.SaleDetail;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface SaleDetailRepository extends JpaRepository<SaleDetail, Integer> {
+    // Find a sale detail with its sale and product
+    @Override
+    @EntityGraph("SaleDetail.saleAndProduct")
+    Optional<SaleDetail> findById(Integer id);
+
+    // List all sale details with their sales and products
+    @Override
+    @EntityGraph("SaleDetail.saleAndProduct")
+    List<SaleDetail> findAll();
+
     // Find sale details by sale ID
+    @EntityGraph("SaleDetail.saleAndProduct")
     List<SaleDetail> findBySale_Id(Integer saleId);
 
     // Find sale details by product ID
+    @EntityGraph("SaleDetail.saleAndProduct")
     List<SaleDetail> findByProduct_Id(Integer productId);
-}
\ No newline at end of file
+
+    // Keyset page of sale details after the given sale detail ID
+    @EntityGraph("SaleDetail.saleAndProduct")
+    List<SaleDetail> findByIdGreaterThanOrderByIdAsc(Integer afterId, Pageable pageable);
+
+    // Stream all sale details through a forward-only cursor
+    @EntityGraph("SaleDetail.saleAndProduct")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d FROM SaleDetail d ORDER BY d.id")
+    Stream<SaleDetail> streamAll();
+
+    // Sale ID of one sale detail, read without loading the sale
+    @Query("SELECT d.sale.id FROM SaleDetail d WHERE d.id = :id")
+    Optional<Integer> findSaleIdById(@Param("id") Integer id);
+
+    // Total units on one sale
+    @Query("SELECT COALESCE(SUM(d.quantity), 0) FROM SaleDetail d WHERE d.sale.id = :saleId")
+    long sumQuantityBySaleId(@Param("saleId") Integer saleId);
+}
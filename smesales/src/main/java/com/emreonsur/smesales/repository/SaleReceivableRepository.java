@@ -0,0 +1,33 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.SaleReceivable;
+import com.emreonsur.smesales.money.Money;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SaleReceivableRepository extends JpaRepository<SaleReceivable, Integer> {
+
+    // Sales of a billing entity not yet fully paid, oldest first
+    @Query("SELECT r FROM SaleReceivable r WHERE r.billingEntityId = :billingEntityId " +
+            "AND r.allocatedAmount < r.totalAmount ORDER BY r.orderDate ASC, r.saleId ASC")
+    List<SaleReceivable> findOpenByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Check if a billing entity has any sale not yet fully paid
+    @Query("SELECT COUNT(r) > 0 FROM SaleReceivable r WHERE r.billingEntityId = :billingEntityId " +
+            "AND r.allocatedAmount < r.totalAmount")
+    boolean existsOpenByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Sales of a billing entity whose total fell below the payments allocated to it
+    @Query("SELECT r FROM SaleReceivable r WHERE r.billingEntityId = :billingEntityId " +
+            "AND r.allocatedAmount > r.totalAmount")
+    List<SaleReceivable> findOverAllocatedByBillingEntityId(@Param("billingEntityId") Integer billingEntityId);
+
+    // Move a sale's receivable by the change in its total, leaving its allocations as they are
+    @Modifying
+    @Query("UPDATE SaleReceivable r SET r.totalAmount = r.totalAmount + :amount WHERE r.saleId = :saleId")
+    int addToTotalAmount(@Param("saleId") Integer saleId, @Param("amount") Money amount);
+}
@@ -1,15 +1,83 @@
 package com.emreonsur.smesales.repository;
 
+import com.emreonsur.smesales.dto.SaleSummary;
 import com.emreonsur.smesales.entity.Sale;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface SaleRepository extends JpaRepository<Sale, Integer> {
 
+    // Find a sale with its customer, billing entity and lines in one query
+    @Override
+    @EntityGraph("Sale.full")
+    Optional<Sale> findById(Integer id);
+
+    // List all sales with their customers
+    @Override
+    @EntityGraph("Sale.customer")
+    List<Sale> findAll();
+
     // List sales by customer ID
+    @EntityGraph("Sale.customer")
     List<Sale> findByCustomer_Id(Integer customerId);
 
     // Find sales by invoice ID
+    @EntityGraph("Sale.full")
     Sale findByInvoiceId(String invoiceId);
+
+    // Find a sale without its lines and lock its row until the end of the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sale s WHERE s.id = :id")
+    Optional<Sale> findByIdForUpdate(@Param("id") Integer id);
+
+    // Flat summaries of all sales
+    @Query("SELECT new com.emreonsur.smesales.dto.SaleSummary(" +
+            "s.id, s.orderDate, s.invoiceId, s.totalAmount, c.id, c.displayName, b.id, b.tradeName) " +
+            "FROM Sale s JOIN s.customer c JOIN c.billingEntity b ORDER BY s.id")
+    List<SaleSummary> findAllSummaries();
+
+    // Flat summaries of sales by customer ID
+    @Query("SELECT new com.emreonsur.smesales.dto.SaleSummary(" +
+            "s.id, s.orderDate, s.invoiceId, s.totalAmount, c.id, c.displayName, b.id, b.tradeName) " +
+            "FROM Sale s JOIN s.customer c JOIN c.billingEntity b " +
+            "WHERE c.id = :customerId ORDER BY s.id")
+    List<SaleSummary> findSummariesByCustomerId(@Param("customerId") Integer customerId);
+
+    // First keyset page, ordered by order date and sale ID
+    @EntityGraph("Sale.customer")
+    @Query("SELECT s FROM Sale s ORDER BY s.orderDate, s.id")
+    List<Sale> findFirstPage(Pageable pageable);
+
+    // Next keyset page after the given (order date, sale ID) position
+    @EntityGraph("Sale.customer")
+    @Query("SELECT s FROM Sale s " +
+            "WHERE s.orderDate > :afterDate OR (s.orderDate = :afterDate AND s.id > :afterId) " +
+            "ORDER BY s.orderDate, s.id")
+    List<Sale> findPageAfter(@Param("afterDate") LocalDateTime afterDate,
+                             @Param("afterId") Integer afterId,
+                             Pageable pageable);
+
+    // Stream all sales through a forward-only cursor
+    @EntityGraph("Sale.customer")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Sale s ORDER BY s.id")
+    Stream<Sale> streamAll();
 }
@@ -0,0 +1,151 @@
+package com.emreonsur.smesales.search;
+
+import com.emreonsur.smesales.dto.SearchResult;
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Product;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Typeahead index over products, customers and billing entities, updated after commit.
+// A rebuild loads off to the side and replays the changes committed meanwhile.
+@Component
+public class SearchIndex {
+
+    public enum Type {
+        PRODUCT, CUSTOMER, BILLING_ENTITY
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TextIndex index = new TextIndex();
+
+    // Changes committed while a rebuild is loading, replayed onto the new index
+    private List<Consumer<TextIndex>> pendingChanges;
+
+    @Autowired
+    public SearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        TextIndex loaded = new TextIndex();
+        jdbcTemplate.query("SELECT product_id, display_name, formal_name, is_active FROM products",
+                (RowCallbackHandler) rs -> loaded.put(Type.PRODUCT, rs.getInt(1), rs.getString(2),
+                        rs.getBoolean(4), rs.getString(2), rs.getString(3)));
+        jdbcTemplate.query("SELECT customer_id, display_name, is_active FROM customers",
+                (RowCallbackHandler) rs -> loaded.put(Type.CUSTOMER, rs.getInt(1), rs.getString(2),
+                        rs.getBoolean(3), rs.getString(2)));
+        jdbcTemplate.query("SELECT billing_entity_id, trade_name, trade_number_or_citizen_id, is_active " +
+                        "FROM billing_entities",
+                (RowCallbackHandler) rs -> loaded.put(Type.BILLING_ENTITY, rs.getInt(1), rs.getString(2),
+                        rs.getBoolean(4), rs.getString(2), rs.getString(3)));
+
+        synchronized (this) {
+            pendingChanges.forEach(change -> change.accept(loaded));
+            pendingChanges = null;
+            lock.writeLock().lock();
+            try {
+                index = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public List<SearchResult> search(String query, Set<Type> types, boolean includeInactive, int limit) {
+        List<TextIndex.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = index.search(query, types, includeInactive, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SearchResult> results = new ArrayList<>(matches.size());
+        for (TextIndex.Match match : matches) {
+            TextIndex.Document document = match.document();
+            results.add(new SearchResult(document.type().name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                    document.id(), document.label(), document.active(),
+                    Math.round(match.score() * 1000) / 1000.0));
+        }
+        return results;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        Integer id = product.getId();
+        String displayName = product.getDisplayName();
+        String formalName = product.getFormalName();
+        boolean active = Boolean.TRUE.equals(product.getIsActive());
+        afterCommit(index -> index.put(Type.PRODUCT, id, displayName, active, displayName, formalName));
+    }
+
+    public void index(Customer customer) {
+        Integer id = customer.getId();
+        String displayName = customer.getDisplayName();
+        boolean active = Boolean.TRUE.equals(customer.getIsActive());
+        afterCommit(index -> index.put(Type.CUSTOMER, id, displayName, active, displayName));
+    }
+
+    public void index(BillingEntity billingEntity) {
+        Integer id = billingEntity.getId();
+        String tradeName = billingEntity.getTradeName();
+        String tradeNumber = billingEntity.getTradeNumberOrCitizenId();
+        boolean active = Boolean.TRUE.equals(billingEntity.getIsActive());
+        afterCommit(index -> index.put(Type.BILLING_ENTITY, id, tradeName, active, tradeName, tradeNumber));
+    }
+
+    public void remove(Type type, Integer id) {
+        afterCommit(index -> index.remove(type, id));
+    }
+
+    private void afterCommit(Consumer<TextIndex> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private synchronized void apply(Consumer<TextIndex> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.emreonsur.smesales.search;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Trigram and token-prefix index over short texts such as names and IDs.
+// Not thread-safe; SearchIndex guards it.
+final class TextIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Share of the query's trigrams a document must contain to count as a fuzzy match
+    private static final double MIN_GRAM_OVERLAP = 0.4;
+
+    // How many first-pass candidates per requested result get the full score
+    private static final int SHORTLIST_FACTOR = 5;
+
+    record Document(SearchIndex.Type type, int id, String label, boolean active, String[] fields) {
+    }
+
+    record Match(Document document, double score) {
+    }
+
+    private final List<Document> documents = new ArrayList<>();
+    private final Deque<Integer> freeNumbers = new ArrayDeque<>();
+    private final Map<Long, Integer> numbersByKey = new HashMap<>();
+    private final Map<String, Postings> postingsByGram = new HashMap<>();
+    private final NavigableMap<String, Postings> postingsByToken = new TreeMap<>();
+
+    void put(SearchIndex.Type type, int id, String label, boolean active, String... fieldValues) {
+        remove(type, id);
+        List<String> fields = new ArrayList<>(fieldValues.length);
+        for (String value : fieldValues) {
+            String normalized = normalize(value);
+            if (!normalized.isEmpty()) {
+                fields.add(normalized);
+            }
+        }
+        Document document = new Document(type, id, label, active, fields.toArray(String[]::new));
+        Integer free = freeNumbers.poll();
+        int number;
+        if (free != null) {
+            number = free;
+            documents.set(number, document);
+        } else {
+            number = documents.size();
+            documents.add(document);
+        }
+        numbersByKey.put(key(type, id), number);
+        for (String gram : grams(document)) {
+            postingsByGram.computeIfAbsent(gram, g -> new Postings()).add(number);
+        }
+        for (String token : tokens(document)) {
+            postingsByToken.computeIfAbsent(token, t -> new Postings()).add(number);
+        }
+    }
+
+    void remove(SearchIndex.Type type, int id) {
+        Integer number = numbersByKey.remove(key(type, id));
+        if (number == null) {
+            return;
+        }
+        Document document = documents.get(number);
+        documents.set(number, null);
+        freeNumbers.push(number);
+        for (String gram : grams(document)) {
+            removePosting(postingsByGram, gram, number);
+        }
+        for (String token : tokens(document)) {
+            removePosting(postingsByToken, token, number);
+        }
+    }
+
+    List<Match> search(String query, Set<SearchIndex.Type> types, boolean includeInactive, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        // Candidates: documents with a token starting with the last query word,
+        // plus documents sharing trigrams with the query
+        int[] shared = new int[documents.size()];
+        boolean[] prefixed = new boolean[documents.size()];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        String lastWord = normalized.substring(normalized.lastIndexOf(' ') + 1);
+        for (Postings postings : postingsByToken.subMap(lastWord, true, lastWord + Character.MAX_VALUE, false)
+                .values()) {
+            for (int i = 0; i < postings.size; i++) {
+                int number = postings.numbers[i];
+                if (!prefixed[number]) {
+                    prefixed[number] = true;
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = number;
+                }
+            }
+        }
+        // No trailing pad: the last word may still be being typed
+        Set<String> queryGrams = trigrams(" " + normalized);
+        for (String gram : queryGrams) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings == null) {
+                continue;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int number = postings.numbers[i];
+                if (shared[number]++ == 0 && !prefixed[number]) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = number;
+                }
+            }
+        }
+
+        // First pass ranks on trigram overlap and word prefix alone, which needs no string
+        // work; only the shortlist is scored on exact, prefix and substring matches
+        int gramCount = Math.max(1, queryGrams.size());
+        int minShared = queryGrams.isEmpty() ? Integer.MAX_VALUE : (int) Math.ceil(gramCount * MIN_GRAM_OVERLAP);
+        int shortlistSize = limit * SHORTLIST_FACTOR;
+        PriorityQueue<long[]> shortlist = new PriorityQueue<>(shortlistSize + 1,
+                Comparator.comparingLong(entry -> entry[0]));
+        for (int c = 0; c < candidateCount; c++) {
+            int number = candidates[c];
+            if (!prefixed[number] && shared[number] < minShared) {
+                continue;
+            }
+            Document document = documents.get(number);
+            if (document == null || !types.contains(document.type()) || (!includeInactive && !document.active())) {
+                continue;
+            }
+            long rank = (shared[number] + (prefixed[number] ? gramCount : 0)) * 1024L
+                    - Math.min(1023, document.label().length());
+            if (shortlist.size() < shortlistSize || rank > shortlist.peek()[0]) {
+                shortlist.add(new long[]{rank, number});
+                if (shortlist.size() > shortlistSize) {
+                    shortlist.poll();
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(shortlist.size());
+        for (long[] entry : shortlist) {
+            int number = (int) entry[1];
+            Document document = documents.get(number);
+            double score = score(document, normalized, lastWord) + (double) shared[number] / gramCount
+                    // Prefer shorter labels among equal matches
+                    - document.label().length() * 0.001;
+            matches.add(new Match(document, score));
+        }
+        matches.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    int size() {
+        return numbersByKey.size();
+    }
+
+    // Exact and prefix matches outrank fuzzy ones
+    private static double score(Document document, String query, String lastWord) {
+        double best = 0;
+        for (String field : document.fields()) {
+            if (field.equals(query)) {
+                best = Math.max(best, 4);
+            } else if (field.startsWith(query)) {
+                best = Math.max(best, 3);
+            } else if (field.contains(" " + query)) {
+                best = Math.max(best, 2);
+            } else if (field.contains(query)) {
+                best = Math.max(best, 1.5);
+            } else if (field.startsWith(lastWord) || field.contains(" " + lastWord)) {
+                best = Math.max(best, 1);
+            }
+        }
+        return best;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Dotless and dotted I would otherwise not fold to a plain 'i'
+        String folded = value.replace('ı', 'i').replace('İ', 'I');
+        folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static Set<String> grams(Document document) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String field : document.fields()) {
+            grams.addAll(trigrams(" " + field + " "));
+        }
+        return grams;
+    }
+
+    private static Set<String> tokens(Document document) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String field : document.fields()) {
+            tokens.addAll(Arrays.asList(field.split(" ")));
+        }
+        return tokens;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static void removePosting(Map<String, Postings> postingsByKey, String key, int number) {
+        Postings postings = postingsByKey.get(key);
+        if (postings != null && postings.remove(number) && postings.size == 0) {
+            postingsByKey.remove(key);
+        }
+    }
+
+    private static long key(SearchIndex.Type type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static final class Postings {
+        private int[] numbers = new int[4];
+        private int size;
+
+        void add(int number) {
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            numbers[size++] = number;
+        }
+
+        boolean remove(int number) {
+            for (int i = 0; i < size; i++) {
+                if (numbers[i] == number) {
+                    numbers[i] = numbers[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.BalanceView;
+import com.emreonsur.smesales.money.Money;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface BalanceLedgerService {
+    Optional<BalanceView> getBalance(Integer billingEntityId);
+
+    Money getPendingAmount(Integer billingEntityId);
+
+    Map<Integer, Money> getPendingAmounts();
+
+    long getLastEntryId();
+
+    void compact();
+}
@@ -0,0 +1,171 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.BalanceDelta;
+import com.emreonsur.smesales.dto.BalanceView;
+import com.emreonsur.smesales.entity.BalanceLedgerEntry;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.BalanceLedgerRepository;
+import com.emreonsur.smesales.repository.BillingEntityRepository;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Append-only balance ledger in place of the balance triggers; compact() folds the
+// entries into billing_entities.current_balance and reads add the uncompacted tail
+@Service
+public class BalanceLedgerServiceImpl implements BalanceLedgerService {
+    private static final String SOURCE_SALE = "SALE";
+    private static final String SOURCE_PAYMENT = "PAYMENT";
+
+    private final BalanceLedgerRepository balanceLedgerRepository;
+    private final BillingEntityRepository billingEntityRepository;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int compactionBatchSize;
+
+    @Autowired
+    public BalanceLedgerServiceImpl(BalanceLedgerRepository balanceLedgerRepository,
+                                    BillingEntityRepository billingEntityRepository,
+                                    CustomerRepository customerRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${smesales.balance-ledger.compaction-batch-size:1000}") int compactionBatchSize) {
+        this.balanceLedgerRepository = balanceLedgerRepository;
+        this.billingEntityRepository = billingEntityRepository;
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.compactionBatchSize = compactionBatchSize;
+    }
+
+    // Snapshot and tail are read in one transaction, so a compaction is seen either fully or not at all
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BalanceView> getBalance(Integer billingEntityId) {
+        return billingEntityRepository.findById(billingEntityId).map(billingEntity -> {
+            Money compacted = billingEntity.getCurrentBalance();
+            Money pending = getPendingAmount(billingEntityId);
+            return new BalanceView(billingEntityId, compacted, pending, compacted.plus(pending));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Money getPendingAmount(Integer billingEntityId) {
+        return Money.of(balanceLedgerRepository.sumPendingByBillingEntityId(billingEntityId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, Money> getPendingAmounts() {
+        Map<Integer, Money> pending = new HashMap<>();
+        for (BalanceDelta delta : balanceLedgerRepository.sumPendingPerBillingEntity()) {
+            pending.put(delta.billingEntityId(), delta.amount());
+        }
+        return pending;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getLastEntryId() {
+        return balanceLedgerRepository.findMaxId();
+    }
+
+    @EventListener
+    public void onSaleChanged(SaleChangedEvent event) {
+        SaleChangedEvent.Snapshot before = event.before();
+        SaleChangedEvent.Snapshot after = event.after();
+        Integer beforeEntityId = before != null ? billingEntityIdOf(before.customerId()) : null;
+        Integer afterEntityId = after != null ? billingEntityIdOf(after.customerId()) : null;
+
+        // Same balance effect as the old trigger: only a change of payer or amount counts
+        if (before != null && after != null && beforeEntityId.equals(afterEntityId)
+                && before.totalAmount().equals(after.totalAmount())) {
+            return;
+        }
+        if (before != null) {
+            append(beforeEntityId, before.totalAmount().negate(), SOURCE_SALE, before.saleId());
+        }
+        if (after != null) {
+            append(afterEntityId, after.totalAmount(), SOURCE_SALE, after.saleId());
+        }
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        PaymentChangedEvent.Snapshot before = event.before();
+        PaymentChangedEvent.Snapshot after = event.after();
+        Integer beforeEntityId = before != null ? billingEntityIdOf(before) : null;
+        Integer afterEntityId = after != null ? billingEntityIdOf(after) : null;
+
+        if (before != null && after != null && beforeEntityId.equals(afterEntityId)
+                && before.amount().equals(after.amount())) {
+            return;
+        }
+        if (before != null) {
+            append(beforeEntityId, before.amount(), SOURCE_PAYMENT, before.paymentId());
+        }
+        if (after != null) {
+            append(afterEntityId, after.amount().negate(), SOURCE_PAYMENT, after.paymentId());
+        }
+    }
+
+    // Claims bounded ID ranges up to the last entry seen at the start, so each lock stays short
+    @Override
+    @Scheduled(fixedDelayString = "${smesales.balance-ledger.compaction-interval:10s}")
+    public void compact() {
+        long lastId = balanceLedgerRepository.findMaxId();
+        Long fromId = balanceLedgerRepository.findMinPendingId();
+        while (fromId != null && fromId <= lastId) {
+            long rangeStart = fromId;
+            long rangeEnd = Math.min(fromId + compactionBatchSize - 1, lastId);
+            transactionTemplate.executeWithoutResult(status -> compactRange(rangeStart, rangeEnd));
+            fromId = rangeEnd + 1;
+        }
+    }
+
+    private void compactRange(long fromId, long toId) {
+        // Random so that runs from several application instances never share an ID
+        long compactionId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        if (balanceLedgerRepository.claimForCompaction(compactionId, fromId, toId) == 0) {
+            return;
+        }
+        for (BalanceDelta delta : balanceLedgerRepository.sumByCompactionId(compactionId)) {
+            billingEntityRepository.addToCurrentBalance(delta.billingEntityId(), delta.amount());
+        }
+    }
+
+    private void append(Integer billingEntityId, Money amount, String sourceType, Integer sourceId) {
+        if (amount.isZero()) {
+            return;
+        }
+        BalanceLedgerEntry entry = new BalanceLedgerEntry();
+        entry.setBillingEntityId(billingEntityId);
+        entry.setAmount(amount);
+        entry.setSourceType(sourceType);
+        entry.setSourceId(sourceId);
+        entry.setCreatedAt(LocalDateTime.now());
+        balanceLedgerRepository.save(entry);
+    }
+
+    private Integer billingEntityIdOf(PaymentChangedEvent.Snapshot payment) {
+        return payment.billingEntityId() != null ? payment.billingEntityId() : billingEntityIdOf(payment.customerId());
+    }
+
+    private Integer billingEntityIdOf(Integer customerId) {
+        return customerRepository.findBillingEntityIdById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", customerId));
+    }
+}
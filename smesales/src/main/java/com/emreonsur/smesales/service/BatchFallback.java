@@ -0,0 +1,51 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.exception.IntegrityViolation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Writes a batch in one go and, if that fails, item by item, so one bad item only costs itself
+final class BatchFallback {
+    private BatchFallback() {
+    }
+
+    static <T, R> void write(List<T> items,
+                             Function<List<T>, List<R>> write,
+                             BiConsumer<T, R> onWritten,
+                             BiConsumer<T, String> onFailed) {
+        List<R> results;
+        try {
+            results = write.apply(items);
+        } catch (RuntimeException e) {
+            for (T item : items) {
+                R result;
+                try {
+                    result = write.apply(List.of(item)).get(0);
+                } catch (RuntimeException itemException) {
+                    onFailed.accept(item, messageOf(itemException));
+                    continue;
+                }
+                onWritten.accept(item, result);
+            }
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            onWritten.accept(items.get(i), results.get(i));
+        }
+    }
+
+    // Database messages quote the rejected values, so only the kind of failure is reported
+    private static String messageOf(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException violation) {
+            return IntegrityViolation.of(violation).message();
+        }
+        if (e instanceof DataAccessException) {
+            return "The row could not be written";
+        }
+        return e.getMessage();
+    }
+}
@@ -1,8 +1,10 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.BalanceView;
 import com.emreonsur.smesales.entity.BillingEntity;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface BillingEntityService {
@@ -10,9 +12,33 @@ public interface BillingEntityService {
 
     Optional<BillingEntity> getBillingEntityById(Integer id);
 
+    Optional<BillingEntity> getBillingEntityByTradeName(String tradeName);
+
+    List<BillingEntity> getActiveBillingEntities();
+
+    List<BillingEntity> getBillingEntitiesByEntityType(String entityType);
+
+    List<Map<String, Object>> getAllBillingEntityFields(String fields);
+
+    Optional<Map<String, Object>> getBillingEntityFieldsById(Integer id, String fields);
+
+    Optional<Map<String, Object>> getBillingEntityFieldsByTradeName(String tradeName, String fields);
+
+    List<Map<String, Object>> getActiveBillingEntityFields(String fields);
+
+    List<Map<String, Object>> getBillingEntityFieldsByEntityType(String entityType, String fields);
+
+    Optional<BalanceView> getBalance(Integer id);
+
+    String getBillingEntitiesETag();
+
+    String getActiveBillingEntitiesETag();
+
     BillingEntity createBillingEntity(BillingEntity billingEntity);
 
     BillingEntity updateBillingEntity(Integer id, BillingEntity billingEntity);
 
+    BillingEntity patchBillingEntity(Integer id, BillingEntity patch, Long expectedVersion);
+
     void deleteBillingEntity(Integer id);
 }
\ No newline at end of file
@@ -1,53 +1,220 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.BalanceView;
 import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.money.Money;
 import com.emreonsur.smesales.repository.BillingEntityRepository;
+import com.emreonsur.smesales.repository.FieldProjections;
+import com.emreonsur.smesales.search.SearchIndex;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.emreonsur.smesales.repository.FieldProjections.where;
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
+
 @Service
 public class BillingEntityServiceImpl implements BillingEntityService {
     private final BillingEntityRepository billingEntityRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final FieldProjections fieldProjections;
+    private final EntityManager entityManager;
+    private final SearchIndex searchIndex;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public BillingEntityServiceImpl(BillingEntityRepository billingEntityRepository) {
+    public BillingEntityServiceImpl(BillingEntityRepository billingEntityRepository,
+                                    BalanceLedgerService balanceLedgerService,
+                                    FieldProjections fieldProjections,
+                                    EntityManager entityManager,
+                                    SearchIndex searchIndex,
+                                    OptimisticUpdates optimisticUpdates) {
         this.billingEntityRepository = billingEntityRepository;
+        this.balanceLedgerService = balanceLedgerService;
+        this.fieldProjections = fieldProjections;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
+    // Balances include ledger entries not yet compacted into 'current_balance'
     @Override
+    @Transactional(readOnly = true)
     public List<BillingEntity> getAllBillingEntities() {
-        return billingEntityRepository.findAll();
+        return withPendingAmounts(billingEntityRepository.findAll());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<BillingEntity> getBillingEntityById(Integer id) {
-        return billingEntityRepository.findById(id);
+        return billingEntityRepository.findById(id).map(this::withPendingAmount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BillingEntity> getBillingEntityByTradeName(String tradeName) {
+        return billingEntityRepository.findByTradeName(tradeName).map(this::withPendingAmount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BillingEntity> getActiveBillingEntities() {
+        return withPendingAmounts(billingEntityRepository.findByIsActiveTrue());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BillingEntity> getBillingEntitiesByEntityType(String entityType) {
+        return withPendingAmounts(billingEntityRepository.findByEntityType(entityType));
+    }
+
+    // The same balances for the projections of these endpoints
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllBillingEntityFields(String fields) {
+        return rowsWithPendingAmounts(fieldProjections.findAll(BillingEntity.class, fields, null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getBillingEntityFieldsById(Integer id, String fields) {
+        return fieldProjections.findOne(BillingEntity.class, fields, where("id", id)).map(this::rowWithPendingAmount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getBillingEntityFieldsByTradeName(String tradeName, String fields) {
+        return fieldProjections.findOne(BillingEntity.class, fields, where("tradeName", tradeName))
+                .map(this::rowWithPendingAmount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getActiveBillingEntityFields(String fields) {
+        return rowsWithPendingAmounts(fieldProjections.findAll(BillingEntity.class, fields, where("isActive", true)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getBillingEntityFieldsByEntityType(String entityType, String fields) {
+        return rowsWithPendingAmounts(fieldProjections.findAll(BillingEntity.class, fields,
+                where("entityType", entityType)));
+    }
+
+    private BillingEntity withPendingAmount(BillingEntity billingEntity) {
+        Money pending = balanceLedgerService.getPendingAmount(billingEntity.getId());
+        // Detach first so the adjusted balance is never written back
+        entityManager.detach(billingEntity);
+        billingEntity.setCurrentBalance(billingEntity.getCurrentBalance().plus(pending));
+        return billingEntity;
+    }
+
+    // One query for the pending amounts of the whole list
+    private List<BillingEntity> withPendingAmounts(List<BillingEntity> billingEntities) {
+        Map<Integer, Money> pending = balanceLedgerService.getPendingAmounts();
+        for (BillingEntity billingEntity : billingEntities) {
+            Money amount = pending.get(billingEntity.getId());
+            if (amount != null) {
+                entityManager.detach(billingEntity);
+                billingEntity.setCurrentBalance(billingEntity.getCurrentBalance().plus(amount));
+            }
+        }
+        return billingEntities;
+    }
+
+    private Map<String, Object> rowWithPendingAmount(Map<String, Object> row) {
+        addPendingAmount(row, balanceLedgerService.getPendingAmount((Integer) row.get("id")));
+        return row;
+    }
+
+    private List<Map<String, Object>> rowsWithPendingAmounts(List<Map<String, Object>> rows) {
+        Map<Integer, Money> pending = balanceLedgerService.getPendingAmounts();
+        for (Map<String, Object> row : rows) {
+            addPendingAmount(row, pending.get((Integer) row.get("id")));
+        }
+        return rows;
+    }
+
+    private static void addPendingAmount(Map<String, Object> row, Money amount) {
+        if (amount != null && row.get("currentBalance") instanceof Money balance) {
+            row.put("currentBalance", balance.plus(amount));
+        }
+    }
+
+    @Override
+    public Optional<BalanceView> getBalance(Integer id) {
+        return balanceLedgerService.getBalance(id);
+    }
+
+    // The listed balances also change with every ledger entry written
+    @Override
+    @Transactional(readOnly = true)
+    public String getBillingEntitiesETag() {
+        return billingEntityRepository.findCollectionVersion().eTag() + "-" + balanceLedgerService.getLastEntryId();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getActiveBillingEntitiesETag() {
+        return billingEntityRepository.findActiveCollectionVersion().eTag() + "-" + balanceLedgerService.getLastEntryId();
     }
 
     @Override
     public BillingEntity createBillingEntity(BillingEntity billingEntity) {
-        return billingEntityRepository.save(billingEntity);
+        // Starts at zero and moves only with the balance ledger
+        billingEntity.setCurrentBalance(Money.ZERO);
+        BillingEntity saved = billingEntityRepository.save(billingEntity);
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public BillingEntity updateBillingEntity(Integer id, BillingEntity updatedEntity) {
-        return billingEntityRepository.findById(id).map(existingEntity -> {
-            existingEntity.setTradeNumberOrCitizenId(updatedEntity.getTradeNumberOrCitizenId());
-            existingEntity.setEntityType(updatedEntity.getEntityType());
-            existingEntity.setTradeName(updatedEntity.getTradeName());
-            existingEntity.setTaxOffice(updatedEntity.getTaxOffice());
-            existingEntity.setBillingAddress(updatedEntity.getBillingAddress());
-            existingEntity.setCurrentBalance(updatedEntity.getCurrentBalance());
-            existingEntity.setIsActive(updatedEntity.getIsActive());
-            return billingEntityRepository.save(existingEntity);
-        }).orElseThrow(() -> new RuntimeException("Billing entity not found with id: " + id));
+        return billingEntityRepository.findById(id)
+                .map(existingEntity -> applyUpdate(existingEntity, updatedEntity))
+                .orElseThrow(() -> new ResourceNotFoundException("Billing entity", id));
+    }
+
+    @Override
+    public BillingEntity patchBillingEntity(Integer id, BillingEntity patch, Long expectedVersion) {
+        return optimisticUpdates.execute("Billing entity", id, expectedVersion, () -> {
+            BillingEntity existingEntity = billingEntityRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Billing entity", id));
+            OptimisticUpdates.checkVersion("Billing entity", id, expectedVersion, existingEntity.getVersion());
+            BillingEntity updatedEntity = new BillingEntity();
+            updatedEntity.setTradeNumberOrCitizenId(
+                    patched(patch.getTradeNumberOrCitizenId(), existingEntity.getTradeNumberOrCitizenId()));
+            updatedEntity.setEntityType(patched(patch.getEntityType(), existingEntity.getEntityType()));
+            updatedEntity.setTradeName(patched(patch.getTradeName(), existingEntity.getTradeName()));
+            updatedEntity.setTaxOffice(patched(patch.getTaxOffice(), existingEntity.getTaxOffice()));
+            updatedEntity.setBillingAddress(patched(patch.getBillingAddress(), existingEntity.getBillingAddress()));
+            updatedEntity.setIsActive(patched(patch.getIsActive(), existingEntity.getIsActive()));
+            return applyUpdate(existingEntity, updatedEntity);
+        });
+    }
+
+    private BillingEntity applyUpdate(BillingEntity existingEntity, BillingEntity updatedEntity) {
+        existingEntity.setTradeNumberOrCitizenId(updatedEntity.getTradeNumberOrCitizenId());
+        existingEntity.setEntityType(updatedEntity.getEntityType());
+        existingEntity.setTradeName(updatedEntity.getTradeName());
+        existingEntity.setTaxOffice(updatedEntity.getTaxOffice());
+        existingEntity.setBillingAddress(updatedEntity.getBillingAddress());
+        // 'current_balance' is owned by the balance ledger and never taken from the request
+        existingEntity.setIsActive(updatedEntity.getIsActive());
+        BillingEntity saved = billingEntityRepository.save(existingEntity);
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public void deleteBillingEntity(Integer id) {
         billingEntityRepository.deleteById(id);
+        searchIndex.remove(SearchIndex.Type.BILLING_ENTITY, id);
     }
 }
\ No newline at end of file
@@ -10,9 +10,15 @@ public interface CustomerService {
 
     Optional<Customer> getCustomerById(Integer id);
 
+    String getCustomersETag();
+
+    String getActiveCustomersETag();
+
     Customer createCustomer(Customer customer);
 
     Customer updateCustomer(Integer id, Customer customer);
 
+    Customer patchCustomer(Integer id, Customer patch, Long expectedVersion);
+
     void deleteCustomer(Integer id);
 }
\ No newline at end of file
@@ -1,50 +1,110 @@
 package com.emreonsur.smesales.service;
 
 import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.repository.BillingEntityRepository;
 import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.search.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
+
 @Service
 public class CustomerServiceImpl implements CustomerService {
     private final CustomerRepository customerRepository;
+    private final BillingEntityRepository billingEntityRepository;
+    private final SearchIndex searchIndex;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    public CustomerServiceImpl(CustomerRepository customerRepository,
+                               BillingEntityRepository billingEntityRepository,
+                               SearchIndex searchIndex,
+                               OptimisticUpdates optimisticUpdates) {
         this.customerRepository = customerRepository;
+        this.billingEntityRepository = billingEntityRepository;
+        this.searchIndex = searchIndex;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Customer> getAllCustomers() {
         return customerRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerById(Integer id) {
         return customerRepository.findById(id);
     }
 
+    @Override
+    public String getCustomersETag() {
+        return customerRepository.findCollectionVersion().eTag();
+    }
+
+    @Override
+    public String getActiveCustomersETag() {
+        return customerRepository.findActiveCollectionVersion().eTag();
+    }
+
     @Override
     public Customer createCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        attachBillingEntity(customer);
+        Customer saved = customerRepository.save(customer);
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public Customer updateCustomer(Integer id, Customer updatedCustomer) {
-        return customerRepository.findById(id).map(existingCustomer -> {
-            existingCustomer.setDisplayName(updatedCustomer.getDisplayName());
-            existingCustomer.setBillingEntity(updatedCustomer.getBillingEntity());
-            existingCustomer.setDeliveryAddress(updatedCustomer.getDeliveryAddress());
-            existingCustomer.setIsActive(updatedCustomer.getIsActive());
-            return customerRepository.save(existingCustomer);
-        }).orElseThrow(() -> new RuntimeException("Customer not found with id: " + id));
+        return customerRepository.findById(id)
+                .map(existingCustomer -> applyUpdate(existingCustomer, updatedCustomer))
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", id));
+    }
+
+    @Override
+    public Customer patchCustomer(Integer id, Customer patch, Long expectedVersion) {
+        return optimisticUpdates.execute("Customer", id, expectedVersion, () -> {
+            Customer existingCustomer = customerRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Customer", id));
+            OptimisticUpdates.checkVersion("Customer", id, expectedVersion, existingCustomer.getVersion());
+            Customer updatedCustomer = new Customer();
+            updatedCustomer.setDisplayName(patched(patch.getDisplayName(), existingCustomer.getDisplayName()));
+            updatedCustomer.setBillingEntity(patched(patch.getBillingEntity(), existingCustomer.getBillingEntity()));
+            updatedCustomer.setDeliveryAddress(patched(patch.getDeliveryAddress(), existingCustomer.getDeliveryAddress()));
+            updatedCustomer.setIsActive(patched(patch.getIsActive(), existingCustomer.getIsActive()));
+            return applyUpdate(existingCustomer, updatedCustomer);
+        });
+    }
+
+    private Customer applyUpdate(Customer existingCustomer, Customer updatedCustomer) {
+        attachBillingEntity(updatedCustomer);
+        existingCustomer.setDisplayName(updatedCustomer.getDisplayName());
+        existingCustomer.setBillingEntity(updatedCustomer.getBillingEntity());
+        existingCustomer.setDeliveryAddress(updatedCustomer.getDeliveryAddress());
+        existingCustomer.setIsActive(updatedCustomer.getIsActive());
+        Customer saved = customerRepository.save(existingCustomer);
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public void deleteCustomer(Integer id) {
         customerRepository.deleteById(id);
+        searchIndex.remove(SearchIndex.Type.CUSTOMER, id);
+    }
+
+    // Request bodies name the billing entity by ID only; being versioned, it is attached as a reference
+    private void attachBillingEntity(Customer customer) {
+        if (customer.getBillingEntity() != null && customer.getBillingEntity().getId() != null) {
+            customer.setBillingEntity(billingEntityRepository.getReferenceById(customer.getBillingEntity().getId()));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.emreonsur.smesales.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Drains a repository stream in chunks: each chunk stays attached while it is
+// consumed, so lazy associations are batch-fetched for the whole chunk, and
+// the persistence context is cleared before the next chunk is read.
+final class EntityStreams {
+    static final int CHUNK_SIZE = 100;
+
+    private EntityStreams() {
+    }
+
+    static <T> void forEachChunked(Stream<T> rows, EntityManager entityManager, Consumer<T> consumer) {
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (rows) {
+            rows.forEach(row -> {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    drain(chunk, entityManager, consumer);
+                }
+            });
+        }
+        drain(chunk, entityManager, consumer);
+    }
+
+    private static <T> void drain(List<T> chunk, EntityManager entityManager, Consumer<T> consumer) {
+        chunk.forEach(consumer);
+        chunk.clear();
+        entityManager.clear();
+    }
+}
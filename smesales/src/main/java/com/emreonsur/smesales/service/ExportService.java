@@ -0,0 +1,10 @@
+package com.emreonsur.smesales.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportService {
+    void exportSales(LocalDate from, LocalDate to, Integer customerId, Integer billingEntityId,
+                     OutputStream out) throws IOException;
+}
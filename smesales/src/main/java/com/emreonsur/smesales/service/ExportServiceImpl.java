@@ -0,0 +1,131 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.exporter.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// CSV export of sales with their lines, streamed from one forward-only query
+@Service
+public class ExportServiceImpl implements ExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final String[] SALES_HEADER = {
+            "sale_id", "invoice_id", "order_date", "sale_total_amount",
+            "customer_id", "customer", "billing_entity_id", "trade_number_or_citizen_id", "billing_entity",
+            "sale_detail_id", "product_id", "product", "quantity", "unit_price", "total_price"
+    };
+
+    private static final String SALES_SQL =
+            "SELECT s.sale_id, s.invoice_id, s.order_date, s.total_amount, " +
+            "c.customer_id, c.display_name AS customer, " +
+            "b.billing_entity_id, b.trade_number_or_citizen_id, b.trade_name AS billing_entity, " +
+            "sd.sale_detail_id, p.product_id, p.display_name AS product, " +
+            "sd.quantity, sd.unit_price, sd.total_price " +
+            "FROM sales s " +
+            "JOIN customers c ON s.customer_id = c.customer_id " +
+            "JOIN billing_entities b ON c.billing_entity_id = b.billing_entity_id " +
+            "LEFT JOIN sale_details sd ON sd.sale_id = s.sale_id " +
+            "LEFT JOIN products p ON sd.product_id = p.product_id " +
+            "WHERE s.order_date >= ? AND s.order_date < ?";
+
+    private static final String SALES_ORDER_BY = " ORDER BY s.order_date, s.sale_id, sd.sale_detail_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    @Autowired
+    public ExportServiceImpl(JdbcTemplate jdbcTemplate,
+                             @Value("${smesales.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    // Read-only, so a configured replica serves the export
+    @Override
+    @Transactional(readOnly = true)
+    public void exportSales(LocalDate from, LocalDate to, Integer customerId, Integer billingEntityId,
+                            OutputStream out) throws IOException {
+        // The range is inclusive of both days
+        StringBuilder sql = new StringBuilder(SALES_SQL);
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(from.atStartOfDay());
+        parameters.add(to.plusDays(1).atStartOfDay());
+        if (customerId != null) {
+            sql.append(" AND s.customer_id = ?");
+            parameters.add(customerId);
+        }
+        if (billingEntityId != null) {
+            sql.append(" AND c.billing_entity_id = ?");
+            parameters.add(billingEntityId);
+        }
+        sql.append(SALES_ORDER_BY);
+
+        CsvWriter csv = new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+        csv.record(SALES_HEADER);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                return statement;
+            }, (RowCallbackHandler) rs -> writeSaleRow(csv, rs));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        csv.flush();
+    }
+
+    private void writeSaleRow(CsvWriter csv, ResultSet rs) throws SQLException {
+        try {
+            csv.field(rs.getInt("sale_id"));
+            csv.field(rs.getString("invoice_id"));
+            csv.field(ORDER_DATE_FORMAT.format(rs.getObject("order_date", LocalDateTime.class)));
+            csv.field(plain(rs.getBigDecimal("total_amount")));
+            csv.field(rs.getInt("customer_id"));
+            csv.field(rs.getString("customer"));
+            csv.field(rs.getInt("billing_entity_id"));
+            csv.field(rs.getString("trade_number_or_citizen_id"));
+            csv.field(rs.getString("billing_entity"));
+            csv.field(rs.getObject("sale_detail_id", Integer.class));
+            csv.field(rs.getObject("product_id", Integer.class));
+            csv.field(rs.getString("product"));
+            csv.field(rs.getObject("quantity", Integer.class));
+            csv.field(plain(rs.getBigDecimal("unit_price")));
+            csv.field(plain(rs.getBigDecimal("total_price")));
+            csv.endRecord();
+        } catch (IOException e) {
+            // The client went away; abandon the query instead of reading the rest of the range
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : null;
+    }
+}
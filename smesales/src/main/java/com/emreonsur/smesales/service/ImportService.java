@@ -0,0 +1,14 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportReport importProducts(InputStream csv) throws IOException;
+
+    ImportReport importCustomers(InputStream csv) throws IOException;
+
+    ImportReport importBillingEntities(InputStream csv) throws IOException;
+}
@@ -0,0 +1,380 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.cache.ProductCatalogCache;
+import com.emreonsur.smesales.dto.ImportReport;
+import com.emreonsur.smesales.event.ProductChangedEvent;
+import com.emreonsur.smesales.importer.CsvReader;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.search.SearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bulk CSV import straight into the tables in JDBC batches, bypassing JPA
+@Service
+public class ImportServiceImpl implements ImportService {
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (formal_name, display_name, unit_price, stock_quantity, is_active, version) " +
+            "VALUES (?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_CUSTOMER_SQL =
+            "INSERT INTO customers (display_name, billing_entity_id, delivery_address, is_active, version) " +
+            "VALUES (?, ?, ?, ?, 0)";
+
+    private static final String INSERT_BILLING_ENTITY_SQL =
+            "INSERT INTO billing_entities (trade_number_or_citizen_id, entity_type, trade_name, tax_office, " +
+            "billing_address, current_balance, is_active, version) VALUES (?, ?, ?, ?, ?, 0, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCatalogCache productCatalogCache;
+    private final SearchIndex searchIndex;
+    private final int batchSize;
+    private final int maxErrors;
+
+    @Autowired
+    public ImportServiceImpl(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             ProductCatalogCache productCatalogCache,
+                             SearchIndex searchIndex,
+                             @Value("${smesales.import.batch-size:1000}") int batchSize,
+                             @Value("${smesales.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.productCatalogCache = productCatalogCache;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public ImportReport importProducts(InputStream csv) throws IOException {
+        try {
+            return importRows("products", csv,
+                    List.of("formal_name", "display_name", "unit_price", "stock_quantity"),
+                    this::parseProduct, new Insert<>(INSERT_PRODUCT_SQL, (statement, product) -> {
+                        statement.setString(1, product.formalName());
+                        statement.setString(2, product.displayName());
+                        statement.setBigDecimal(3, product.unitPrice());
+                        statement.setInt(4, product.stockQuantity());
+                        statement.setBoolean(5, product.isActive());
+                    }, "product_id", (product, productId) -> eventPublisher.publishEvent(
+                            new ProductChangedEvent(null, new ProductChangedEvent.Snapshot(productId,
+                                    product.formalName(), product.displayName(), Money.of(product.unitPrice()),
+                                    product.stockQuantity(), product.isActive())))));
+        } finally {
+            // The active product list is cached as a whole
+            productCatalogCache.invalidateAll();
+            searchIndex.rebuild();
+        }
+    }
+
+    @Override
+    public ImportReport importCustomers(InputStream csv) throws IOException {
+        try {
+            return importRows("customers", csv,
+                    List.of("display_name", "billing_entity_id", "delivery_address"),
+                    this::parseCustomer, Insert.of(INSERT_CUSTOMER_SQL, (statement, customer) -> {
+                        statement.setString(1, customer.displayName());
+                        statement.setInt(2, customer.billingEntityId());
+                        statement.setString(3, customer.deliveryAddress());
+                        statement.setBoolean(4, customer.isActive());
+                    }));
+        } finally {
+            searchIndex.rebuild();
+        }
+    }
+
+    @Override
+    public ImportReport importBillingEntities(InputStream csv) throws IOException {
+        try {
+            return importRows("billing-entities", csv,
+                    List.of("trade_number_or_citizen_id", "trade_name", "billing_address"),
+                    this::parseBillingEntity, Insert.of(INSERT_BILLING_ENTITY_SQL, (statement, billingEntity) -> {
+                        statement.setString(1, billingEntity.tradeNumberOrCitizenId());
+                        statement.setString(2, billingEntity.entityType());
+                        statement.setString(3, billingEntity.tradeName());
+                        statement.setString(4, billingEntity.taxOffice());
+                        statement.setString(5, billingEntity.billingAddress());
+                        statement.setBoolean(6, billingEntity.isActive());
+                    }));
+        } finally {
+            searchIndex.rebuild();
+        }
+    }
+
+    private ProductRow parseProduct(Row row) {
+        BigDecimal unitPrice = row.decimal("unit_price");
+        int stockQuantity = row.integer("stock_quantity");
+        // Same checks as the Insert_Product procedure
+        if (unitPrice.signum() < 0) {
+            throw new IllegalArgumentException("Unit price must be non-negative.");
+        }
+        if (stockQuantity < 0) {
+            throw new IllegalArgumentException("Stock quantity must be non-negative.");
+        }
+        return new ProductRow(row.required("formal_name"), row.required("display_name"),
+                unitPrice, stockQuantity, row.bool("is_active"));
+    }
+
+    private CustomerRow parseCustomer(Row row) {
+        return new CustomerRow(row.required("display_name"), row.integer("billing_entity_id"),
+                row.required("delivery_address"), row.bool("is_active"));
+    }
+
+    private BillingEntityRow parseBillingEntity(Row row) {
+        String id = row.required("trade_number_or_citizen_id");
+        // Same check as the Insert_Billing_Entity procedure; the type follows from the length
+        // as in the billing_entities insert trigger
+        if (id.length() != 10 && id.length() != 11) {
+            throw new IllegalArgumentException("ID must be 10 digits (trade number) or 11 digits (citizenship ID)");
+        }
+        String entityType = id.length() == 11 ? "Natural Person" : "Legal Entity";
+        return new BillingEntityRow(id, entityType, row.required("trade_name"), row.optional("tax_office"),
+                row.required("billing_address"), row.bool("is_active"));
+    }
+
+    private <T> ImportReport importRows(String target,
+                                        InputStream csv,
+                                        List<String> requiredColumns,
+                                        RowParser<T> parser,
+                                        Insert<T> insert) throws IOException {
+        Tally tally = new Tally(target, maxErrors);
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            Map<String, Integer> columns = columns(header, requiredColumns);
+
+            List<Line<T>> batch = new ArrayList<>(batchSize);
+            while (true) {
+                List<String> fields;
+                try {
+                    fields = reader.next();
+                } catch (IllegalArgumentException e) {
+                    // Malformed quoting leaves no reliable place to resume from
+                    tally.rowsRead++;
+                    tally.fail(reader.recordLine(), e.getMessage());
+                    break;
+                }
+                if (fields == null) {
+                    break;
+                }
+
+                tally.rowsRead++;
+                try {
+                    batch.add(new Line<>(reader.recordLine(), parser.parse(new Row(columns, fields))));
+                } catch (IllegalArgumentException e) {
+                    tally.fail(reader.recordLine(), e.getMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    write(insert, batch, tally);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(insert, batch, tally);
+            }
+        }
+        return tally.toReport();
+    }
+
+    private <T> void write(Insert<T> insert, List<Line<T>> batch, Tally tally) {
+        BatchFallback.write(batch,
+                lines -> {
+                    List<T> rows = lines.stream().map(Line::row).toList();
+                    transactionTemplate.executeWithoutResult(status -> insertAll(insert, rows));
+                    return rows;
+                },
+                (line, row) -> tally.rowsImported++,
+                (line, message) -> tally.fail(line.number(), message));
+    }
+
+    private <T> void insertAll(Insert<T> insert, List<T> rows) {
+        if (insert.listener() == null) {
+            jdbcTemplate.batchUpdate(insert.sql(), rows, rows.size(), insert.setter());
+            return;
+        }
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(insert.sql(), new String[]{insert.idColumn()}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        insert.setter().setValues(statement, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                ids);
+        List<Map<String, Object>> keys = ids.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            insert.listener().inserted(rows.get(i), ((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+    }
+
+    private static Map<String, Integer> columns(List<String> header, List<String> requiredColumns) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : requiredColumns) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Missing CSV column: " + column);
+            }
+        }
+        return columns;
+    }
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(Row row);
+    }
+
+    // Told about every row inserted, with its generated ID, inside the inserting transaction
+    @FunctionalInterface
+    private interface InsertListener<T> {
+        void inserted(T row, int id);
+    }
+
+    // How rows of one kind are inserted; without a listener their IDs are not read back
+    private record Insert<T>(String sql, ParameterizedPreparedStatementSetter<T> setter,
+                             String idColumn, InsertListener<T> listener) {
+        private static <T> Insert<T> of(String sql, ParameterizedPreparedStatementSetter<T> setter) {
+            return new Insert<>(sql, setter, null, null);
+        }
+    }
+
+    private record Line<T>(long number, T row) {
+    }
+
+    private record ProductRow(String formalName, String displayName, BigDecimal unitPrice,
+                              int stockQuantity, boolean isActive) {
+    }
+
+    private record CustomerRow(String displayName, int billingEntityId, String deliveryAddress,
+                               boolean isActive) {
+    }
+
+    private record BillingEntityRow(String tradeNumberOrCitizenId, String entityType, String tradeName,
+                                    String taxOffice, String billingAddress, boolean isActive) {
+    }
+
+    // One CSV record, read by column name
+    private static final class Row {
+        private final Map<String, Integer> columns;
+        private final List<String> fields;
+
+        private Row(Map<String, Integer> columns, List<String> fields) {
+            if (fields.size() != columns.size()) {
+                throw new IllegalArgumentException(
+                        "Expected " + columns.size() + " fields but found " + fields.size());
+            }
+            this.columns = columns;
+            this.fields = fields;
+        }
+
+        private String optional(String column) {
+            Integer index = columns.get(column);
+            if (index == null) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private String required(String column) {
+            String value = optional(column);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for " + column);
+            }
+            return value;
+        }
+
+        private int integer(String column) {
+            String value = required(column);
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid integer for " + column + ": " + value);
+            }
+        }
+
+        private BigDecimal decimal(String column) {
+            String value = required(column);
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + column + ": " + value);
+            }
+        }
+
+        // Missing means active, as the is_active column defaults to TRUE
+        private boolean bool(String column) {
+            String value = optional(column);
+            if (value == null) {
+                return true;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "true", "1", "yes" -> true;
+                case "false", "0", "no" -> false;
+                default -> throw new IllegalArgumentException("Invalid boolean for " + column + ": " + value);
+            };
+        }
+    }
+
+    // Running counts for one import; keeps only the first 'maxErrors' row errors
+    private static final class Tally {
+        private final String target;
+        private final int maxErrors;
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+
+        private Tally(String target, int maxErrors) {
+            this.target = target;
+            this.maxErrors = maxErrors;
+        }
+
+        private void fail(long line, String message) {
+            rowsFailed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+
+        private ImportReport toReport() {
+            return new ImportReport(target, rowsRead, rowsImported, rowsFailed,
+                    List.copyOf(errors), rowsFailed > errors.size());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.exception.ConcurrentUpdateException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs a read-modify-write of one versioned row in its own transaction. A change
+// with an If-Match version conflicts on a lost race; one without is retried with backoff.
+@Component
+public class OptimisticUpdates {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    @Autowired
+    public OptimisticUpdates(TransactionTemplate transactionTemplate,
+                             @Value("${smesales.updates.max-attempts:3}") int maxAttempts,
+                             @Value("${smesales.updates.retry-backoff:20ms}") Duration retryBackoff) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public <T> T execute(String resource, Integer id, Long expectedVersion, Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> update.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= maxAttempts) {
+                    throw new ConcurrentUpdateException(resource, id);
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(retryBackoff.toMillis() * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying an update", e);
+        }
+    }
+
+    // Fails when the client based its change on another version than the stored one
+    public static void checkVersion(String resource, Integer id, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !Objects.equals(expectedVersion, version)) {
+            throw new ConcurrentUpdateException(resource, id);
+        }
+    }
+
+    // A patch field left out of the request keeps its current value
+    public static <T> T patched(T value, T current) {
+        return value != null ? value : current;
+    }
+}
@@ -1,9 +1,11 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.CursorPage;
 import com.emreonsur.smesales.entity.Payment;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PaymentService {
     List<Payment> getAllPayments();
@@ -12,9 +14,17 @@ public interface PaymentService {
 
     List<Payment> getPaymentsByCustomerId(Integer customerId);
 
+    CursorPage<Payment> getPaymentsPage(String cursor, int size);
+
+    void streamPayments(Consumer<Payment> consumer);
+
     Payment createPayment(Payment payment);
 
+    List<Payment> createPayments(List<Payment> payments);
+
     Payment updatePayment(Integer id, Payment payment);
 
+    Payment patchPayment(Integer id, Payment patch, Long expectedVersion);
+
     void deletePayment(Integer id);
 }
\ No newline at end of file
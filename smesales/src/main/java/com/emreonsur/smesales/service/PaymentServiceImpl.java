@@ -1,57 +1,157 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.entity.Customer;
 import com.emreonsur.smesales.entity.Payment;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
 import com.emreonsur.smesales.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository paymentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public PaymentServiceImpl(PaymentRepository paymentRepository) {
+    public PaymentServiceImpl(PaymentRepository paymentRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              EntityManager entityManager,
+                              OptimisticUpdates optimisticUpdates) {
         this.paymentRepository = paymentRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Payment> getPaymentById(Integer id) {
         return paymentRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Payment> getPaymentsByCustomerId(Integer customerId) {
         return paymentRepository.findByCustomer_Id(customerId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Payment> getPaymentsPage(String cursor, int size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        Integer afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            afterId = Integer.valueOf(KeysetCursor.decode(cursor, 1)[0]);
+        }
+
+        List<Payment> payments = paymentRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
+
+        String nextCursor = null;
+        if (payments.size() == pageSize) {
+            nextCursor = KeysetCursor.encode(payments.get(payments.size() - 1).getId());
+        }
+        return new CursorPage<>(payments, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPayments(Consumer<Payment> consumer) {
+        EntityStreams.forEachChunked(paymentRepository.streamAll(), entityManager, consumer);
+    }
+
+    @Override
+    @Transactional
     public Payment createPayment(Payment payment) {
-        return paymentRepository.save(payment);
+        attachCustomer(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(new PaymentChangedEvent(null, PaymentChangedEvent.Snapshot.of(savedPayment)));
+        return savedPayment;
     }
 
+    // One transaction for the whole list, so bulk callers pay for one commit per batch
     @Override
+    @Transactional
+    public List<Payment> createPayments(List<Payment> payments) {
+        payments.forEach(this::attachCustomer);
+        List<Payment> savedPayments = paymentRepository.saveAll(payments);
+        for (Payment savedPayment : savedPayments) {
+            eventPublisher.publishEvent(new PaymentChangedEvent(null, PaymentChangedEvent.Snapshot.of(savedPayment)));
+        }
+        return savedPayments;
+    }
+
+    @Override
+    @Transactional
     public Payment updatePayment(Integer id, Payment updatedPayment) {
-        return paymentRepository.findById(id).map(existingPayment -> {
-            existingPayment.setCustomer(updatedPayment.getCustomer());
-            existingPayment.setPaymentDate(updatedPayment.getPaymentDate());
-            existingPayment.setAmount(updatedPayment.getAmount());
-            existingPayment.setMethod(updatedPayment.getMethod());
-            existingPayment.setReferenceCode(updatedPayment.getReferenceCode());
-            existingPayment.setNotes(updatedPayment.getNotes());
-            return paymentRepository.save(existingPayment);
-        }).orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
+        return paymentRepository.findById(id)
+                .map(existingPayment -> applyUpdate(existingPayment, updatedPayment))
+                .orElseThrow(() -> new ResourceNotFoundException("Payment", id));
     }
 
     @Override
+    public Payment patchPayment(Integer id, Payment patch, Long expectedVersion) {
+        return optimisticUpdates.execute("Payment", id, expectedVersion, () -> {
+            Payment existingPayment = paymentRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payment", id));
+            OptimisticUpdates.checkVersion("Payment", id, expectedVersion, existingPayment.getVersion());
+            Payment updatedPayment = new Payment();
+            updatedPayment.setCustomer(patched(patch.getCustomer(), existingPayment.getCustomer()));
+            updatedPayment.setPaymentDate(patched(patch.getPaymentDate(), existingPayment.getPaymentDate()));
+            updatedPayment.setAmount(patched(patch.getAmount(), existingPayment.getAmount()));
+            updatedPayment.setMethod(patched(patch.getMethod(), existingPayment.getMethod()));
+            updatedPayment.setReferenceCode(patched(patch.getReferenceCode(), existingPayment.getReferenceCode()));
+            updatedPayment.setNotes(patched(patch.getNotes(), existingPayment.getNotes()));
+            return applyUpdate(existingPayment, updatedPayment);
+        });
+    }
+
+    private Payment applyUpdate(Payment existingPayment, Payment updatedPayment) {
+        PaymentChangedEvent.Snapshot before = PaymentChangedEvent.Snapshot.of(existingPayment);
+        attachCustomer(updatedPayment);
+        existingPayment.setCustomer(updatedPayment.getCustomer());
+        existingPayment.setPaymentDate(updatedPayment.getPaymentDate());
+        existingPayment.setAmount(updatedPayment.getAmount());
+        existingPayment.setMethod(updatedPayment.getMethod());
+        existingPayment.setReferenceCode(updatedPayment.getReferenceCode());
+        existingPayment.setNotes(updatedPayment.getNotes());
+        Payment savedPayment = paymentRepository.save(existingPayment);
+        eventPublisher.publishEvent(new PaymentChangedEvent(before, PaymentChangedEvent.Snapshot.of(savedPayment)));
+        return savedPayment;
+    }
+
+    @Override
+    @Transactional
     public void deletePayment(Integer id) {
-        paymentRepository.deleteById(id);
+        paymentRepository.findById(id).ifPresent(payment -> {
+            paymentRepository.delete(payment);
+            eventPublisher.publishEvent(new PaymentChangedEvent(PaymentChangedEvent.Snapshot.of(payment), null));
+        });
+    }
+
+    // Request bodies name the customer by ID only; being versioned, it is attached as a reference
+    private void attachCustomer(Payment payment) {
+        if (payment.getCustomer() != null && payment.getCustomer().getId() != null) {
+            payment.setCustomer(entityManager.getReference(Customer.class, payment.getCustomer().getId()));
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.ProductCacheStats;
 import com.emreonsur.smesales.entity.Product;
 
 import java.util.List;
@@ -10,9 +11,23 @@ public interface ProductService {
 
     Optional<Product> getProductById(Integer id);
 
+    Optional<Product> getProductByDisplayName(String displayName);
+
+    Optional<Product> getProductByFormalName(String formalName);
+
+    List<Product> getActiveProducts();
+
+    String getProductsETag();
+
+    String getActiveProductsETag();
+
     Product createProduct(Product product);
 
     Product updateProduct(Integer id, Product product);
 
+    Product patchProduct(Integer id, Product patch, Long expectedVersion);
+
     void deleteProduct(Integer id);
-}
\ No newline at end of file
+
+    ProductCacheStats getCacheStats();
+}
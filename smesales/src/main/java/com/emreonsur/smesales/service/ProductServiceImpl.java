@@ -1,20 +1,46 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.cache.ProductCatalogCache;
+import com.emreonsur.smesales.dto.ProductCacheStats;
 import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.event.ProductChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.inventory.StockLedger;
 import com.emreonsur.smesales.repository.ProductRepository;
+import com.emreonsur.smesales.search.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
+
 @Service
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final StockLedger stockLedger;
+    private final SearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository,
+                              ProductCatalogCache productCatalogCache,
+                              StockLedger stockLedger,
+                              SearchIndex searchIndex,
+                              ApplicationEventPublisher eventPublisher,
+                              OptimisticUpdates optimisticUpdates) {
         this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.stockLedger = stockLedger;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
     @Override
@@ -24,28 +50,101 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Optional<Product> getProductById(Integer id) {
-        return productRepository.findById(id);
+        return productCatalogCache.getById(id, productRepository::findById);
+    }
+
+    @Override
+    public Optional<Product> getProductByDisplayName(String displayName) {
+        return productCatalogCache.getByDisplayName(displayName, productRepository::findByDisplayName);
+    }
+
+    @Override
+    public Optional<Product> getProductByFormalName(String formalName) {
+        return productCatalogCache.getByFormalName(formalName, productRepository::findByFormalName);
+    }
+
+    @Override
+    public List<Product> getActiveProducts() {
+        return productCatalogCache.getActive(productRepository::findByIsActiveTrue);
+    }
+
+    @Override
+    public String getProductsETag() {
+        return productRepository.findCollectionVersion().eTag();
+    }
+
+    @Override
+    public String getActiveProductsETag() {
+        return productRepository.findActiveCollectionVersion().eTag();
     }
 
     @Override
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCatalogCache.evict(saved);
+        searchIndex.index(saved);
+        eventPublisher.publishEvent(new ProductChangedEvent(null, ProductChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
 
     @Override
+    @Transactional
     public Product updateProduct(Integer id, Product updatedProduct) {
-        return productRepository.findById(id).map(existingProduct -> {
-            existingProduct.setFormalName(updatedProduct.getFormalName());
-            existingProduct.setDisplayName(updatedProduct.getDisplayName());
-            existingProduct.setUnitPrice(updatedProduct.getUnitPrice());
-            existingProduct.setStockQuantity(updatedProduct.getStockQuantity());
-            existingProduct.setIsActive(updatedProduct.getIsActive());
-            return productRepository.save(existingProduct);
-        }).orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return productRepository.findById(id)
+                .map(existingProduct -> applyUpdate(existingProduct, updatedProduct))
+                .orElseThrow(() -> new ResourceNotFoundException("Product", id));
+    }
+
+    @Override
+    public Product patchProduct(Integer id, Product patch, Long expectedVersion) {
+        return optimisticUpdates.execute("Product", id, expectedVersion, () -> {
+            Product existingProduct = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", id));
+            OptimisticUpdates.checkVersion("Product", id, expectedVersion, existingProduct.getVersion());
+            Product updatedProduct = new Product();
+            updatedProduct.setFormalName(patched(patch.getFormalName(), existingProduct.getFormalName()));
+            updatedProduct.setDisplayName(patched(patch.getDisplayName(), existingProduct.getDisplayName()));
+            updatedProduct.setUnitPrice(patched(patch.getUnitPrice(), existingProduct.getUnitPrice()));
+            updatedProduct.setStockQuantity(patched(patch.getStockQuantity(), existingProduct.getStockQuantity()));
+            updatedProduct.setIsActive(patched(patch.getIsActive(), existingProduct.getIsActive()));
+            return applyUpdate(existingProduct, updatedProduct);
+        });
+    }
+
+    private Product applyUpdate(Product existingProduct, Product updatedProduct) {
+        // Evict under the old names before they are overwritten
+        productCatalogCache.evict(existingProduct);
+        ProductChangedEvent.Snapshot before = ProductChangedEvent.Snapshot.of(existingProduct);
+        boolean stockChanged = !Objects.equals(existingProduct.getStockQuantity(), updatedProduct.getStockQuantity());
+        existingProduct.setFormalName(updatedProduct.getFormalName());
+        existingProduct.setDisplayName(updatedProduct.getDisplayName());
+        existingProduct.setUnitPrice(updatedProduct.getUnitPrice());
+        existingProduct.setStockQuantity(updatedProduct.getStockQuantity());
+        existingProduct.setIsActive(updatedProduct.getIsActive());
+        if (stockChanged) {
+            stockLedger.resyncAfterCommit(existingProduct.getId());
+        }
+        Product saved = productRepository.save(existingProduct);
+        searchIndex.index(saved);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteProduct(Integer id) {
-        productRepository.deleteById(id);
+        productRepository.findById(id).ifPresent(product -> {
+            productCatalogCache.evict(id);
+            productRepository.delete(product);
+            stockLedger.forget(id);
+            searchIndex.remove(SearchIndex.Type.PRODUCT, id);
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Snapshot.of(product), null));
+        });
+    }
+
+    @Override
+    public ProductCacheStats getCacheStats() {
+        return productCatalogCache.stats();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ReceivablesView;
+import com.emreonsur.smesales.entity.PaymentAllocation;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReceivablesService {
+    Optional<ReceivablesView> getReceivables(Integer billingEntityId);
+
+    List<PaymentAllocation> getAllocations(Integer billingEntityId);
+
+    List<PaymentAllocation> getAllocationsByPaymentId(Integer paymentId);
+
+    void allocate(Integer billingEntityId);
+
+    void allocatePending();
+}
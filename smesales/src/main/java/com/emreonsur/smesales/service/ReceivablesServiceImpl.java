@@ -0,0 +1,284 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ReceivablesView;
+import com.emreonsur.smesales.entity.PaymentAllocation;
+import com.emreonsur.smesales.entity.PaymentCredit;
+import com.emreonsur.smesales.entity.SaleReceivable;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.BillingEntityRepository;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.PaymentAllocationRepository;
+import com.emreonsur.smesales.repository.PaymentCreditRepository;
+import com.emreonsur.smesales.repository.SaleReceivableRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// FIFO allocation of payments to the sales they settle, under a lock on the billing
+// entity's row. Matches missed by concurrent writers are caught up by the sweep.
+@Service
+public class ReceivablesServiceImpl implements ReceivablesService {
+    private final SaleReceivableRepository saleReceivableRepository;
+    private final PaymentCreditRepository paymentCreditRepository;
+    private final PaymentAllocationRepository paymentAllocationRepository;
+    private final BillingEntityRepository billingEntityRepository;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ReceivablesServiceImpl(SaleReceivableRepository saleReceivableRepository,
+                                  PaymentCreditRepository paymentCreditRepository,
+                                  PaymentAllocationRepository paymentAllocationRepository,
+                                  BillingEntityRepository billingEntityRepository,
+                                  CustomerRepository customerRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.saleReceivableRepository = saleReceivableRepository;
+        this.paymentCreditRepository = paymentCreditRepository;
+        this.paymentAllocationRepository = paymentAllocationRepository;
+        this.billingEntityRepository = billingEntityRepository;
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Buckets are by days since the order date, so they are computed on read from the open receivables only
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ReceivablesView> getReceivables(Integer billingEntityId) {
+        if (!billingEntityRepository.existsById(billingEntityId)) {
+            return Optional.empty();
+        }
+        LocalDate today = LocalDate.now();
+        long[] buckets = new long[4];
+        for (SaleReceivable receivable : saleReceivableRepository.findOpenByBillingEntityId(billingEntityId)) {
+            long days = ChronoUnit.DAYS.between(receivable.getOrderDate().toLocalDate(), today);
+            int bucket = days <= 30 ? 0 : days <= 60 ? 1 : days <= 90 ? 2 : 3;
+            buckets[bucket] += receivable.getTotalAmount().minus(receivable.getAllocatedAmount()).minorUnits();
+        }
+        long open = buckets[0] + buckets[1] + buckets[2] + buckets[3];
+        return Optional.of(new ReceivablesView(billingEntityId, today, Money.ofMinor(open),
+                Money.of(paymentCreditRepository.sumOpenByBillingEntityId(billingEntityId)),
+                Money.ofMinor(buckets[0]), Money.ofMinor(buckets[1]),
+                Money.ofMinor(buckets[2]), Money.ofMinor(buckets[3])));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PaymentAllocation> getAllocations(Integer billingEntityId) {
+        return paymentAllocationRepository.findByBillingEntityIdOrderByIdDesc(billingEntityId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PaymentAllocation> getAllocationsByPaymentId(Integer paymentId) {
+        return paymentAllocationRepository.findByPaymentId(paymentId);
+    }
+
+    @EventListener
+    public void onSaleChanged(SaleChangedEvent event) {
+        SaleChangedEvent.Snapshot before = event.before();
+        SaleChangedEvent.Snapshot after = event.after();
+        Integer beforeEntityId = before != null ? billingEntityIdOf(before.customerId()) : null;
+        Integer afterEntityId = after != null ? billingEntityIdOf(after.customerId()) : null;
+
+        if (before == null) {
+            saleReceivableRepository.save(receivableOf(after, afterEntityId));
+            if (paymentCreditRepository.existsOpenByBillingEntityId(afterEntityId)) {
+                allocate(afterEntityId);
+            }
+            return;
+        }
+        if (after != null && beforeEntityId.equals(afterEntityId) && before.orderDate().equals(after.orderDate())) {
+            moveTotal(after, afterEntityId, after.totalAmount().minus(before.totalAmount()));
+            return;
+        }
+
+        // The sale's allocations are given back and its payments matched again from scratch
+        lock(beforeEntityId, afterEntityId);
+        releaseSale(before.saleId());
+        if (after != null) {
+            saleReceivableRepository.save(receivableOf(after, afterEntityId));
+        } else {
+            saleReceivableRepository.deleteById(before.saleId());
+        }
+        allocate(beforeEntityId);
+        if (afterEntityId != null && !afterEntityId.equals(beforeEntityId)) {
+            allocate(afterEntityId);
+        }
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        PaymentChangedEvent.Snapshot before = event.before();
+        PaymentChangedEvent.Snapshot after = event.after();
+        Integer beforeEntityId = before != null ? billingEntityIdOf(before) : null;
+        Integer afterEntityId = after != null ? billingEntityIdOf(after) : null;
+
+        if (before != null && after != null && beforeEntityId.equals(afterEntityId)
+                && before.amount().equals(after.amount())
+                && before.paymentDate().equals(after.paymentDate())) {
+            return;
+        }
+
+        lock(beforeEntityId, afterEntityId);
+        if (before != null) {
+            releasePayment(before.paymentId());
+            if (after == null) {
+                paymentCreditRepository.deleteById(before.paymentId());
+            }
+        }
+        if (after != null) {
+            paymentCreditRepository.save(creditOf(after, afterEntityId));
+            allocate(afterEntityId);
+        }
+        if (beforeEntityId != null && !beforeEntityId.equals(afterEntityId)) {
+            allocate(beforeEntityId);
+        }
+    }
+
+    // No billing entity lock: the sale's row is held already and allocation locks in the
+    // other order. The sweep rebalances the allocations later.
+    private void moveTotal(SaleChangedEvent.Snapshot sale, Integer billingEntityId, Money amount) {
+        if (amount.isZero()) {
+            return;
+        }
+        if (saleReceivableRepository.addToTotalAmount(sale.saleId(), amount) == 0) {
+            saleReceivableRepository.save(receivableOf(sale, billingEntityId));
+        }
+    }
+
+    // Matches the oldest open credits against the oldest open sales until either runs out
+    @Override
+    @Transactional
+    public void allocate(Integer billingEntityId) {
+        lock(billingEntityId);
+        // Sales that shrank below their allocations give them back and are matched again
+        for (SaleReceivable receivable : saleReceivableRepository.findOverAllocatedByBillingEntityId(billingEntityId)) {
+            releaseSale(receivable.getSaleId());
+            receivable.setAllocatedAmount(Money.ZERO);
+        }
+        List<PaymentCredit> credits = paymentCreditRepository.findOpenByBillingEntityId(billingEntityId);
+        if (credits.isEmpty()) {
+            return;
+        }
+        List<SaleReceivable> receivables = saleReceivableRepository.findOpenByBillingEntityId(billingEntityId);
+        if (receivables.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentAllocation> allocations = new ArrayList<>();
+        int c = 0;
+        int r = 0;
+        while (c < credits.size() && r < receivables.size()) {
+            PaymentCredit credit = credits.get(c);
+            SaleReceivable receivable = receivables.get(r);
+            Money amount = credit.getAmount().minus(credit.getAllocatedAmount())
+                    .min(receivable.getTotalAmount().minus(receivable.getAllocatedAmount()));
+
+            if (amount.signum() > 0) {
+                credit.setAllocatedAmount(credit.getAllocatedAmount().plus(amount));
+                receivable.setAllocatedAmount(receivable.getAllocatedAmount().plus(amount));
+                allocations.add(allocationOf(billingEntityId, credit.getPaymentId(), receivable.getSaleId(),
+                        amount, now));
+            }
+            if (credit.getAllocatedAmount().compareTo(credit.getAmount()) >= 0) {
+                c++;
+            }
+            if (receivable.getAllocatedAmount().compareTo(receivable.getTotalAmount()) >= 0) {
+                r++;
+            }
+        }
+        paymentAllocationRepository.saveAll(allocations);
+    }
+
+    // Picks up matches missed by concurrent writers, and the rows backfilled by the schema migration
+    @Override
+    @Scheduled(fixedDelayString = "${smesales.receivables.allocation-interval:1m}")
+    public void allocatePending() {
+        List<Integer> billingEntityIds = transactionTemplate.execute(
+                status -> paymentCreditRepository.findBillingEntityIdsToAllocate());
+        for (Integer billingEntityId : billingEntityIds) {
+            transactionTemplate.executeWithoutResult(status -> allocate(billingEntityId));
+        }
+    }
+
+    private void releaseSale(Integer saleId) {
+        for (PaymentAllocation allocation : paymentAllocationRepository.findBySaleId(saleId)) {
+            paymentCreditRepository.findById(allocation.getPaymentId()).ifPresent(credit ->
+                    credit.setAllocatedAmount(credit.getAllocatedAmount().minus(allocation.getAmount())));
+            paymentAllocationRepository.delete(allocation);
+        }
+    }
+
+    private void releasePayment(Integer paymentId) {
+        for (PaymentAllocation allocation : paymentAllocationRepository.findByPaymentId(paymentId)) {
+            saleReceivableRepository.findById(allocation.getSaleId()).ifPresent(receivable ->
+                    receivable.setAllocatedAmount(receivable.getAllocatedAmount().minus(allocation.getAmount())));
+            paymentAllocationRepository.delete(allocation);
+        }
+    }
+
+    // Locks in ID order, so two writers touching the same pair of billing entities cannot deadlock
+    private void lock(Integer... billingEntityIds) {
+        Stream.of(billingEntityIds)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(billingEntityRepository::lockById);
+    }
+
+    private SaleReceivable receivableOf(SaleChangedEvent.Snapshot sale, Integer billingEntityId) {
+        SaleReceivable receivable = saleReceivableRepository.findById(sale.saleId()).orElseGet(SaleReceivable::new);
+        receivable.setSaleId(sale.saleId());
+        receivable.setBillingEntityId(billingEntityId);
+        receivable.setOrderDate(sale.orderDate());
+        receivable.setTotalAmount(sale.totalAmount());
+        receivable.setAllocatedAmount(Money.ZERO);
+        return receivable;
+    }
+
+    private PaymentCredit creditOf(PaymentChangedEvent.Snapshot payment, Integer billingEntityId) {
+        PaymentCredit credit = paymentCreditRepository.findById(payment.paymentId()).orElseGet(PaymentCredit::new);
+        credit.setPaymentId(payment.paymentId());
+        credit.setBillingEntityId(billingEntityId);
+        credit.setPaymentDate(payment.paymentDate());
+        credit.setAmount(payment.amount());
+        credit.setAllocatedAmount(Money.ZERO);
+        return credit;
+    }
+
+    private static PaymentAllocation allocationOf(Integer billingEntityId, Integer paymentId, Integer saleId,
+                                                  Money amount, LocalDateTime allocatedAt) {
+        PaymentAllocation allocation = new PaymentAllocation();
+        allocation.setBillingEntityId(billingEntityId);
+        allocation.setPaymentId(paymentId);
+        allocation.setSaleId(saleId);
+        allocation.setAmount(amount);
+        allocation.setAllocatedAt(allocatedAt);
+        return allocation;
+    }
+
+    private Integer billingEntityIdOf(PaymentChangedEvent.Snapshot payment) {
+        return payment.billingEntityId() != null ? payment.billingEntityId() : billingEntityIdOf(payment.customerId());
+    }
+
+    private Integer billingEntityIdOf(Integer customerId) {
+        return customerRepository.findBillingEntityIdById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", customerId));
+    }
+}
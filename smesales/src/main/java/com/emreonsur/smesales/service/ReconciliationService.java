@@ -0,0 +1,12 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ReconciliationReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ReconciliationService {
+    ReconciliationReport reconcileFile(String fileName, boolean createMissing) throws IOException;
+
+    ReconciliationReport reconcile(InputStream statement, boolean createMissing) throws IOException;
+}
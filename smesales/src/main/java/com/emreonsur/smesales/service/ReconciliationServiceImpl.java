@@ -0,0 +1,423 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ImportReport;
+import com.emreonsur.smesales.dto.ReconciliationReport;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Payment;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.importer.StatementReader;
+import com.emreonsur.smesales.money.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reconciles bank statements against the payments of the statement's date range,
+// matched by reference, amount and date
+@Service
+public class ReconciliationServiceImpl implements ReconciliationService {
+    private static final String PAYMENTS_IN_RANGE_SQL =
+            "SELECT payment_id, payment_date, amount, reference_code FROM payments " +
+            "WHERE payment_date >= ? AND payment_date < ?";
+
+    private static final String CREATED_PAYMENT_METHOD = "bank transfer";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PaymentService paymentService;
+    private final Path directory;
+    private final int dateToleranceDays;
+    private final int batchSize;
+    private final int maxReportLines;
+
+    @Autowired
+    public ReconciliationServiceImpl(JdbcTemplate jdbcTemplate,
+                                     PaymentService paymentService,
+                                     @Value("${smesales.reconciliation.directory:statements}") String directory,
+                                     @Value("${smesales.reconciliation.date-tolerance-days:3}") int dateToleranceDays,
+                                     @Value("${smesales.reconciliation.batch-size:1000}") int batchSize,
+                                     @Value("${smesales.reconciliation.max-report-lines:1000}") int maxReportLines) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentService = paymentService;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.dateToleranceDays = dateToleranceDays;
+        this.batchSize = batchSize;
+        this.maxReportLines = maxReportLines;
+    }
+
+    // Only files inside the statements directory can be read
+    @Override
+    public ReconciliationReport reconcileFile(String fileName, boolean createMissing) throws IOException {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) {
+            throw new IllegalArgumentException("Statement file must be inside the statements directory");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Statement file not found: " + fileName);
+        }
+        return reconcile(fileName, file, createMissing);
+    }
+
+    // An uploaded statement is spooled to a temporary file so it can be mapped like a local one
+    @Override
+    public ReconciliationReport reconcile(InputStream statement, boolean createMissing) throws IOException {
+        Path file = Files.createTempFile("statement", ".txt");
+        try {
+            Files.copy(statement, file, StandardCopyOption.REPLACE_EXISTING);
+            return reconcile("upload", file, createMissing);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private ReconciliationReport reconcile(String source, Path file, boolean createMissing) throws IOException {
+        Report report = new Report(source, maxReportLines);
+        StatementLines lines = read(file, report);
+        if (lines.size == 0) {
+            return report.toReport();
+        }
+        PaymentIndex payments = loadPayments(lines);
+
+        // Clean matches first, so a weaker match on an earlier line cannot take their payment
+        int[] matchedPayments = new int[lines.size];
+        Arrays.fill(matchedPayments, -1);
+        for (int i = 0; i < lines.size; i++) {
+            matchedPayments[i] = payments.claimExact(lines.references[i], lines.cents[i], lines.days[i]);
+        }
+
+        List<Integer> pending = new ArrayList<>(batchSize);
+        for (int i = 0; i < lines.size; i++) {
+            if (matchedPayments[i] >= 0) {
+                report.matched(lines.line(i, payments.ids[matchedPayments[i]], null));
+                continue;
+            }
+            if (classifySuspicious(lines, i, payments, report)) {
+                continue;
+            }
+            if (createMissing && lines.customerIds[i] > 0) {
+                pending.add(i);
+                if (pending.size() == batchSize) {
+                    createPayments(lines, pending, report);
+                    pending.clear();
+                }
+            } else {
+                report.unmatched(lines.line(i, null, lines.customerIds[i] > 0
+                        ? "No payment found" : "No payment found and no customer to create one for"));
+            }
+        }
+        if (!pending.isEmpty()) {
+            createPayments(lines, pending, report);
+        }
+        return report.toReport();
+    }
+
+    private boolean classifySuspicious(StatementLines lines, int i, PaymentIndex payments, Report report) {
+        String reference = lines.references[i];
+        int[] sameReference = reference != null ? payments.byReference.get(reference) : null;
+        if (sameReference != null) {
+            int payment = sameReference[0];
+            boolean duplicate = false;
+            for (int p : sameReference) {
+                if (payments.agrees(p, lines.cents[i], lines.days[i])) {
+                    payment = p;
+                    duplicate = true;
+                    break;
+                }
+            }
+            String reason = duplicate
+                    ? "Payment is already matched to another statement line"
+                    : payments.cents[payment] != lines.cents[i]
+                    ? "Reference matches but the amount differs"
+                    : "Reference matches but the date differs by more than " + dateToleranceDays + " days";
+            report.suspicious(lines.line(i, payments.ids[payment], reason));
+            return true;
+        }
+
+        int payment = payments.claimByAmountAndDay(lines.cents[i], lines.days[i]);
+        if (payment >= 0) {
+            report.suspicious(lines.line(i, payments.ids[payment], "Amount and date match but the reference does not"));
+            return true;
+        }
+        return false;
+    }
+
+    private void createPayments(StatementLines lines, List<Integer> pending, Report report) {
+        // A failed line also covers one naming a customer that does not exist
+        BatchFallback.write(pending,
+                batch -> paymentService.createPayments(batch.stream().map(i -> paymentOf(lines, i)).toList()),
+                (i, created) -> report.created(lines.line(i, created.getId(), "Payment created")),
+                (i, message) -> {
+                    report.error(lines.lineNumbers[i], message);
+                    report.unmatched(lines.line(i, null, "No payment found and creating one failed"));
+                });
+    }
+
+    private static Payment paymentOf(StatementLines lines, int i) {
+        Customer customer = new Customer();
+        customer.setId(lines.customerIds[i]);
+        Payment payment = new Payment();
+        payment.setCustomer(customer);
+        payment.setPaymentDate(LocalDate.ofEpochDay(lines.days[i]).atStartOfDay());
+        payment.setAmount(Money.ofMinor(lines.cents[i]));
+        payment.setMethod(CREATED_PAYMENT_METHOD);
+        payment.setReferenceCode(lines.references[i]);
+        payment.setNotes("Created by bank statement reconciliation, line " + lines.lineNumbers[i]);
+        return payment;
+    }
+
+    private StatementLines read(Path file, Report report) throws IOException {
+        StatementLines lines = new StatementLines();
+        try (StatementReader reader = StatementReader.open(file)) {
+            while (true) {
+                try {
+                    if (!reader.next()) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    report.linesRead++;
+                    report.error(reader.line(), e.getMessage());
+                    continue;
+                }
+                report.linesRead++;
+                if (reader.amountCents() <= 0) {
+                    // Money leaving the account is never a customer payment
+                    report.debitsIgnored++;
+                    continue;
+                }
+                lines.add(reader.line(), reader.date().toEpochDay(), reader.amountCents(),
+                        normalize(reader.reference()), reader.customerId());
+            }
+        }
+        return lines;
+    }
+
+    private PaymentIndex loadPayments(StatementLines lines) {
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int i = 0; i < lines.size; i++) {
+            minDay = Math.min(minDay, lines.days[i]);
+            maxDay = Math.max(maxDay, lines.days[i]);
+        }
+        PaymentIndex index = new PaymentIndex(dateToleranceDays);
+        jdbcTemplate.query(PAYMENTS_IN_RANGE_SQL, (RowCallbackHandler) rs ->
+                index.add(rs.getInt(1), (int) rs.getTimestamp(2).toLocalDateTime().toLocalDate().toEpochDay(),
+                        Money.of(rs.getBigDecimal(3)).minorUnits(), normalize(rs.getString(4))),
+                Timestamp.valueOf(LocalDate.ofEpochDay(minDay - dateToleranceDays).atStartOfDay()),
+                Timestamp.valueOf(LocalDate.ofEpochDay(maxDay + dateToleranceDays + 1L).atStartOfDay()));
+        return index;
+    }
+
+    // References are compared without case and spacing, which banks do not preserve
+    private static String normalize(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(reference.length());
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.isEmpty() ? null : normalized.toString();
+    }
+
+    // Statement credit lines held column by column, so a million lines stay a handful of arrays
+    private static final class StatementLines {
+        private long[] lineNumbers = new long[1024];
+        private int[] days = new int[1024];
+        private long[] cents = new long[1024];
+        private String[] references = new String[1024];
+        private int[] customerIds = new int[1024];
+        private int size;
+
+        private void add(long lineNumber, long day, long amountCents, String reference, Integer customerId) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+                days = Arrays.copyOf(days, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                references = Arrays.copyOf(references, capacity);
+                customerIds = Arrays.copyOf(customerIds, capacity);
+            }
+            lineNumbers[size] = lineNumber;
+            days[size] = (int) day;
+            cents[size] = amountCents;
+            references[size] = reference;
+            customerIds[size] = customerId != null ? customerId : 0;
+            size++;
+        }
+
+        private ReconciliationReport.Line line(int i, Integer paymentId, String reason) {
+            return new ReconciliationReport.Line(lineNumbers[i], LocalDate.ofEpochDay(days[i]), Money.ofMinor(cents[i]),
+                    references[i], paymentId, reason);
+        }
+    }
+
+    // Payments of the statement period, by reference and by amount and day; each can be claimed by one line
+    private static final class PaymentIndex {
+        private final int toleranceDays;
+        private final Map<String, int[]> byReference = new HashMap<>();
+        private final Map<Long, int[]> byAmountAndDay = new HashMap<>();
+        private int[] ids = new int[1024];
+        private int[] days = new int[1024];
+        private long[] cents = new long[1024];
+        private boolean[] claimed = new boolean[1024];
+        private int size;
+
+        private PaymentIndex(int toleranceDays) {
+            this.toleranceDays = toleranceDays;
+        }
+
+        private void add(int id, int day, long amountCents, String reference) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                days = Arrays.copyOf(days, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                claimed = Arrays.copyOf(claimed, capacity);
+            }
+            ids[size] = id;
+            days[size] = day;
+            cents[size] = amountCents;
+            if (reference != null) {
+                byReference.merge(reference, new int[]{size}, PaymentIndex::append);
+            }
+            byAmountAndDay.merge(key(amountCents, day), new int[]{size}, PaymentIndex::append);
+            size++;
+        }
+
+        // Unclaimed payment with the same reference, amount and a close enough date, or -1
+        private int claimExact(String reference, long amountCents, int day) {
+            int[] candidates = reference != null ? byReference.get(reference) : null;
+            if (candidates == null) {
+                return -1;
+            }
+            for (int p : candidates) {
+                if (!claimed[p] && agrees(p, amountCents, day)) {
+                    claimed[p] = true;
+                    return p;
+                }
+            }
+            return -1;
+        }
+
+        // Unclaimed payment of the same amount on the nearest day within the tolerance, or -1
+        private int claimByAmountAndDay(long amountCents, int day) {
+            for (int offset = 0; offset <= toleranceDays; offset++) {
+                int p = claimUnclaimed(byAmountAndDay.get(key(amountCents, day - offset)));
+                if (p < 0 && offset > 0) {
+                    p = claimUnclaimed(byAmountAndDay.get(key(amountCents, day + offset)));
+                }
+                if (p >= 0) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+
+        private int claimUnclaimed(int[] candidates) {
+            if (candidates != null) {
+                for (int p : candidates) {
+                    if (!claimed[p]) {
+                        claimed[p] = true;
+                        return p;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private boolean agrees(int p, long amountCents, int day) {
+            return cents[p] == amountCents && Math.abs(days[p] - day) <= toleranceDays;
+        }
+
+        private static long key(long amountCents, int day) {
+            return amountCents * 100_000 + day;
+        }
+
+        private static int[] append(int[] existing, int[] added) {
+            int[] merged = Arrays.copyOf(existing, existing.length + added.length);
+            System.arraycopy(added, 0, merged, existing.length, added.length);
+            return merged;
+        }
+    }
+
+    // Running counts for one reconciliation; keeps only the first 'maxLines' entries of each list
+    private static final class Report {
+        private final String source;
+        private final int maxLines;
+        private final List<ReconciliationReport.Line> matched = new ArrayList<>();
+        private final List<ReconciliationReport.Line> suspicious = new ArrayList<>();
+        private final List<ReconciliationReport.Line> unmatched = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long linesRead;
+        private long debitsIgnored;
+        private long matchedCount;
+        private long suspiciousCount;
+        private long unmatchedCount;
+        private long paymentsCreated;
+        private long errorCount;
+
+        private Report(String source, int maxLines) {
+            this.source = source;
+            this.maxLines = maxLines;
+        }
+
+        private void matched(ReconciliationReport.Line line) {
+            matchedCount++;
+            add(matched, line);
+        }
+
+        private void suspicious(ReconciliationReport.Line line) {
+            suspiciousCount++;
+            add(suspicious, line);
+        }
+
+        private void unmatched(ReconciliationReport.Line line) {
+            unmatchedCount++;
+            add(unmatched, line);
+        }
+
+        // Created payments are reported with the unmatched lines they were created for
+        private void created(ReconciliationReport.Line line) {
+            paymentsCreated++;
+            unmatched(line);
+        }
+
+        private void error(long line, String message) {
+            errorCount++;
+            if (errors.size() < maxLines) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+
+        private void add(List<ReconciliationReport.Line> lines, ReconciliationReport.Line line) {
+            if (lines.size() < maxLines) {
+                lines.add(line);
+            }
+        }
+
+        private ReconciliationReport toReport() {
+            boolean truncated = matched.size() < matchedCount || suspicious.size() < suspiciousCount
+                    || unmatched.size() < unmatchedCount || errors.size() < errorCount;
+            return new ReconciliationReport(source, linesRead, debitsIgnored, matchedCount, suspiciousCount,
+                    unmatchedCount, paymentsCreated, List.copyOf(matched), List.copyOf(suspicious),
+                    List.copyOf(unmatched), List.copyOf(errors), truncated);
+        }
+    }
+}
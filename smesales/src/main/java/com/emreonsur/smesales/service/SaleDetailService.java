@@ -1,9 +1,11 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.CursorPage;
 import com.emreonsur.smesales.entity.SaleDetail;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface SaleDetailService {
     List<SaleDetail> getAllSaleDetails();
@@ -12,9 +14,17 @@ public interface SaleDetailService {
 
     List<SaleDetail> getSaleDetailsBySaleId(Integer saleId);
 
+    List<SaleDetail> getSaleDetailsByProductId(Integer productId);
+
+    CursorPage<SaleDetail> getSaleDetailsPage(String cursor, int size);
+
+    void streamSaleDetails(Consumer<SaleDetail> consumer);
+
     SaleDetail createSaleDetail(SaleDetail saleDetail);
 
     SaleDetail updateSaleDetail(Integer id, SaleDetail saleDetail);
 
+    SaleDetail patchSaleDetail(Integer id, SaleDetail patch, Long expectedVersion);
+
     void deleteSaleDetail(Integer id);
 }
\ No newline at end of file
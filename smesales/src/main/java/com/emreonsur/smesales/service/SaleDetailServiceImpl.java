@@ -1,56 +1,271 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.entity.Sale;
 import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.inventory.StockLedger;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.ProductRepository;
 import com.emreonsur.smesales.repository.SaleDetailRepository;
+import com.emreonsur.smesales.repository.SaleRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
+
+// Moves each sale's total_amount by the difference a line change makes; the sale's
+// row is locked before it is read, so concurrent line changes apply one after another
 @Service
 public class SaleDetailServiceImpl implements SaleDetailService {
     private final SaleDetailRepository saleDetailRepository;
+    private final SaleRepository saleRepository;
+    private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public SaleDetailServiceImpl(SaleDetailRepository saleDetailRepository) {
+    public SaleDetailServiceImpl(SaleDetailRepository saleDetailRepository,
+                                 SaleRepository saleRepository,
+                                 ProductRepository productRepository,
+                                 StockLedger stockLedger,
+                                 ApplicationEventPublisher eventPublisher,
+                                 EntityManager entityManager,
+                                 OptimisticUpdates optimisticUpdates) {
         this.saleDetailRepository = saleDetailRepository;
+        this.saleRepository = saleRepository;
+        this.productRepository = productRepository;
+        this.stockLedger = stockLedger;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleDetail> getAllSaleDetails() {
         return saleDetailRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<SaleDetail> getSaleDetailById(Integer id) {
         return saleDetailRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleDetail> getSaleDetailsBySaleId(Integer saleId) {
         return saleDetailRepository.findBySale_Id(saleId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<SaleDetail> getSaleDetailsByProductId(Integer productId) {
+        return saleDetailRepository.findByProduct_Id(productId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<SaleDetail> getSaleDetailsPage(String cursor, int size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        Integer afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            afterId = Integer.valueOf(KeysetCursor.decode(cursor, 1)[0]);
+        }
+
+        List<SaleDetail> saleDetails = saleDetailRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
+
+        String nextCursor = null;
+        if (saleDetails.size() == pageSize) {
+            nextCursor = KeysetCursor.encode(saleDetails.get(saleDetails.size() - 1).getId());
+        }
+        return new CursorPage<>(saleDetails, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSaleDetails(Consumer<SaleDetail> consumer) {
+        EntityStreams.forEachChunked(saleDetailRepository.streamAll(), entityManager, consumer);
+    }
+
+    @Override
+    @Transactional
     public SaleDetail createSaleDetail(SaleDetail saleDetail) {
-        return saleDetailRepository.save(saleDetail);
+        attachReferences(saleDetail);
+        lockSales(saleDetail.getSale().getId());
+        priceFromProduct(saleDetail);
+        stockLedger.reserveForTransaction(saleDetail.getProduct().getId(), saleDetail.getQuantity());
+        SaleDetail savedSaleDetail = saleDetailRepository.save(saleDetail);
+        SaleDetailChangedEvent.Snapshot after = snapshot(savedSaleDetail);
+        eventPublisher.publishEvent(new SaleDetailChangedEvent(null, after));
+        addToSaleTotal(after.saleId(), after.totalPrice());
+        return savedSaleDetail;
     }
 
     @Override
+    @Transactional
     public SaleDetail updateSaleDetail(Integer id, SaleDetail updatedSaleDetail) {
-        return saleDetailRepository.findById(id).map(existingSaleDetail -> {
-            existingSaleDetail.setSale(updatedSaleDetail.getSale());
-            existingSaleDetail.setProduct(updatedSaleDetail.getProduct());
-            existingSaleDetail.setQuantity(updatedSaleDetail.getQuantity());
-            existingSaleDetail.setUnitPrice(updatedSaleDetail.getUnitPrice());
-            existingSaleDetail.setTotalPrice(updatedSaleDetail.getTotalPrice());
-            return saleDetailRepository.save(existingSaleDetail);
-        }).orElseThrow(() -> new RuntimeException("SaleDetail not found with id: " + id));
+        Integer targetSaleId = updatedSaleDetail.getSale() != null ? updatedSaleDetail.getSale().getId() : null;
+        return findForUpdate(id, targetSaleId)
+                .map(existingSaleDetail -> applyUpdate(existingSaleDetail, updatedSaleDetail))
+                .orElseThrow(() -> new ResourceNotFoundException("SaleDetail", id));
+    }
+
+    @Override
+    public SaleDetail patchSaleDetail(Integer id, SaleDetail patch, Long expectedVersion) {
+        return optimisticUpdates.execute("SaleDetail", id, expectedVersion, () -> {
+            Integer targetSaleId = patch.getSale() != null ? patch.getSale().getId() : null;
+            SaleDetail existingSaleDetail = findForUpdate(id, targetSaleId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SaleDetail", id));
+            OptimisticUpdates.checkVersion("SaleDetail", id, expectedVersion, existingSaleDetail.getVersion());
+            SaleDetail updatedSaleDetail = new SaleDetail();
+            updatedSaleDetail.setSale(patched(patch.getSale(), existingSaleDetail.getSale()));
+            updatedSaleDetail.setProduct(patched(patch.getProduct(), existingSaleDetail.getProduct()));
+            updatedSaleDetail.setQuantity(patched(patch.getQuantity(), existingSaleDetail.getQuantity()));
+            updatedSaleDetail.setUnitPrice(patched(patch.getUnitPrice(), existingSaleDetail.getUnitPrice()));
+            updatedSaleDetail.setTotalPrice(patched(patch.getTotalPrice(), existingSaleDetail.getTotalPrice()));
+            return applyUpdate(existingSaleDetail, updatedSaleDetail);
+        });
+    }
+
+    private SaleDetail applyUpdate(SaleDetail existingSaleDetail, SaleDetail updatedSaleDetail) {
+        attachReferences(updatedSaleDetail);
+        reprice(existingSaleDetail, updatedSaleDetail);
+        adjustStock(existingSaleDetail, updatedSaleDetail);
+        SaleDetailChangedEvent.Snapshot before = snapshot(existingSaleDetail);
+        existingSaleDetail.setSale(updatedSaleDetail.getSale());
+        existingSaleDetail.setProduct(updatedSaleDetail.getProduct());
+        existingSaleDetail.setQuantity(updatedSaleDetail.getQuantity());
+        existingSaleDetail.setUnitPrice(updatedSaleDetail.getUnitPrice());
+        existingSaleDetail.setTotalPrice(updatedSaleDetail.getTotalPrice());
+        SaleDetail savedSaleDetail = saleDetailRepository.save(existingSaleDetail);
+        SaleDetailChangedEvent.Snapshot after = snapshot(savedSaleDetail);
+        eventPublisher.publishEvent(new SaleDetailChangedEvent(before, after));
+        if (before.saleId().equals(after.saleId())) {
+            addToSaleTotal(after.saleId(), after.totalPrice().minus(before.totalPrice()));
+        } else {
+            addToSaleTotal(before.saleId(), before.totalPrice().negate());
+            addToSaleTotal(after.saleId(), after.totalPrice());
+        }
+        return savedSaleDetail;
     }
 
     @Override
+    @Transactional
     public void deleteSaleDetail(Integer id) {
-        saleDetailRepository.deleteById(id);
+        findForUpdate(id, null).ifPresent(saleDetail -> {
+            stockLedger.restockForTransaction(saleDetail.getProduct().getId(), saleDetail.getQuantity());
+            SaleDetailChangedEvent.Snapshot before = snapshot(saleDetail);
+            saleDetailRepository.delete(saleDetail);
+            eventPublisher.publishEvent(new SaleDetailChangedEvent(before, null));
+            addToSaleTotal(before.saleId(), before.totalPrice().negate());
+        });
+    }
+
+    // Request bodies name the sale and product by ID only; being versioned, they are attached as references
+    private void attachReferences(SaleDetail saleDetail) {
+        if (saleDetail.getSale() != null && saleDetail.getSale().getId() != null) {
+            saleDetail.setSale(entityManager.getReference(Sale.class, saleDetail.getSale().getId()));
+        }
+        if (saleDetail.getProduct() != null && saleDetail.getProduct().getId() != null) {
+            saleDetail.setProduct(entityManager.getReference(Product.class, saleDetail.getProduct().getId()));
+        }
+    }
+
+    // Prices a new line from its product, as trigger_sale_details_before_insert does
+    private void priceFromProduct(SaleDetail saleDetail) {
+        Integer productId = saleDetail.getProduct().getId();
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", productId));
+        saleDetail.setUnitPrice(product.getUnitPrice());
+        saleDetail.setTotalPrice(product.getUnitPrice().times(saleDetail.getQuantity()));
+    }
+
+    // Keeps the line's unit price unless it moves to another product, and recalculates its total
+    // as trigger_sale_details_before_update does
+    private void reprice(SaleDetail existing, SaleDetail updated) {
+        if (!existing.getProduct().getId().equals(updated.getProduct().getId())) {
+            priceFromProduct(updated);
+            return;
+        }
+        Money unitPrice = updated.getUnitPrice() != null ? updated.getUnitPrice() : existing.getUnitPrice();
+        updated.setUnitPrice(unitPrice);
+        updated.setTotalPrice(unitPrice.times(updated.getQuantity()));
+    }
+
+    // Before the line is read, as a sale read before its lock may carry a stale total
+    private Optional<SaleDetail> findForUpdate(Integer id, Integer targetSaleId) {
+        Optional<Integer> saleId = saleDetailRepository.findSaleIdById(id);
+        if (saleId.isEmpty()) {
+            return Optional.empty();
+        }
+        lockSales(saleId.get(), targetSaleId);
+        Optional<SaleDetail> saleDetail = saleDetailRepository.findById(id);
+        // The line was moved to another sale while waiting for the lock
+        if (saleDetail.isPresent() && !saleDetail.get().getSale().getId().equals(saleId.get())) {
+            throw new ObjectOptimisticLockingFailureException(SaleDetail.class, id);
+        }
+        return saleDetail;
+    }
+
+    // Locks in ID order, so two lines moving between the same pair of sales cannot deadlock
+    private void lockSales(Integer... saleIds) {
+        Stream.of(saleIds)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(saleId -> saleRepository.findByIdForUpdate(saleId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Sale", saleId)));
+    }
+
+    // The sale is already loaded and locked by lockSales
+    private void addToSaleTotal(Integer saleId, Money amount) {
+        if (amount.isZero()) {
+            return;
+        }
+        Sale sale = saleRepository.getReferenceById(saleId);
+        SaleChangedEvent.Snapshot before = SaleChangedEvent.Snapshot.of(sale);
+        sale.setTotalAmount(sale.getTotalAmount().plus(amount));
+        eventPublisher.publishEvent(new SaleChangedEvent(before, SaleChangedEvent.Snapshot.of(sale)));
+    }
+
+    // The line's sale may only be a reference carrying its ID, so read it through the persistence context
+    private SaleDetailChangedEvent.Snapshot snapshot(SaleDetail saleDetail) {
+        Sale sale = saleRepository.getReferenceById(saleDetail.getSale().getId());
+        return SaleDetailChangedEvent.Snapshot.of(saleDetail, sale);
+    }
+
+    // Moves stock by the difference between the stored line and its replacement
+    private void adjustStock(SaleDetail existing, SaleDetail updated) {
+        Integer oldProductId = existing.getProduct().getId();
+        Integer newProductId = updated.getProduct().getId();
+        int oldQuantity = existing.getQuantity();
+        int newQuantity = updated.getQuantity();
+
+        if (!oldProductId.equals(newProductId)) {
+            stockLedger.reserveForTransaction(newProductId, newQuantity);
+            stockLedger.restockForTransaction(oldProductId, oldQuantity);
+        } else if (newQuantity > oldQuantity) {
+            stockLedger.reserveForTransaction(newProductId, newQuantity - oldQuantity);
+        } else if (newQuantity < oldQuantity) {
+            stockLedger.restockForTransaction(newProductId, oldQuantity - newQuantity);
+        }
     }
 }
\ No newline at end of file
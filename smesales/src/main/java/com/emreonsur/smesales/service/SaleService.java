@@ -1,18 +1,35 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.dto.OrderConfirmation;
+import com.emreonsur.smesales.dto.OrderRequest;
+import com.emreonsur.smesales.dto.SaleSummary;
 import com.emreonsur.smesales.entity.Sale;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface SaleService {
     List<Sale> getAllSales();
 
+    List<SaleSummary> getSaleSummaries();
+
+    List<SaleSummary> getSaleSummariesByCustomerId(Integer customerId);
+
     Optional<Sale> getSaleById(Integer id);
 
+    CursorPage<Sale> getSalesPage(String cursor, int size);
+
+    void streamSales(Consumer<Sale> consumer);
+
     Sale createSale(Sale sale);
 
+    OrderConfirmation placeOrder(OrderRequest order);
+
     Sale updateSale(Integer id, Sale sale);
 
+    Sale patchSale(Integer id, Sale patch, Long expectedVersion);
+
     void deleteSale(Integer id);
 }
\ No newline at end of file
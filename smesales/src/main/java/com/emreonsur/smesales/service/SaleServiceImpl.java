@@ -1,50 +1,384 @@
 package com.emreonsur.smesales.service;
 
+import com.emreonsur.smesales.cache.InvoiceIdIndex;
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.dto.OrderConfirmation;
+import com.emreonsur.smesales.dto.OrderRequest;
+import com.emreonsur.smesales.dto.SaleSummary;
+import com.emreonsur.smesales.entity.Product;
 import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.exception.ResourceNotFoundException;
+import com.emreonsur.smesales.inventory.StockLedger;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.ProductRepository;
 import com.emreonsur.smesales.repository.SaleRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static com.emreonsur.smesales.service.OptimisticUpdates.patched;
 
 @Service
 public class SaleServiceImpl implements SaleService {
+    private static final String INSERT_SALE_DETAIL_SQL =
+            "INSERT INTO sale_details (sale_id, product_id, quantity, unit_price, total_price, version) " +
+            "VALUES (?, ?, ?, ?, ?, 0)";
+
     private final SaleRepository saleRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final InvoiceIdIndex invoiceIdIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticUpdates optimisticUpdates;
 
     @Autowired
-    public SaleServiceImpl(SaleRepository saleRepository) {
+    public SaleServiceImpl(SaleRepository saleRepository,
+                           CustomerRepository customerRepository,
+                           ProductRepository productRepository,
+                           JdbcTemplate jdbcTemplate,
+                           StockLedger stockLedger,
+                           ApplicationEventPublisher eventPublisher,
+                           EntityManager entityManager,
+                           InvoiceIdIndex invoiceIdIndex,
+                           TransactionTemplate transactionTemplate,
+                           OptimisticUpdates optimisticUpdates) {
         this.saleRepository = saleRepository;
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockLedger = stockLedger;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.invoiceIdIndex = invoiceIdIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.optimisticUpdates = optimisticUpdates;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Sale> getAllSales() {
         return saleRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<SaleSummary> getSaleSummaries() {
+        return saleRepository.findAllSummaries();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SaleSummary> getSaleSummariesByCustomerId(Integer customerId) {
+        return saleRepository.findSummariesByCustomerId(customerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Sale> getSaleById(Integer id) {
         return saleRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Sale> getSalesPage(String cursor, int size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        PageRequest limit = PageRequest.ofSize(pageSize);
+
+        List<Sale> sales;
+        if (cursor == null || cursor.isBlank()) {
+            sales = saleRepository.findFirstPage(limit);
+        } else {
+            String[] position = KeysetCursor.decode(cursor, 2);
+            LocalDateTime afterDate;
+            try {
+                afterDate = LocalDateTime.parse(position[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            sales = saleRepository.findPageAfter(afterDate, Integer.valueOf(position[1]), limit);
+        }
+
+        String nextCursor = null;
+        if (sales.size() == pageSize) {
+            Sale last = sales.get(sales.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getOrderDate(), last.getId());
+        }
+        return new CursorPage<>(sales, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSales(Consumer<Sale> consumer) {
+        EntityStreams.forEachChunked(saleRepository.streamAll(), entityManager, consumer);
+    }
+
+    // Idempotent on the invoice ID: a retried request gets the sale created the first time
     @Override
     public Sale createSale(Sale sale) {
-        return saleRepository.save(sale);
+        // Lines are priced by the server, so they go through placeOrder or the sale detail service
+        if (sale.getSaleDetails() != null && !sale.getSaleDetails().isEmpty()) {
+            throw new IllegalArgumentException("saleDetails cannot be set when creating a sale; use /api/sales/orders");
+        }
+        Optional<Sale> original = findOriginal(sale.getInvoiceId());
+        if (original.isPresent()) {
+            return original.get();
+        }
+        try {
+            return transactionTemplate.execute(status -> insertSale(sale));
+        } catch (DataIntegrityViolationException e) {
+            return findCommitted(sale.getInvoiceId()).orElseThrow(() -> e);
+        }
+    }
+
+    private Sale insertSale(Sale sale) {
+        attachCustomer(sale);
+        // The total follows the lines, which are added through the sale detail service
+        sale.setTotalAmount(Money.ZERO);
+        Sale savedSale = saleRepository.save(sale);
+        invoiceIdIndex.record(savedSale.getInvoiceId(), savedSale.getId());
+        eventPublisher.publishEvent(new SaleChangedEvent(null, SaleChangedEvent.Snapshot.of(savedSale)));
+        return savedSale;
     }
 
+    // Idempotent on the invoice ID like createSale; a replay confirms the original order
     @Override
+    public OrderConfirmation placeOrder(OrderRequest order) {
+        validateOrder(order);
+
+        Optional<Sale> original = findOriginal(order.invoiceId());
+        if (original.isPresent()) {
+            return confirmationOf(original.get());
+        }
+        try {
+            return transactionTemplate.execute(status -> insertOrder(order));
+        } catch (DataIntegrityViolationException e) {
+            return findCommitted(order.invoiceId()).map(this::confirmationOf).orElseThrow(() -> e);
+        }
+    }
+
+    private OrderConfirmation insertOrder(OrderRequest order) {
+        // Merge repeated products into one line; ordering by ID keeps row locks in a stable order
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (OrderRequest.Line line : order.lines()) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+
+        Map<Integer, Product> products = new TreeMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        for (Integer productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product", productId);
+            }
+        }
+
+        // Reserve stock in the ledger; reservations are confirmed on commit and
+        // released if the order rolls back, e.g. when a later line runs out
+        quantities.forEach(stockLedger::reserveForTransaction);
+
+        // Price every line from the product, as the sale_details insert trigger does
+        List<OrderConfirmation.Line> confirmedLines = new ArrayList<>(quantities.size());
+        Money total = Money.ZERO;
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            Money unitPrice = products.get(line.getKey()).getUnitPrice();
+            Money lineTotal = unitPrice.times(line.getValue());
+            total = total.plus(lineTotal);
+            confirmedLines.add(new OrderConfirmation.Line(line.getKey(), line.getValue(), unitPrice, lineTotal));
+        }
+
+        Sale sale = new Sale();
+        sale.setCustomer(customerRepository.getReferenceById(order.customerId()));
+        sale.setOrderDate(order.orderDate() != null ? order.orderDate() : LocalDate.now().atStartOfDay());
+        sale.setInvoiceId(order.invoiceId());
+        sale.setTotalAmount(total);
+        Sale savedSale = saleRepository.saveAndFlush(sale);
+        invoiceIdIndex.record(savedSale.getInvoiceId(), savedSale.getId());
+
+        // The generated IDs identify each line in its change event, and so in the outbox
+        KeyHolder saleDetailIds = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SALE_DETAIL_SQL, new String[]{"sale_detail_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        OrderConfirmation.Line line = confirmedLines.get(i);
+                        statement.setInt(1, savedSale.getId());
+                        statement.setInt(2, line.productId());
+                        statement.setInt(3, line.quantity());
+                        statement.setBigDecimal(4, line.unitPrice().toBigDecimal());
+                        statement.setBigDecimal(5, line.totalPrice().toBigDecimal());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return confirmedLines.size();
+                    }
+                },
+                saleDetailIds);
+
+        eventPublisher.publishEvent(new SaleChangedEvent(null, SaleChangedEvent.Snapshot.of(savedSale)));
+        List<Map<String, Object>> keys = saleDetailIds.getKeyList();
+        for (int i = 0; i < confirmedLines.size(); i++) {
+            OrderConfirmation.Line line = confirmedLines.get(i);
+            Integer saleDetailId = ((Number) keys.get(i).values().iterator().next()).intValue();
+            eventPublisher.publishEvent(new SaleDetailChangedEvent(null, new SaleDetailChangedEvent.Snapshot(
+                    saleDetailId, savedSale.getId(), line.productId(), order.customerId(), savedSale.getOrderDate(),
+                    line.quantity(), line.totalPrice())));
+        }
+
+        return new OrderConfirmation(savedSale.getId(), savedSale.getInvoiceId(), savedSale.getOrderDate(),
+                savedSale.getTotalAmount(), confirmedLines);
+    }
+
+    // Looks in the recent sales first and only queries when the invoice index can't rule the ID out
+    private Optional<Sale> findOriginal(String invoiceId) {
+        if (invoiceId == null) {
+            return Optional.empty();
+        }
+        Integer saleId = invoiceIdIndex.recentSaleId(invoiceId);
+        if (saleId != null) {
+            Optional<Sale> recent = saleRepository.findById(saleId)
+                    .filter(sale -> invoiceId.equals(sale.getInvoiceId()));
+            if (recent.isPresent()) {
+                return recent;
+            }
+            invoiceIdIndex.forget(invoiceId);
+        }
+        if (!invoiceIdIndex.mightExist(invoiceId)) {
+            return Optional.empty();
+        }
+        return findCommitted(invoiceId);
+    }
+
+    // Used after a unique-key violation too, when a concurrent request committed the invoice first
+    private Optional<Sale> findCommitted(String invoiceId) {
+        if (invoiceId == null) {
+            return Optional.empty();
+        }
+        Sale sale = saleRepository.findByInvoiceId(invoiceId);
+        if (sale != null) {
+            invoiceIdIndex.record(invoiceId, sale.getId());
+        }
+        return Optional.ofNullable(sale);
+    }
+
+    private OrderConfirmation confirmationOf(Sale sale) {
+        List<OrderConfirmation.Line> lines = new ArrayList<>();
+        if (sale.getSaleDetails() != null) {
+            for (SaleDetail saleDetail : sale.getSaleDetails()) {
+                lines.add(new OrderConfirmation.Line(saleDetail.getProduct().getId(), saleDetail.getQuantity(),
+                        saleDetail.getUnitPrice(), saleDetail.getTotalPrice()));
+            }
+        }
+        return new OrderConfirmation(sale.getId(), sale.getInvoiceId(), sale.getOrderDate(),
+                sale.getTotalAmount(), lines);
+    }
+
+    private void validateOrder(OrderRequest order) {
+        if (order.customerId() == null) {
+            throw new IllegalArgumentException("customerId is required");
+        }
+        if (order.invoiceId() == null || order.invoiceId().length() != 16) {
+            throw new IllegalArgumentException("invoiceId must be exactly 16 characters");
+        }
+        if (order.lines() == null || order.lines().isEmpty()) {
+            throw new IllegalArgumentException("An order must contain at least one line");
+        }
+        for (OrderRequest.Line line : order.lines()) {
+            if (line.productId() == null || line.quantity() == null || line.quantity() <= 0) {
+                throw new IllegalArgumentException("Every line needs a productId and a positive quantity");
+            }
+        }
+    }
+
+    @Override
+    @Transactional
     public Sale updateSale(Integer id, Sale updatedSale) {
-        return saleRepository.findById(id).map(existingSale -> {
-            existingSale.setCustomer(updatedSale.getCustomer());
-            existingSale.setOrderDate(updatedSale.getOrderDate());
-            existingSale.setInvoiceId(updatedSale.getInvoiceId());
-            existingSale.setTotalAmount(updatedSale.getTotalAmount());
-            return saleRepository.save(existingSale);
-        }).orElseThrow(() -> new RuntimeException("Sale not found with id: " + id));
+        return saleRepository.findById(id)
+                .map(existingSale -> applyUpdate(existingSale, updatedSale))
+                .orElseThrow(() -> new ResourceNotFoundException("Sale", id));
     }
 
     @Override
+    public Sale patchSale(Integer id, Sale patch, Long expectedVersion) {
+        return optimisticUpdates.execute("Sale", id, expectedVersion, () -> {
+            Sale existingSale = saleRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Sale", id));
+            OptimisticUpdates.checkVersion("Sale", id, expectedVersion, existingSale.getVersion());
+            Sale updatedSale = new Sale();
+            updatedSale.setCustomer(patched(patch.getCustomer(), existingSale.getCustomer()));
+            updatedSale.setOrderDate(patched(patch.getOrderDate(), existingSale.getOrderDate()));
+            updatedSale.setInvoiceId(patched(patch.getInvoiceId(), existingSale.getInvoiceId()));
+            return applyUpdate(existingSale, updatedSale);
+        });
+    }
+
+    private Sale applyUpdate(Sale existingSale, Sale updatedSale) {
+        SaleChangedEvent.Snapshot before = SaleChangedEvent.Snapshot.of(existingSale);
+        if (!Objects.equals(existingSale.getInvoiceId(), updatedSale.getInvoiceId())) {
+            invoiceIdIndex.forget(existingSale.getInvoiceId());
+            invoiceIdIndex.record(updatedSale.getInvoiceId(), existingSale.getId());
+        }
+        attachCustomer(updatedSale);
+        existingSale.setCustomer(updatedSale.getCustomer());
+        existingSale.setOrderDate(updatedSale.getOrderDate());
+        existingSale.setInvoiceId(updatedSale.getInvoiceId());
+        Sale savedSale = saleRepository.save(existingSale);
+        eventPublisher.publishEvent(new SaleChangedEvent(before, SaleChangedEvent.Snapshot.of(savedSale)));
+        return savedSale;
+    }
+
+    @Override
+    @Transactional
     public void deleteSale(Integer id) {
-        saleRepository.deleteById(id);
+        saleRepository.findById(id).ifPresent(sale -> {
+            saleRepository.delete(sale);
+            invoiceIdIndex.forget(sale.getInvoiceId());
+            // Lines are removed with the sale, so restock them and report them as removed as well
+            for (SaleDetail saleDetail : sale.getSaleDetails()) {
+                stockLedger.restockForTransaction(saleDetail.getProduct().getId(), saleDetail.getQuantity());
+                eventPublisher.publishEvent(new SaleDetailChangedEvent(
+                        SaleDetailChangedEvent.Snapshot.of(saleDetail, sale), null));
+            }
+            eventPublisher.publishEvent(new SaleChangedEvent(SaleChangedEvent.Snapshot.of(sale), null));
+        });
+    }
+
+    // Request bodies name the customer by ID only; being versioned, it is attached as a reference
+    private void attachCustomer(Sale sale) {
+        if (sale.getCustomer() != null && sale.getCustomer().getId() != null) {
+            sale.setCustomer(customerRepository.getReferenceById(sale.getCustomer().getId()));
+        }
     }
-}
\ No newline at end of file
+}
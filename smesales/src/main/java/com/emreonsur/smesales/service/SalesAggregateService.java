@@ -0,0 +1,17 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.entity.CustomerSalesAggregate;
+import com.emreonsur.smesales.entity.ProductSalesAggregate;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SalesAggregateService {
+    List<CustomerSalesAggregate> getAllCustomerAggregates();
+
+    Optional<CustomerSalesAggregate> getCustomerAggregate(Integer customerId);
+
+    List<ProductSalesAggregate> getAllProductAggregates();
+
+    Optional<ProductSalesAggregate> getProductAggregate(Integer productId);
+}
@@ -0,0 +1,111 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.entity.CustomerSalesAggregate;
+import com.emreonsur.smesales.entity.ProductSalesAggregate;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.repository.CustomerSalesAggregateRepository;
+import com.emreonsur.smesales.repository.ProductSalesAggregateRepository;
+import com.emreonsur.smesales.repository.SaleDetailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+// Keeps the customer and product aggregate tables in step with sales, inside the
+// transaction that changed the sale; the last order date is recomputed on removal.
+@Service
+public class SalesAggregateServiceImpl implements SalesAggregateService {
+    private final CustomerSalesAggregateRepository customerAggregateRepository;
+    private final ProductSalesAggregateRepository productAggregateRepository;
+    private final SaleDetailRepository saleDetailRepository;
+
+    @Autowired
+    public SalesAggregateServiceImpl(CustomerSalesAggregateRepository customerAggregateRepository,
+                                     ProductSalesAggregateRepository productAggregateRepository,
+                                     SaleDetailRepository saleDetailRepository) {
+        this.customerAggregateRepository = customerAggregateRepository;
+        this.productAggregateRepository = productAggregateRepository;
+        this.saleDetailRepository = saleDetailRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerSalesAggregate> getAllCustomerAggregates() {
+        return customerAggregateRepository.findAll();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CustomerSalesAggregate> getCustomerAggregate(Integer customerId) {
+        return customerAggregateRepository.findById(customerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSalesAggregate> getAllProductAggregates() {
+        return productAggregateRepository.findAll();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ProductSalesAggregate> getProductAggregate(Integer productId) {
+        return productAggregateRepository.findById(productId);
+    }
+
+    // Revenue, order count and last order date of the customer; units follow the sale lines
+    @EventListener
+    public void onSaleChanged(SaleChangedEvent event) {
+        SaleChangedEvent.Snapshot before = event.before();
+        SaleChangedEvent.Snapshot after = event.after();
+
+        // Lines stay with their sale, so a sale moved to another customer takes its units along
+        long movedUnits = 0;
+        boolean customerChanged = before != null && after != null
+                && !before.customerId().equals(after.customerId());
+        if (customerChanged) {
+            movedUnits = saleDetailRepository.sumQuantityBySaleId(after.saleId());
+        }
+
+        if (before != null) {
+            customerAggregateRepository.add(before.customerId(), before.totalAmount().negate().toBigDecimal(), -movedUnits, -1, null);
+        }
+        if (after != null) {
+            customerAggregateRepository.add(after.customerId(), after.totalAmount().toBigDecimal(), movedUnits, 1, after.orderDate());
+        }
+
+        if (before != null && (after == null || customerChanged
+                || !Objects.equals(before.orderDate(), after.orderDate()))) {
+            customerAggregateRepository.refreshLastOrderDate(before.customerId());
+        }
+        if (before != null && after != null && !Objects.equals(before.orderDate(), after.orderDate())) {
+            productAggregateRepository.refreshLastOrderDateForSale(after.saleId());
+        }
+    }
+
+    // Revenue, units, line count and last order date of the product; units of the customer
+    @EventListener
+    public void onSaleDetailChanged(SaleDetailChangedEvent event) {
+        SaleDetailChangedEvent.Snapshot before = event.before();
+        SaleDetailChangedEvent.Snapshot after = event.after();
+
+        if (before != null) {
+            productAggregateRepository.add(before.productId(), before.totalPrice().negate().toBigDecimal(), -before.quantity(), -1, null);
+            customerAggregateRepository.add(before.customerId(), BigDecimal.ZERO, -before.quantity(), 0, null);
+        }
+        if (after != null) {
+            productAggregateRepository.add(after.productId(), after.totalPrice().toBigDecimal(), after.quantity(), 1, after.orderDate());
+            customerAggregateRepository.add(after.customerId(), BigDecimal.ZERO, after.quantity(), 0, null);
+        }
+
+        if (before != null && (after == null || !before.productId().equals(after.productId())
+                || !Objects.equals(before.orderDate(), after.orderDate()))) {
+            productAggregateRepository.refreshLastOrderDate(before.productId());
+        }
+    }
+}
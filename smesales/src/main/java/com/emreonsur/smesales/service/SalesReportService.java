@@ -0,0 +1,10 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.SalesReport;
+
+import java.time.LocalDate;
+
+public interface SalesReportService {
+    SalesReport getSalesReport(String bucket, LocalDate from, LocalDate to, Integer customerId,
+                               Integer billingEntityId, Integer productId, String groupBy);
+}
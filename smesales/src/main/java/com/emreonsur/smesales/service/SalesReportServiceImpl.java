@@ -0,0 +1,176 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.SalesReport;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.report.SalesCube;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.SaleDetailRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+// Sales reports from the in-memory SalesCube; a transaction's deltas reach the cube on commit
+@Service
+public class SalesReportServiceImpl implements SalesReportService {
+    private static final String LOAD_SALES_SQL =
+            "SELECT DATE(order_date), customer_id, SUM(total_amount), COUNT(*) " +
+            "FROM sales GROUP BY DATE(order_date), customer_id";
+
+    private static final String LOAD_LINES_SQL =
+            "SELECT DATE(s.order_date), s.customer_id, sd.product_id, SUM(sd.total_price), SUM(sd.quantity) " +
+            "FROM sale_details sd JOIN sales s ON s.sale_id = sd.sale_id " +
+            "GROUP BY DATE(s.order_date), s.customer_id, sd.product_id";
+
+    private final SalesCube salesCube;
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final SaleDetailRepository saleDetailRepository;
+
+    @Autowired
+    public SalesReportServiceImpl(SalesCube salesCube,
+                                  JdbcTemplate jdbcTemplate,
+                                  CustomerRepository customerRepository,
+                                  SaleDetailRepository saleDetailRepository) {
+        this.salesCube = salesCube;
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+        this.saleDetailRepository = saleDetailRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        SalesCube.Builder builder = new SalesCube.Builder();
+        jdbcTemplate.query(LOAD_SALES_SQL, (RowCallbackHandler) rs -> builder.addSales(
+                rs.getObject(1, LocalDate.class), rs.getInt(2), Money.of(rs.getBigDecimal(3)), rs.getLong(4)));
+        jdbcTemplate.query(LOAD_LINES_SQL, (RowCallbackHandler) rs -> builder.addLines(
+                rs.getObject(1, LocalDate.class), rs.getInt(2), rs.getInt(3), Money.of(rs.getBigDecimal(4)), rs.getLong(5)));
+        salesCube.replace(builder);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SalesReport getSalesReport(String bucket, LocalDate from, LocalDate to, Integer customerId,
+                                      Integer billingEntityId, Integer productId, String groupBy) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("from and to are required and to must not be before from");
+        }
+        SalesCube.Bucket parsedBucket = parse(SalesCube.Bucket.class, bucket, "bucket");
+        SalesCube.GroupBy parsedGroupBy = groupBy == null || groupBy.isBlank()
+                ? null : parse(SalesCube.GroupBy.class, groupBy, "groupBy");
+
+        IntPredicate customerFilter = null;
+        if (billingEntityId != null) {
+            Set<Integer> customerIds = new HashSet<>(customerRepository.findIdsByBillingEntityId(billingEntityId));
+            customerFilter = id -> customerIds.contains(id) && (customerId == null || customerId == id);
+        } else if (customerId != null) {
+            customerFilter = id -> customerId == id;
+        }
+
+        IntUnaryOperator billingEntityOf = null;
+        if (parsedGroupBy == SalesCube.GroupBy.BILLING_ENTITY) {
+            Map<Integer, Integer> billingEntityIds = new HashMap<>();
+            for (Object[] pair : customerRepository.findAllBillingEntityIds()) {
+                billingEntityIds.put((Integer) pair[0], (Integer) pair[1]);
+            }
+            billingEntityOf = id -> billingEntityIds.getOrDefault(id, 0);
+        }
+
+        List<SalesReport.Row> rows = salesCube.query(parsedBucket, from, to, customerFilter, productId,
+                parsedGroupBy, billingEntityOf);
+        return new SalesReport(parsedBucket.name().toLowerCase(Locale.ROOT),
+                parsedGroupBy != null ? parsedGroupBy.name().toLowerCase(Locale.ROOT) : null,
+                from, to, rows);
+    }
+
+    // Order count and sale total per customer and day; a moved sale takes its lines along
+    @EventListener
+    public void onSaleChanged(SaleChangedEvent event) {
+        SaleChangedEvent.Snapshot before = event.before();
+        SaleChangedEvent.Snapshot after = event.after();
+
+        List<SalesCube.Change> changes = new ArrayList<>();
+        if (before != null) {
+            changes.add(new SalesCube.Change(before.orderDate(), before.customerId(), null,
+                    -before.totalAmount().minorUnits(), -1));
+        }
+        if (after != null) {
+            changes.add(new SalesCube.Change(after.orderDate(), after.customerId(), null,
+                    after.totalAmount().minorUnits(), 1));
+        }
+
+        boolean moved = before != null && after != null
+                && (!before.customerId().equals(after.customerId())
+                || !before.orderDate().toLocalDate().equals(after.orderDate().toLocalDate()));
+        if (moved) {
+            for (SaleDetail saleDetail : saleDetailRepository.findBySale_Id(after.saleId())) {
+                Integer productId = saleDetail.getProduct().getId();
+                changes.add(new SalesCube.Change(before.orderDate(), before.customerId(), productId,
+                        -saleDetail.getTotalPrice().minorUnits(), -saleDetail.getQuantity()));
+                changes.add(new SalesCube.Change(after.orderDate(), after.customerId(), productId,
+                        saleDetail.getTotalPrice().minorUnits(), saleDetail.getQuantity()));
+            }
+        }
+        applyAfterCommit(changes);
+    }
+
+    // Line total and units per customer, product and day
+    @EventListener
+    public void onSaleDetailChanged(SaleDetailChangedEvent event) {
+        SaleDetailChangedEvent.Snapshot before = event.before();
+        SaleDetailChangedEvent.Snapshot after = event.after();
+
+        List<SalesCube.Change> changes = new ArrayList<>(2);
+        if (before != null) {
+            changes.add(new SalesCube.Change(before.orderDate(), before.customerId(), before.productId(),
+                    -before.totalPrice().minorUnits(), -before.quantity()));
+        }
+        if (after != null) {
+            changes.add(new SalesCube.Change(after.orderDate(), after.customerId(), after.productId(),
+                    after.totalPrice().minorUnits(), after.quantity()));
+        }
+        applyAfterCommit(changes);
+    }
+
+    private void applyAfterCommit(List<SalesCube.Change> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            salesCube.apply(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                salesCube.apply(changes);
+            }
+        });
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, Objects.requireNonNull(value, name + " is required")
+                    .trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (NullPointerException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+}
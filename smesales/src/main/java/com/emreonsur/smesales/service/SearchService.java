@@ -0,0 +1,9 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.SearchResult;
+
+import java.util.List;
+
+public interface SearchService {
+    List<SearchResult> search(String query, List<String> types, boolean includeInactive, int limit);
+}
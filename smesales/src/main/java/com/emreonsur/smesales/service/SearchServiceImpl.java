@@ -0,0 +1,47 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.SearchResult;
+import com.emreonsur.smesales.search.SearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+    private static final int MAX_LIMIT = 50;
+
+    private final SearchIndex searchIndex;
+
+    @Autowired
+    public SearchServiceImpl(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public List<SearchResult> search(String query, List<String> types, boolean includeInactive, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return searchIndex.search(query, parseTypes(types), includeInactive, Math.min(limit, MAX_LIMIT));
+    }
+
+    // No types means all of them
+    private static Set<SearchIndex.Type> parseTypes(List<String> types) {
+        if (types == null || types.isEmpty()) {
+            return EnumSet.allOf(SearchIndex.Type.class);
+        }
+        Set<SearchIndex.Type> parsed = EnumSet.noneOf(SearchIndex.Type.class);
+        for (String type : types) {
+            try {
+                parsed.add(SearchIndex.Type.valueOf(type.trim().replace('-', '_').toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid type: " + type);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.emreonsur.smesales.perf;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeds the embedded database with data shaped like the sample rows in
+// sql-schema.sql (billing entities with branch customers, a product catalog,
+// sales with two or more lines, and payments), scaled up for measurement.
+public class DemoDataSeeder {
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDate FIRST_ORDER_DATE = LocalDate.of(2025, 6, 1);
+    private static final String[] PAYMENT_METHODS = {"Cash", "EFT", "Credit Card"};
+
+    public record Scale(int billingEntities, int customersPerEntity, int products,
+                        int sales, int linesPerSale, int payments) {
+
+        public static final Scale SMALL = new Scale(10, 2, 10, 100, 2, 20);
+        public static final Scale DEFAULT = new Scale(100, 2, 500, 20_000, 3, 5_000);
+
+        public int customers() {
+            return billingEntities * customersPerEntity;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DemoDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void seed(Scale scale) {
+        Random random = new Random(42);
+        BigDecimal[] prices = seedProducts(scale, random);
+        seedBillingEntities(scale);
+        seedCustomers(scale);
+        seedSales(scale, prices, random);
+        seedPayments(scale, random);
+    }
+
+    private void seedBillingEntities(Scale scale) {
+        List<Object[]> rows = new ArrayList<>(scale.billingEntities());
+        for (int i = 1; i <= scale.billingEntities(); i++) {
+            // Alternate natural persons (11-digit ID) and legal entities (10-digit trade number)
+            boolean naturalPerson = i % 2 == 1;
+            String identifier = naturalPerson
+                    ? String.format("%011d", 12_345_600_000L + i)
+                    : String.format("%010d", 1_234_500_000L + i);
+            rows.add(new Object[]{
+                    identifier,
+                    naturalPerson ? "Natural Person" : "Legal Entity",
+                    "Billing Entity " + i,
+                    "Tax Office " + (i % 20),
+                    "Sanayi Caddesi No:" + i + ", Istanbul",
+                    BigDecimal.ZERO,
+                    true
+            });
+        }
+        batch("INSERT INTO billing_entities (trade_number_or_citizen_id, entity_type, trade_name, tax_office, " +
+                "billing_address, current_balance, is_active, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private void seedCustomers(Scale scale) {
+        List<Object[]> rows = new ArrayList<>(scale.customers());
+        for (int i = 1; i <= scale.customers(); i++) {
+            int billingEntityId = (i - 1) / scale.customersPerEntity() + 1;
+            rows.add(new Object[]{"Customer " + i, billingEntityId, "Teslimat Sokak No:" + i + ", Istanbul", true});
+        }
+        batch("INSERT INTO customers (display_name, billing_entity_id, delivery_address, is_active, version) " +
+                "VALUES (?, ?, ?, ?, 0)", rows);
+    }
+
+    private BigDecimal[] seedProducts(Scale scale, Random random) {
+        BigDecimal[] prices = new BigDecimal[scale.products() + 1];
+        List<Object[]> rows = new ArrayList<>(scale.products());
+        for (int i = 1; i <= scale.products(); i++) {
+            prices[i] = BigDecimal.valueOf(400 + random.nextInt(2100), 2);
+            rows.add(new Object[]{"Product " + i, "P" + i, prices[i], 1_000_000, i % 10 != 0});
+        }
+        batch("INSERT INTO products (formal_name, display_name, unit_price, stock_quantity, is_active, version) " +
+                "VALUES (?, ?, ?, ?, ?, 0)", rows);
+        return prices;
+    }
+
+    private void seedSales(Scale scale, BigDecimal[] prices, Random random) {
+        List<Object[]> sales = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> lines = new ArrayList<>(BATCH_SIZE * scale.linesPerSale());
+        for (int saleId = 1; saleId <= scale.sales(); saleId++) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int line = 0; line < scale.linesPerSale(); line++) {
+                int productId = 1 + random.nextInt(scale.products());
+                int quantity = 1 + random.nextInt(5);
+                BigDecimal lineTotal = prices[productId].multiply(BigDecimal.valueOf(quantity));
+                total = total.add(lineTotal);
+                lines.add(new Object[]{saleId, productId, quantity, prices[productId], lineTotal});
+            }
+            sales.add(new Object[]{
+                    saleId,
+                    1 + (saleId - 1) % scale.customers(),
+                    Date.valueOf(FIRST_ORDER_DATE.minusDays(random.nextInt(365))),
+                    String.format("INV%013d", saleId),
+                    total
+            });
+            if (sales.size() == BATCH_SIZE) {
+                flushSales(sales, lines);
+            }
+        }
+        flushSales(sales, lines);
+        restartIdentity("sales", "sale_id", scale.sales() + 1);
+    }
+
+    private void flushSales(List<Object[]> sales, List<Object[]> lines) {
+        batch("INSERT INTO sales (sale_id, customer_id, order_date, invoice_id, total_amount, version) " +
+                "VALUES (?, ?, ?, ?, ?, 0)", sales);
+        batch("INSERT INTO sale_details (sale_id, product_id, quantity, unit_price, total_price, version) " +
+                "VALUES (?, ?, ?, ?, ?, 0)", lines);
+        sales.clear();
+        lines.clear();
+    }
+
+    private void seedPayments(Scale scale, Random random) {
+        List<Object[]> rows = new ArrayList<>(scale.payments());
+        for (int i = 1; i <= scale.payments(); i++) {
+            rows.add(new Object[]{
+                    1 + random.nextInt(scale.customers()),
+                    Date.valueOf(FIRST_ORDER_DATE.minusDays(random.nextInt(365))),
+                    BigDecimal.valueOf(1000 + random.nextInt(50_000), 2),
+                    PAYMENT_METHODS[i % PAYMENT_METHODS.length],
+                    String.format("REF%08d", i)
+            });
+        }
+        batch("INSERT INTO payments (customer_id, payment_date, amount, method, reference_code, version) " +
+                "VALUES (?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private void restartIdentity(String table, String column, int next) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + next);
+    }
+}
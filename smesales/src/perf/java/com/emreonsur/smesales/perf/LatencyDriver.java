@@ -0,0 +1,98 @@
+package com.emreonsur.smesales.perf;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+// JDBC driver that adds a fixed delay to every statement execution, to stand
+// in for the network round trip to a real database when benchmarking against
+// the embedded one. URLs take the form jdbc:latency:<millis>:<target url>.
+public class LatencyDriver implements Driver {
+    private static final String PREFIX = "jdbc:latency:";
+
+    static {
+        try {
+            DriverManager.registerDriver(new LatencyDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        String rest = url.substring(PREFIX.length());
+        int separator = rest.indexOf(':');
+        long latencyMillis = Long.parseLong(rest.substring(0, separator));
+        Connection connection = DriverManager.getConnection(rest.substring(separator + 1), info);
+        return latencyMillis > 0 ? delayed(connection, Connection.class, latencyMillis) : connection;
+    }
+
+    // Wraps statements handed out by a connection, and delays every execute* call on them
+    private static <T> T delayed(T target, Class<T> type, long latencyMillis) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                Thread.sleep(latencyMillis);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof CallableStatement statement) {
+                return delayed(statement, CallableStatement.class, latencyMillis);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return delayed(statement, PreparedStatement.class, latencyMillis);
+            }
+            if (result instanceof Statement statement && !(target instanceof Statement)) {
+                return delayed(statement, Statement.class, latencyMillis);
+            }
+            return result;
+        });
+        return type.cast(proxy);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,41 @@
+package com.emreonsur.smesales.perf;
+
+import com.emreonsur.smesales.SmeSalesApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Benchmark state holding one application context over the embedded
+// database, seeded once per trial.
+@State(Scope.Benchmark)
+public class SeededApplication {
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = start(WebApplicationType.NONE);
+        new DemoDataSeeder(context.getBean(JdbcTemplate.class)).seed(DemoDataSeeder.Scale.DEFAULT);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... args) {
+        SpringApplication application = new SpringApplication(SmeSalesApplication.class);
+        application.setAdditionalProfiles("perf");
+        application.setWebApplicationType(webApplicationType);
+        return application.run(args);
+    }
+}
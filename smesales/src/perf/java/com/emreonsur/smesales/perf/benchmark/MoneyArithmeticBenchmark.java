@@ -0,0 +1,95 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Prices a batch of sale lines (unit price times quantity, summed into a
+// total) with each representation an amount has had: boxed Double as the
+// entities used to hold it, BigDecimal as the order path used to compute it,
+// and Money, either through its methods or on minorUnits() directly as the
+// report and receivables loops do. Run with -prof gc to compare allocations.
+//
+//   mvn -Pperf test-compile exec:exec@jmh -Djmh.args="MoneyArithmeticBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MoneyArithmeticBenchmark {
+
+    @Param({"100", "10000"})
+    public int lines;
+
+    private Double[] doublePrices;
+    private BigDecimal[] decimalPrices;
+    private Money[] moneyPrices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        doublePrices = new Double[lines];
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            long minorUnits = 100 + random.nextInt(100_000);
+            doublePrices[i] = minorUnits / 100.0;
+            decimalPrices[i] = BigDecimal.valueOf(minorUnits, Money.SCALE);
+            moneyPrices[i] = Money.ofMinor(minorUnits);
+            quantities[i] = 1 + random.nextInt(10);
+        }
+    }
+
+    // Rounded once at the end, which hides but does not prevent the drift
+    @Benchmark
+    public Double boxedDouble() {
+        Double total = 0.0;
+        for (int i = 0; i < lines; i++) {
+            Double lineTotal = doublePrices[i] * quantities[i];
+            total = total + lineTotal;
+        }
+        return Math.round(total * 100) / 100.0;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total.setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public Money money() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money moneyMinorUnits() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total += moneyPrices[i].minorUnits() * quantities[i];
+        }
+        return Money.ofMinor(total);
+    }
+}
@@ -0,0 +1,53 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Payment;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.perf.DemoDataSeeder;
+import com.emreonsur.smesales.perf.SeededApplication;
+import com.emreonsur.smesales.service.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PaymentServiceBenchmark {
+    private static final int CUSTOMERS = DemoDataSeeder.Scale.DEFAULT.customers();
+
+    @Benchmark
+    public List<Payment> getPaymentsByCustomerId(SeededApplication app) {
+        int customerId = 1 + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return app.bean(PaymentService.class).getPaymentsByCustomerId(customerId);
+    }
+
+    @Benchmark
+    public CursorPage<Payment> getFirstPaymentsPage(SeededApplication app) {
+        return app.bean(PaymentService.class).getPaymentsPage(null, 100);
+    }
+
+    @Benchmark
+    public Payment createPayment(SeededApplication app) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Customer customer = new Customer();
+        customer.setId(1 + random.nextInt(CUSTOMERS));
+
+        Payment payment = new Payment();
+        payment.setCustomer(customer);
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setAmount(Money.ofMinor(1000 + random.nextInt(50_000)));
+        payment.setMethod("EFT");
+        return app.bean(PaymentService.class).createPayment(payment);
+    }
+}
@@ -0,0 +1,50 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.perf.DemoDataSeeder;
+import com.emreonsur.smesales.perf.SeededApplication;
+import com.emreonsur.smesales.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductServiceBenchmark {
+    private static final int PRODUCTS = DemoDataSeeder.Scale.DEFAULT.products();
+
+    @Benchmark
+    public Optional<Product> getProductById(SeededApplication app) {
+        int id = 1 + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        return app.bean(ProductService.class).getProductById(id);
+    }
+
+    @Benchmark
+    public Optional<Product> getProductByDisplayName(SeededApplication app) {
+        int id = 1 + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        return app.bean(ProductService.class).getProductByDisplayName("P" + id);
+    }
+
+    @Benchmark
+    public List<Product> getActiveProducts(SeededApplication app) {
+        return app.bean(ProductService.class).getActiveProducts();
+    }
+
+    @Benchmark
+    public Product updateProduct(SeededApplication app) {
+        ProductService productService = app.bean(ProductService.class);
+        int id = 1 + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        Product product = productService.getProductById(id).orElseThrow();
+        return productService.updateProduct(id, product);
+    }
+}
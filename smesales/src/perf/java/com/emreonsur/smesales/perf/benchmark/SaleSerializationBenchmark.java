@@ -0,0 +1,128 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.dto.SaleSummary;
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.money.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializes sale graphs the way the REST layer does, without a database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SaleSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int linesPerSale;
+
+    private ObjectMapper objectMapper;
+    private Sale sale;
+    private List<Sale> salesPage;
+    private List<SaleSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        BillingEntity billingEntity = new BillingEntity();
+        billingEntity.setId(1);
+        billingEntity.setTradeNumberOrCitizenId("1234567891");
+        billingEntity.setEntityType("Legal Entity");
+        billingEntity.setTradeName("Yildizlar Gida AS");
+        billingEntity.setTaxOffice("Adapazari");
+        billingEntity.setBillingAddress("Yeni Sanayi Sitesi 1. Blok No:101, Adapazari, Sakarya");
+        billingEntity.setCurrentBalance(Money.of("1250.00"));
+        billingEntity.setIsActive(true);
+
+        Customer customer = new Customer();
+        customer.setId(1);
+        customer.setDisplayName("Adapazari Sube");
+        customer.setBillingEntity(billingEntity);
+        customer.setDeliveryAddress("Cark Caddesi No:77, Adapazari, Sakarya");
+        customer.setIsActive(true);
+
+        sale = newSale(1, customer);
+        salesPage = new ArrayList<>();
+        summaries = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            Sale pageSale = newSale(i, customer);
+            salesPage.add(pageSale);
+            summaries.add(new SaleSummary(i, pageSale.getOrderDate(), pageSale.getInvoiceId(),
+                    pageSale.getTotalAmount(), customer.getId(), customer.getDisplayName(),
+                    billingEntity.getId(), billingEntity.getTradeName()));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeSale() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(sale);
+    }
+
+    @Benchmark
+    public byte[] serializePageOfSales() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(salesPage);
+    }
+
+    @Benchmark
+    public byte[] serializePageOfSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    private Sale newSale(int id, Customer customer) {
+        Sale newSale = new Sale();
+        newSale.setId(id);
+        newSale.setCustomer(customer);
+        newSale.setOrderDate(LocalDateTime.of(2025, 6, 1, 0, 0));
+        newSale.setInvoiceId(String.format("INV%013d", id));
+
+        List<SaleDetail> details = new ArrayList<>(linesPerSale);
+        Money total = Money.ZERO;
+        for (int line = 1; line <= linesPerSale; line++) {
+            Product product = new Product();
+            product.setId(line);
+            product.setFormalName("Product " + line);
+            product.setDisplayName("P" + line);
+            product.setUnitPrice(Money.of("12.50"));
+            product.setStockQuantity(100);
+            product.setIsActive(true);
+
+            SaleDetail detail = new SaleDetail();
+            detail.setId(id * 1000 + line);
+            detail.setSale(newSale);
+            detail.setProduct(product);
+            detail.setQuantity(2);
+            detail.setUnitPrice(Money.of("12.50"));
+            detail.setTotalPrice(Money.of("25.00"));
+            details.add(detail);
+            total = total.plus(detail.getTotalPrice());
+        }
+        newSale.setSaleDetails(details);
+        newSale.setTotalAmount(total);
+        return newSale;
+    }
+}
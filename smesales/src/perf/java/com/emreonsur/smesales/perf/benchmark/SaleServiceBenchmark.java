@@ -0,0 +1,72 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.dto.CursorPage;
+import com.emreonsur.smesales.dto.OrderConfirmation;
+import com.emreonsur.smesales.dto.OrderRequest;
+import com.emreonsur.smesales.dto.SaleSummary;
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.perf.DemoDataSeeder;
+import com.emreonsur.smesales.perf.SeededApplication;
+import com.emreonsur.smesales.service.SaleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SaleServiceBenchmark {
+    private static final int SALES = DemoDataSeeder.Scale.DEFAULT.sales();
+    private static final int PRODUCTS = DemoDataSeeder.Scale.DEFAULT.products();
+    private static final int CUSTOMERS = DemoDataSeeder.Scale.DEFAULT.customers();
+
+    // Invoice numbers above the seeded range, unique across benchmark threads
+    private static final AtomicLong NEXT_INVOICE = new AtomicLong(9_000_000_000_000L);
+
+    @Benchmark
+    public Optional<Sale> getSaleById(SeededApplication app) {
+        int id = 1 + ThreadLocalRandom.current().nextInt(SALES);
+        return app.bean(SaleService.class).getSaleById(id);
+    }
+
+    @Benchmark
+    public List<SaleSummary> getSaleSummariesByCustomer(SeededApplication app) {
+        int customerId = 1 + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return app.bean(SaleService.class).getSaleSummariesByCustomerId(customerId);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<SaleSummary> getAllSaleSummaries(SeededApplication app) {
+        return app.bean(SaleService.class).getSaleSummaries();
+    }
+
+    @Benchmark
+    public CursorPage<Sale> getFirstSalesPage(SeededApplication app) {
+        return app.bean(SaleService.class).getSalesPage(null, 100);
+    }
+
+    @Benchmark
+    public OrderConfirmation placeOrder(SeededApplication app) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderRequest order = new OrderRequest(
+                1 + random.nextInt(CUSTOMERS),
+                null,
+                "INV" + NEXT_INVOICE.incrementAndGet(),
+                List.of(
+                        new OrderRequest.Line(1 + random.nextInt(PRODUCTS), 1 + random.nextInt(3)),
+                        new OrderRequest.Line(1 + random.nextInt(PRODUCTS), 1 + random.nextInt(3)),
+                        new OrderRequest.Line(1 + random.nextInt(PRODUCTS), 1 + random.nextInt(3))));
+        return app.bean(SaleService.class).placeOrder(order);
+    }
+}
@@ -0,0 +1,95 @@
+package com.emreonsur.smesales.perf.benchmark;
+
+import com.emreonsur.smesales.perf.DemoDataSeeder;
+import com.emreonsur.smesales.perf.SeededApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Platform-thread vs virtual-thread request handling over HTTP.
+//
+// Many more concurrent clients than Tomcat's 200 platform threads call
+// endpoints whose time is mostly spent waiting on JDBC (LatencyDriver adds
+// 'jdbcLatencyMillis' per statement). Throughput mode reports requests per
+// millisecond; sample mode reports the latency distribution, p50 to p99.9.
+//
+//   mvn -Pperf test-compile exec:exec@jmh -Djmh.args="ThreadModeBenchmark"
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class ThreadModeBenchmark {
+    private static final int SALES = DemoDataSeeder.Scale.DEFAULT.sales();
+    private static final int CUSTOMERS = DemoDataSeeder.Scale.DEFAULT.customers();
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"platform", "virtual"})
+        public String threads;
+
+        @Param({"2"})
+        public int jdbcLatencyMillis;
+
+        private ConfigurableApplicationContext context;
+        private HttpClient client;
+        private String baseUrl;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = SeededApplication.start(WebApplicationType.SERVLET,
+                    "--server.port=0",
+                    "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                    "--smesales.perf.jdbc-latency-millis=" + jdbcLatencyMillis);
+            new DemoDataSeeder(context.getBean(JdbcTemplate.class)).seed(DemoDataSeeder.Scale.DEFAULT);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            client.close();
+            context.close();
+        }
+
+        private int get(String path) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+            }
+            return response.statusCode();
+        }
+    }
+
+    @Benchmark
+    public int getSaleById(Server server) throws IOException, InterruptedException {
+        return server.get("/api/sales/" + (1 + ThreadLocalRandom.current().nextInt(SALES)));
+    }
+
+    @Benchmark
+    public int getSaleSummariesByCustomer(Server server) throws IOException, InterruptedException {
+        return server.get("/api/sales/by-customer/" + (1 + ThreadLocalRandom.current().nextInt(CUSTOMERS)));
+    }
+}
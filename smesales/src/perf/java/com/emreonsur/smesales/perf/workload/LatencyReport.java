@@ -0,0 +1,112 @@
+package com.emreonsur.smesales.perf.workload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms per endpoint, in microseconds with three significant
+// digits, written out as JSON so two builds can be diffed key by key.
+// Nothing is recorded until start() is called, which ends the warmup.
+public class LatencyReport {
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Endpoint total = new Endpoint();
+    private volatile boolean recording;
+
+    public void start() {
+        recording = true;
+    }
+
+    public void record(String endpoint, long latencyNanos, boolean failed) {
+        if (!recording) {
+            return;
+        }
+        long micros = Math.max(1, latencyNanos / 1000);
+        endpoints.computeIfAbsent(endpoint, key -> new Endpoint()).record(micros, failed);
+        total.record(micros, failed);
+    }
+
+    public void write(Path path, Instant startedAt, WorkloadSettings settings, double measuredSeconds)
+            throws IOException {
+        Map<String, Object> endpointSummaries = new TreeMap<>();
+        endpoints.forEach((name, endpoint) -> endpointSummaries.put(name, endpoint.summary(measuredSeconds)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt);
+        report.put("settings", settings);
+        report.put("measuredSeconds", measuredSeconds);
+        report.put("total", total.summary(measuredSeconds));
+        report.put("endpoints", endpointSummaries);
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.writeValue(path.toFile(), report);
+    }
+
+    public void print(PrintStream out, double measuredSeconds) {
+        String format = "%-40s %9s %7s %9s %9s %9s %9s %9s%n";
+        out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        new TreeMap<>(endpoints).forEach((name, endpoint) -> endpoint.print(out, format, name, measuredSeconds));
+        total.print(out, format, "total", measuredSeconds);
+    }
+
+    private static class Endpoint {
+        // Auto-resizing, so a stalled request is recorded rather than rejected
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long micros, boolean failed) {
+            latencies.recordValue(micros);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        Map<String, Object> summary(double measuredSeconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", latencies.getTotalCount());
+            summary.put("errors", errors.sum());
+            summary.put("throughputPerSecond", round(latencies.getTotalCount() / measuredSeconds));
+            summary.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+            summary.put("p95Ms", millis(latencies.getValueAtPercentile(95)));
+            summary.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+            summary.put("maxMs", millis(latencies.getMaxValue()));
+            return summary;
+        }
+
+        void print(PrintStream out, String format, String name, double measuredSeconds) {
+            Map<String, Object> summary = summary(measuredSeconds);
+            out.printf(format, name, summary.get("requests"), summary.get("errors"),
+                    summary.get("throughputPerSecond"), summary.get("p50Ms"), summary.get("p95Ms"),
+                    summary.get("p99Ms"), summary.get("maxMs"));
+        }
+
+        private static double millis(long micros) {
+            return round(micros / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.emreonsur.smesales.perf.workload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The point-of-sale operations the workload mixes, each made of one or more
+// HTTP calls recorded under a templated endpoint name.
+//
+//   catalog  a product by ID, the active catalog, or a product search
+//   listing  a page of sales or payments, the active customers, or a customer's sales
+//   order    a new sale followed by its lines, one call per line; the
+//            application prices each line and adds it to the sale's total
+//   payment  a new payment from a random customer
+//
+// The first call of an operation is timed from the moment it was due, so time
+// spent waiting for a free client counts against it; later calls are timed
+// from when they are sent.
+public class PosWorkload {
+    public static final List<String> OPERATIONS = List.of("catalog", "listing", "order", "payment");
+    private static final String[] PAYMENT_METHODS = {"Cash", "EFT", "Credit Card"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final LatencyReport report;
+    private final int linesPerOrder;
+    private final int maxProductId;
+    private final int maxCustomerId;
+    private final List<Integer> activeProductIds;
+    // Invoice IDs are unique per run and never collide with the seeded INV... ones
+    private final String invoicePrefix = "W" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+    private final AtomicLong invoiceSequence = new AtomicLong();
+
+    public PosWorkload(HttpClient client, String baseUrl, ObjectMapper objectMapper, LatencyReport report,
+                       int linesPerOrder, JdbcTemplate jdbcTemplate) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.report = report;
+        this.linesPerOrder = linesPerOrder;
+        this.maxProductId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(product_id), 0) FROM products", Integer.class);
+        this.maxCustomerId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(customer_id), 0) FROM customers", Integer.class);
+        this.activeProductIds = jdbcTemplate.queryForList(
+                "SELECT product_id FROM products WHERE is_active = TRUE", Integer.class);
+        if (maxCustomerId == 0 || activeProductIds.isEmpty()) {
+            throw new IllegalStateException("The workload needs customers and active products; seed the database first");
+        }
+    }
+
+    public void run(String operation, long dueNanos) throws IOException, InterruptedException {
+        switch (operation) {
+            case "catalog" -> catalog(dueNanos);
+            case "listing" -> listing(dueNanos);
+            case "order" -> order(dueNanos);
+            case "payment" -> payment(dueNanos);
+            default -> throw new IllegalArgumentException("Unknown workload operation: " + operation);
+        }
+    }
+
+    private void catalog(long dueNanos) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (random.nextInt(3)) {
+            case 0 -> get("GET /api/products/{id}", "/api/products/" + (1 + random.nextInt(maxProductId)), dueNanos);
+            case 1 -> get("GET /api/products/active", "/api/products/active", dueNanos);
+            default -> get("GET /api/search", "/api/search?q=P" + (1 + random.nextInt(maxProductId)), dueNanos);
+        }
+    }
+
+    private void listing(long dueNanos) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (random.nextInt(4)) {
+            case 0 -> get("GET /api/sales/page", "/api/sales/page?size=50", dueNanos);
+            case 1 -> get("GET /api/payments/page", "/api/payments/page?size=50", dueNanos);
+            case 2 -> get("GET /api/customers/active", "/api/customers/active", dueNanos);
+            default -> get("GET /api/sales/by-customer/{id}",
+                    "/api/sales/by-customer/" + (1 + random.nextInt(maxCustomerId)), dueNanos);
+        }
+    }
+
+    private void order(long dueNanos) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> sale = new LinkedHashMap<>();
+        sale.put("customer", Map.of("id", 1 + random.nextInt(maxCustomerId)));
+        sale.put("orderDate", LocalDateTime.now().withNano(0).toString());
+        sale.put("invoiceId", nextInvoiceId());
+        String created = post("POST /api/sales", "/api/sales", sale, dueNanos);
+        if (created == null) {
+            return;
+        }
+        int saleId = objectMapper.readTree(created).path("id").asInt();
+
+        for (int i = 0; i < linesPerOrder; i++) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("sale", Map.of("id", saleId));
+            line.put("product", Map.of("id", activeProductIds.get(random.nextInt(activeProductIds.size()))));
+            line.put("quantity", 1 + random.nextInt(5));
+            post("POST /api/sale-details", "/api/sale-details", line, System.nanoTime());
+        }
+    }
+
+    private void payment(long dueNanos) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> payment = new LinkedHashMap<>();
+        payment.put("customer", Map.of("id", 1 + random.nextInt(maxCustomerId)));
+        payment.put("paymentDate", LocalDateTime.now().withNano(0).toString());
+        payment.put("amount", BigDecimal.valueOf(1000 + random.nextInt(50_000), 2));
+        payment.put("method", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+        payment.put("referenceCode", nextInvoiceId());
+        post("POST /api/payments", "/api/payments", payment, dueNanos);
+    }
+
+    // Exactly 16 characters, as the sales table requires
+    private String nextInvoiceId() {
+        String sequence = Long.toString(invoiceSequence.incrementAndGet());
+        return invoicePrefix + "0".repeat(Math.max(0, 16 - invoicePrefix.length() - sequence.length())) + sequence;
+    }
+
+    private void get(String endpoint, String path, long startNanos) throws IOException, InterruptedException {
+        send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(), startNanos);
+    }
+
+    private String post(String endpoint, String path, Object body, long startNanos)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return send(endpoint, request, startNanos);
+    }
+
+    // The response body, or null when the call failed
+    private String send(String endpoint, HttpRequest request, long startNanos) throws InterruptedException {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean failed = response.statusCode() >= 400;
+            report.record(endpoint, System.nanoTime() - startNanos, failed);
+            return failed ? null : response.body();
+        } catch (IOException e) {
+            report.record(endpoint, System.nanoTime() - startNanos, true);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.emreonsur.smesales.perf.workload;
+
+import com.emreonsur.smesales.perf.DemoDataSeeder;
+import com.emreonsur.smesales.perf.SeededApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays a point-of-sale mix (PosWorkload) against the application at a
+// fixed request rate and writes the latency report (LatencyReport).
+//
+// The load is an open model: operations are started on a fixed schedule,
+// whether or not earlier ones have finished, and each is timed from the
+// moment it was due rather than from when a client got round to sending it.
+// A slow server therefore shows up as higher latency instead of a quietly
+// lower request rate. 'clients' bounds the requests in flight.
+//
+// The application starts with the perf profile, over H2 unless a datasource
+// is given; any property can be overridden, e.g. to run against a local MySQL
+// with its own data:
+//
+//   mvn -Pperf test-compile exec:exec@workload -Dworkload.args="--smesales.workload.rate=500"
+//   mvn -Pperf test-compile exec:exec@workload -Dworkload.args="--smesales.workload.seed=none
+//       --spring.datasource.url=jdbc:mysql://localhost:3306/smesales --spring.datasource.username=...
+//       --spring.datasource.password=... --spring.jpa.hibernate.ddl-auto=none"
+public class WorkloadRunner {
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = SeededApplication.start(WebApplicationType.SERVLET, args);
+        try {
+            WorkloadSettings settings = WorkloadSettings.from(context.getEnvironment());
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            switch (settings.seed()) {
+                case "default" -> new DemoDataSeeder(jdbcTemplate).seed(DemoDataSeeder.Scale.DEFAULT);
+                case "small" -> new DemoDataSeeder(jdbcTemplate).seed(DemoDataSeeder.Scale.SMALL);
+                case "none" -> {
+                }
+                default -> throw new IllegalArgumentException("smesales.workload.seed is default, small or none, got: "
+                        + settings.seed());
+            }
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+                LatencyReport report = new LatencyReport();
+                PosWorkload workload = new PosWorkload(client, baseUrl, new ObjectMapper(), report,
+                        settings.linesPerOrder(), jdbcTemplate);
+                Instant startedAt = Instant.now();
+                double measuredSeconds = run(settings, workload, report);
+
+                report.print(System.out, measuredSeconds);
+                Path path = Path.of(settings.report());
+                report.write(path, startedAt, settings, measuredSeconds);
+                System.out.println("Report written to " + path.toAbsolutePath());
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // Returns the seconds from the end of the warmup until the last operation finished
+    private static double run(WorkloadSettings settings, PosWorkload workload, LatencyReport report)
+            throws InterruptedException {
+        List<String> operations = weighted(settings.mix());
+        Semaphore clients = new Semaphore(settings.clients());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + settings.warmup().toNanos();
+        long endNanos = measureFromNanos + settings.duration().toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            boolean measuring = false;
+            for (long n = 0; ; n++) {
+                long dueNanos = startNanos + n * intervalNanos;
+                if (dueNanos >= endNanos) {
+                    break;
+                }
+                if (!measuring && dueNanos >= measureFromNanos) {
+                    report.start();
+                    measuring = true;
+                }
+                long waitNanos;
+                while ((waitNanos = dueNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                String operation = operations.get(ThreadLocalRandom.current().nextInt(operations.size()));
+                clients.acquire();
+                executor.execute(() -> {
+                    try {
+                        workload.run(operation, dueNanos);
+                    } catch (Exception e) {
+                        // Failed calls are already counted as errors in the report
+                    } finally {
+                        clients.release();
+                    }
+                });
+            }
+        }
+        return (System.nanoTime() - measureFromNanos) / 1e9;
+    }
+
+    // One entry per unit of weight, so a uniform pick follows the mix
+    private static List<String> weighted(Map<String, Integer> mix) {
+        List<String> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            if (!PosWorkload.OPERATIONS.contains(operation)) {
+                throw new IllegalArgumentException("Unknown workload operation '" + operation
+                        + "'; use " + PosWorkload.OPERATIONS);
+            }
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("smesales.workload.mix has no operation with a positive weight");
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,37 @@
+package com.emreonsur.smesales.perf.workload;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The smesales.workload.* properties; defaults are in application-perf.properties.
+public record WorkloadSettings(int rate, Duration duration, Duration warmup, int clients,
+                               Map<String, Integer> mix, int linesPerOrder, String seed, String report) {
+
+    public static WorkloadSettings from(Environment environment) {
+        return new WorkloadSettings(
+                environment.getRequiredProperty("smesales.workload.rate", Integer.class),
+                environment.getRequiredProperty("smesales.workload.duration", Duration.class),
+                environment.getRequiredProperty("smesales.workload.warmup", Duration.class),
+                environment.getRequiredProperty("smesales.workload.clients", Integer.class),
+                parseMix(environment.getRequiredProperty("smesales.workload.mix")),
+                environment.getRequiredProperty("smesales.workload.lines-per-order", Integer.class),
+                environment.getRequiredProperty("smesales.workload.seed"),
+                environment.getRequiredProperty("smesales.workload.report"));
+    }
+
+    // e.g. catalog:50,listing:20,order:20,payment:10
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Workload mix entries look like 'catalog:50', got: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,79 @@
+package com.emreonsur.smesales.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvoiceIdIndexTest {
+    private JdbcTemplate jdbcTemplate;
+    private InvoiceIdIndex invoiceIdIndex;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        invoiceIdIndex = new InvoiceIdIndex(jdbcTemplate, 1000, 0.01, 100, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void everyIdMightExistUntilLoaded() {
+        assertThat(invoiceIdIndex.mightExist("INV0000000000001")).isTrue();
+    }
+
+    @Test
+    void loadedIdsMightExistAndOthersAreNew() throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn("INV0000000000001");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        invoiceIdIndex.load();
+
+        assertThat(invoiceIdIndex.mightExist("INV0000000000001")).isTrue();
+        assertThat(invoiceIdIndex.mightExist("INV0000000000002")).isFalse();
+    }
+
+    @Test
+    void recordedSaleIsServedOnlyOnceCommitted() {
+        invoiceIdIndex.load();
+        TransactionSynchronizationManager.initSynchronization();
+
+        invoiceIdIndex.record("INV0000000000003", 7);
+
+        assertThat(invoiceIdIndex.mightExist("INV0000000000003")).isTrue();
+        assertThat(invoiceIdIndex.recentSaleId("INV0000000000003")).isNull();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(invoiceIdIndex.recentSaleId("INV0000000000003")).isEqualTo(7);
+    }
+
+    @Test
+    void forgottenSaleIsNoLongerServed() {
+        invoiceIdIndex.record("INV0000000000004", 8);
+
+        invoiceIdIndex.forget("INV0000000000004");
+
+        assertThat(invoiceIdIndex.recentSaleId("INV0000000000004")).isNull();
+    }
+}
@@ -0,0 +1,97 @@
+package com.emreonsur.smesales.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+    private static final String SECRET = "Duplicate entry 'jane@example.com' for key 'customers.uk_email'";
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void uniqueViolationIsAConflictNamingTheConstraint() {
+        ResponseEntity<Map<String, String>> response = handle(hibernateViolation(1062, "23000",
+                ConstraintViolationException.ConstraintKind.UNIQUE, "uk_email"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).containsEntry("constraint", "uk_email");
+        assertThat(response.getBody().values()).noneMatch(value -> value.contains("jane@example.com"));
+    }
+
+    @Test
+    void mysqlNotNullViolationIsABadRequest() {
+        ResponseEntity<Map<String, String>> response = handle(jdbcViolation(1048, "23000"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).containsEntry("error", "A required value is missing");
+    }
+
+    @Test
+    void mysqlForeignKeyViolationIsABadRequest() {
+        ResponseEntity<Map<String, String>> response = handle(hibernateViolation(1452, "23000",
+                ConstraintViolationException.ConstraintKind.OTHER, "fk_customers_billing_entity"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).containsEntry("constraint", "fk_customers_billing_entity");
+    }
+
+    @Test
+    void standardSqlStatesAreRecognisedWithoutVendorCodes() {
+        assertThat(handle(jdbcViolation(0, "23505")).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(handle(jdbcViolation(0, "23502")).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(handle(jdbcViolation(0, "23503")).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void constraintNameThatIsReallyAMessageIsLeftOut() {
+        ResponseEntity<Map<String, String>> response = handle(hibernateViolation(0, "23503",
+                ConstraintViolationException.ConstraintKind.OTHER, "fk: public.customers FOREIGN KEY(id) (1)"));
+
+        assertThat(response.getBody()).doesNotContainKey("constraint");
+    }
+
+    @Test
+    void unexpectedExceptionIsAServerErrorWithoutItsMessage() {
+        ResponseEntity<Map<String, String>> response = handler.handleGeneralException(new IllegalStateException(SECRET));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody()).containsEntry("error", "Internal Server Error");
+    }
+
+    @Test
+    void springErrorKeepsItsStatus() {
+        ResponseEntity<Map<String, String>> response = handler.handleGeneralException(
+                new NoResourceFoundException(HttpMethod.GET, "api/missing"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private ResponseEntity<Map<String, String>> handle(DataIntegrityViolationException ex) {
+        ResponseEntity<Map<String, String>> response = handler.handleDataIntegrityViolationException(ex);
+        assertThat(response.getBody().values()).noneMatch(value -> value.contains(SECRET));
+        return response;
+    }
+
+    private static DataIntegrityViolationException jdbcViolation(int errorCode, String sqlState) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLException(SECRET, sqlState, errorCode));
+    }
+
+    private static DataIntegrityViolationException hibernateViolation(int errorCode, String sqlState,
+                                                                      ConstraintViolationException.ConstraintKind kind,
+                                                                      String constraintName) {
+        SQLException sqlException = new SQLException(SECRET, sqlState, errorCode);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, kind, constraintName));
+    }
+}
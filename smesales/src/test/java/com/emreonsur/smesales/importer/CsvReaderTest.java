@@ -0,0 +1,96 @@
+package com.emreonsur.smesales.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepDelimitersAndDoubledQuotes() throws IOException {
+        CsvReader reader = reader("name,note\n\"Tea, green\",\"Say \"\"hi\"\"\"\n");
+
+        assertThat(reader.next()).containsExactly("name", "note");
+        assertThat(reader.next()).containsExactly("Tea, green", "Say \"hi\"");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        CsvReader reader = reader("id,address\n1,\"Line one\r\nLine two\"\n2,Short\n");
+
+        reader.next();
+        assertThat(reader.next()).containsExactly("1", "Line one\r\nLine two");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("2", "Short");
+        assertThat(reader.recordLine()).isEqualTo(4);
+    }
+
+    @Test
+    void byteOrderMarkIsSkipped() throws IOException {
+        CsvReader reader = reader("﻿display_name,is_active\nShop,true");
+
+        assertThat(reader.next()).containsExactly("display_name", "is_active");
+        assertThat(reader.next()).containsExactly("Shop", "true");
+    }
+
+    @Test
+    void blankLinesAreSkippedButCountTowardsLineNumbers() throws IOException {
+        CsvReader reader = reader("a,b\r\n\r\n\n1,2\r\n");
+
+        reader.next();
+        assertThat(reader.next()).containsExactly("1", "2");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void emptyFieldsArePreserved() throws IOException {
+        CsvReader reader = reader(",x,,\n");
+
+        assertThat(reader.next()).containsExactly("", "x", "", "");
+    }
+
+    @Test
+    void otherDelimitersCanBeUsed() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a;\"b;c\"\n"), ';');
+
+        assertThat(reader.next()).containsExactly("a", "b;c");
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() throws IOException {
+        CsvReader reader = reader("a,b\n1,\"never closed\n2,3\n");
+
+        reader.next();
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field starting on line 2");
+    }
+
+    @Test
+    void recordsAcrossBufferBoundariesAreReadWhole() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(",\"quoted \"\" ").append(i).append("\"\n");
+        }
+        CsvReader reader = reader(csv.toString());
+
+        int count = 0;
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            assertThat(fields).containsExactly(String.valueOf(count), "quoted \" " + count);
+            count++;
+        }
+        assertThat(count).isEqualTo(20_000);
+    }
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new StringReader(csv));
+    }
+}
@@ -0,0 +1,132 @@
+package com.emreonsur.smesales.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvWithCommasAndIsoDates() throws IOException {
+        Path file = write("date,amount,reference,customer_id\n"
+                + "2025-06-01,\"1,234.50\",INV-1,42\n"
+                + "2025-06-02,-15,INV-2,\n");
+
+        try (StatementReader reader = StatementReader.open(file)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.line()).isEqualTo(2);
+            assertThat(reader.date()).isEqualTo(LocalDate.of(2025, 6, 1));
+            assertThat(reader.amountCents()).isEqualTo(123_450);
+            assertThat(reader.reference()).isEqualTo("INV-1");
+            assertThat(reader.customerId()).isEqualTo(42);
+
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.amountCents()).isEqualTo(-1_500);
+            assertThat(reader.customerId()).isNull();
+
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    void csvWithSemicolonsLocalDatesBomAndCrlf() throws IOException {
+        Path file = write("﻿Reference;Date;Amount\r\n"
+                + "\"Say \"\"hi\"\"\";01.06.2025;1.234,5\r\n"
+                + "\r\n"
+                + " ;02.06.2025;7\r\n");
+
+        try (StatementReader reader = StatementReader.open(file)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.reference()).isEqualTo("Say \"hi\"");
+            assertThat(reader.date()).isEqualTo(LocalDate.of(2025, 6, 1));
+            assertThat(reader.amountCents()).isEqualTo(123_450);
+
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.line()).isEqualTo(4);
+            assertThat(reader.reference()).isNull();
+            assertThat(reader.amountCents()).isEqualTo(700);
+        }
+    }
+
+    @Test
+    void readingContinuesAfterAMalformedLine() throws IOException {
+        Path file = write("date,amount,reference\n"
+                + "2025-02-30,10,INV-1\n"
+                + "2025-06-01,abc,INV-2\n"
+                + "2025-06-01,10\n"
+                + "2025-06-01,10,INV-4\n");
+
+        try (StatementReader reader = StatementReader.open(file)) {
+            assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("date");
+            assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("amount");
+            assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("fields");
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.reference()).isEqualTo("INV-4");
+        }
+    }
+
+    @Test
+    void csvWithoutARequiredColumnIsRejected() throws IOException {
+        Path file = write("date,amount\n2025-06-01,10\n");
+
+        assertThatThrownBy(() -> StatementReader.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing statement column: reference");
+    }
+
+    @Test
+    void emptyFileIsRejected() throws IOException {
+        Path file = write("\n\n");
+
+        assertThatThrownBy(() -> StatementReader.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Statement file is empty");
+    }
+
+    @Test
+    void mt940StatementLinesWithInformation() throws IOException {
+        Path file = write(":20:STATEMENT1\n"
+                + ":25:TR000000000000000000000001\n"
+                + ":60F:C250531TRY1000,00\n"
+                + ":61:2506010601C120,NTRFINV123//BANK1\n"
+                + ":86:Payment for order\n"
+                + "from /CUST/42 thanks\n"
+                + ":61:250602D15,5NTRFNONREF\n"
+                + ":86:Correction\n"
+                + ":62F:C250602TRY1104,50\n");
+
+        try (StatementReader reader = StatementReader.open(file)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.line()).isEqualTo(4);
+            assertThat(reader.date()).isEqualTo(LocalDate.of(2025, 6, 1));
+            assertThat(reader.amountCents()).isEqualTo(12_000);
+            assertThat(reader.reference()).isEqualTo("INV123");
+            assertThat(reader.customerId()).isEqualTo(42);
+
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.line()).isEqualTo(7);
+            assertThat(reader.date()).isEqualTo(LocalDate.of(2025, 6, 2));
+            assertThat(reader.amountCents()).isEqualTo(-1_550);
+            assertThat(reader.reference()).isNull();
+            assertThat(reader.customerId()).isNull();
+
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = directory.resolve("statement.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,172 @@
+package com.emreonsur.smesales.inventory;
+
+import com.emreonsur.smesales.cache.ProductCatalogCache;
+import com.emreonsur.smesales.exception.InsufficientStockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockLedgerTest {
+    private static final int PRODUCT_ID = 7;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        stockLedger = new StockLedger(jdbcTemplate, transactionTemplate, mock(ProductCatalogCache.class));
+        stockInDatabase(10);
+    }
+
+    @Test
+    void reserveTakesFromAvailableStock() {
+        stockLedger.reserve(PRODUCT_ID, 3);
+
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(7);
+    }
+
+    @Test
+    void reserveBeyondAvailableStockFailsAndTakesNothing() {
+        stockLedger.reserve(PRODUCT_ID, 8);
+
+        assertThatThrownBy(() -> stockLedger.reserve(PRODUCT_ID, 3))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void releaseReturnsTheReservedStock() {
+        StockLedger.Reservation reservation = stockLedger.reserve(PRODUCT_ID, 4);
+
+        stockLedger.release(reservation);
+
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(10);
+        stockLedger.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flushWritesConfirmedQuantitiesOnce() {
+        stockLedger.confirm(stockLedger.reserve(PRODUCT_ID, 3));
+        stockLedger.confirm(stockLedger.reserve(PRODUCT_ID, 2));
+
+        stockLedger.flush();
+        stockLedger.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), deltas(5));
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(5);
+    }
+
+    @Test
+    void restockOffsetsTheConfirmedQuantity() {
+        stockLedger.confirm(stockLedger.reserve(PRODUCT_ID, 3));
+
+        stockLedger.restock(PRODUCT_ID, 1);
+        stockLedger.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), deltas(2));
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(8);
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltaForTheNextFlush() {
+        stockLedger.confirm(stockLedger.reserve(PRODUCT_ID, 3));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+
+        assertThatThrownBy(stockLedger::flush).isInstanceOf(QueryTimeoutException.class);
+        stockLedger.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), deltas(3));
+    }
+
+    @Test
+    void resyncKeepsOpenReservationsAndPendingDeltas() {
+        stockLedger.reserve(PRODUCT_ID, 2);
+        stockLedger.confirm(stockLedger.reserve(PRODUCT_ID, 3));
+        stockInDatabase(50);
+
+        stockLedger.resync(PRODUCT_ID);
+        stockLedger.flush();
+
+        assertThat(stockLedger.available(PRODUCT_ID)).isEqualTo(45);
+        verify(jdbcTemplate).batchUpdate(anyString(), deltas(3));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws InterruptedException {
+        stockInDatabase(100);
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                executor.execute(() -> {
+                    awaitQuietly(start);
+                    for (int attempt = 0; attempt < 50; attempt++) {
+                        try {
+                            stockLedger.reserve(PRODUCT_ID, 1);
+                            reserved.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            // Sold out
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(reserved.get()).isEqualTo(100);
+        assertThat(stockLedger.available(PRODUCT_ID)).isZero();
+    }
+
+    private void stockInDatabase(int stock) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(PRODUCT_ID))).thenReturn(List.of(stock));
+    }
+
+    private static List<Object[]> deltas(int quantity) {
+        return argThat(deltas -> deltas.size() == 1
+                && deltas.get(0)[0].equals(quantity) && deltas.get(0)[1].equals(PRODUCT_ID));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
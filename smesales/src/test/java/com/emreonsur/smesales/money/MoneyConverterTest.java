@@ -0,0 +1,44 @@
+package com.emreonsur.smesales.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyConverterTest {
+    private final MoneyConverter converter = new MoneyConverter();
+
+    @Test
+    void writesTheScaleOfADecimalTenTwoColumn() {
+        BigDecimal column = converter.convertToDatabaseColumn(Money.of("12.5"));
+
+        assertThat(column).isEqualTo(new BigDecimal("12.50"));
+        assertThat(column.scale()).isEqualTo(2);
+    }
+
+    @Test
+    void roundTripsEveryValueTheColumnCanHold() {
+        for (String value : new String[]{"0.00", "0.01", "-0.01", "12.50", "99999999.99", "-99999999.99"}) {
+            BigDecimal column = new BigDecimal(value);
+
+            BigDecimal written = converter.convertToDatabaseColumn(converter.convertToEntityAttribute(column));
+
+            assertThat(written).isEqualTo(column);
+            assertThat(written.precision()).isLessThanOrEqualTo(10);
+        }
+    }
+
+    @Test
+    void readsColumnValuesOfAnotherScale() {
+        // Drivers may hand back a DECIMAL without its declared scale, e.g. after SUM()
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("12.5"))).isEqualTo(Money.of("12.50"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("12.5000"))).isEqualTo(Money.of("12.50"));
+    }
+
+    @Test
+    void keepsNullsForNullableColumns() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
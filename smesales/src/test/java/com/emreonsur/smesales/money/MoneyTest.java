@@ -0,0 +1,74 @@
+package com.emreonsur.smesales.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void ofRoundsToCentsHalfUp() {
+        assertThat(Money.of("12.345").minorUnits()).isEqualTo(1235);
+        assertThat(Money.of("12.344").minorUnits()).isEqualTo(1234);
+        assertThat(Money.of("-12.345").minorUnits()).isEqualTo(-1235);
+        assertThat(Money.of("0.005").minorUnits()).isEqualTo(1);
+        assertThat(Money.of("0.004")).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void ofKeepsWholeAndShortAmountsExact() {
+        assertThat(Money.of(new BigDecimal("7")).minorUnits()).isEqualTo(700);
+        assertThat(Money.of(new BigDecimal("7.5")).minorUnits()).isEqualTo(750);
+        assertThat(Money.of(new BigDecimal("1E+2")).minorUnits()).isEqualTo(10_000);
+    }
+
+    @Test
+    void ofRejectsAmountsBeyondLong() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1E+20"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void timesMultipliesExactly() {
+        assertThat(Money.of("2.50").times(3)).isEqualTo(Money.of("7.50"));
+        assertThat(Money.of("2.50").times(0)).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void timesFailsOnOverflowInsteadOfWrapping() {
+        Money large = Money.ofMinor(Long.MAX_VALUE / 2 + 1);
+
+        assertThatThrownBy(() -> large.times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void plusFailsOnOverflow() {
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void minusAndNegate() {
+        assertThat(Money.of("10.00").minus(Money.of("12.50"))).isEqualTo(Money.of("-2.50"));
+        assertThat(Money.of("2.50").negate()).isEqualTo(Money.of("-2.50"));
+        assertThat(Money.of("-2.50").negate()).isEqualTo(Money.of("2.50"));
+        assertThat(Money.ZERO.negate()).isSameAs(Money.ZERO);
+        assertThat(Money.of("4.20").minus(Money.of("4.20"))).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void negateAndMinusFailOnOverflow() {
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).negate()).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void decimalFormAlwaysHasTwoPlaces() {
+        assertThat(Money.of("12.5").toBigDecimal()).isEqualByComparingTo("12.50").hasScaleOf(2);
+        assertThat(Money.ZERO.toString()).isEqualTo("0.00");
+        assertThat(Money.of("-0.07").toString()).isEqualTo("-0.07");
+    }
+}
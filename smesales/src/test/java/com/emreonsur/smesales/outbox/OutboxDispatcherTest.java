@@ -0,0 +1,124 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.entity.OutboxEvent;
+import com.emreonsur.smesales.entity.ProcessingCheckpoint;
+import com.emreonsur.smesales.repository.OutboxEventRepository;
+import com.emreonsur.smesales.repository.ProcessingCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    private OutboxEventRepository outboxEventRepository;
+    private ProcessingCheckpointRepository processingCheckpointRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        processingCheckpointRepository = mock(ProcessingCheckpointRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(outboxEventRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void failingConsumerDoesNotHoldUpTheOthers() {
+        OutboxConsumer failing = consumer("failing");
+        OutboxConsumer healthy = consumer("healthy");
+        doThrow(new IllegalStateException("boom")).when(failing).accept(anyList());
+        ProcessingCheckpoint failingCheckpoint = checkpoint("failing", 0);
+        ProcessingCheckpoint healthyCheckpoint = checkpoint("healthy", 0);
+        events(0, 1, 2);
+
+        dispatcher(List.of(failing, healthy), Duration.ofSeconds(10)).dispatch();
+
+        verify(healthy).accept(anyList());
+        assertThat(healthyCheckpoint.getLastEventId()).isEqualTo(2);
+        assertThat(failingCheckpoint.getLastEventId()).isZero();
+    }
+
+    @Test
+    void deliveryWaitsInFrontOfAMissingId() {
+        OutboxConsumer consumer = consumer("consumer");
+        ProcessingCheckpoint checkpoint = checkpoint("consumer", 0);
+        events(0, 1, 2, 4);
+        events(2, 4);
+        OutboxDispatcher dispatcher = dispatcher(List.of(consumer), Duration.ofHours(1));
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        verify(consumer).accept(List.of(event(1), event(2)));
+        assertThat(checkpoint.getLastEventId()).isEqualTo(2);
+    }
+
+    @Test
+    void missingIdIsSkippedOnceTheGapTimeoutHasPassed() {
+        OutboxConsumer consumer = consumer("consumer");
+        ProcessingCheckpoint checkpoint = checkpoint("consumer", 2);
+        events(2, 5, 6);
+
+        dispatcher(List.of(consumer), Duration.ZERO).dispatch();
+
+        verify(consumer).accept(List.of(event(5), event(6)));
+        assertThat(checkpoint.getLastEventId()).isEqualTo(6);
+    }
+
+    private OutboxDispatcher dispatcher(List<OutboxConsumer> consumers, Duration gapTimeout) {
+        return new OutboxDispatcher(outboxEventRepository, processingCheckpointRepository, transactionTemplate,
+                consumers, 500, gapTimeout, Duration.ofDays(7));
+    }
+
+    private static OutboxConsumer consumer(String name) {
+        OutboxConsumer consumer = mock(OutboxConsumer.class);
+        when(consumer.name()).thenReturn(name);
+        return consumer;
+    }
+
+    private ProcessingCheckpoint checkpoint(String consumer, long lastEventId) {
+        ProcessingCheckpoint checkpoint = new ProcessingCheckpoint();
+        checkpoint.setConsumer(consumer);
+        checkpoint.setLastEventId(lastEventId);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        when(processingCheckpointRepository.findForUpdate(consumer)).thenReturn(Optional.of(checkpoint));
+        return checkpoint;
+    }
+
+    // Events stored after the given ID
+    private void events(long afterId, long... ids) {
+        List<OutboxEvent> events = LongStream.of(ids).mapToObj(OutboxDispatcherTest::event).toList();
+        when(outboxEventRepository.findByIdGreaterThanOrderByIdAsc(eq(afterId), any())).thenReturn(events);
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType("Sale");
+        event.setAggregateId(1);
+        event.setEventType("SaleChanged");
+        event.setCreatedAt(CREATED_AT);
+        return event;
+    }
+}
@@ -0,0 +1,65 @@
+package com.emreonsur.smesales.outbox;
+
+import com.emreonsur.smesales.dto.BalanceView;
+import com.emreonsur.smesales.dto.ReceivablesView;
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.OutboxEvent;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.service.BalanceLedgerService;
+import com.emreonsur.smesales.service.BillingEntityService;
+import com.emreonsur.smesales.service.ReceivablesService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sql_change_replayer;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class SqlChangeReplayerTest {
+    @Autowired
+    private SqlChangeReplayer sqlChangeReplayer;
+    @Autowired
+    private BillingEntityService billingEntityService;
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+    @Autowired
+    private ReceivablesService receivablesService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void paymentInsertedBySqlMovesTheBalance() {
+        BillingEntity billingEntity = new BillingEntity();
+        billingEntity.setTradeNumberOrCitizenId("12345678910");
+        billingEntity.setTradeName("Replay");
+        billingEntity.setBillingAddress("Address");
+        billingEntity.setIsActive(true);
+        Integer billingEntityId = billingEntityService.createBillingEntity(billingEntity).getId();
+
+        // As written by trigger_payments_outbox_after_insert
+        OutboxEvent event = new OutboxEvent();
+        event.setId(1L);
+        event.setAggregateType(OutboxWriter.PAYMENT);
+        event.setAggregateId(500);
+        event.setEventType("CREATED");
+        event.setOrigin(OutboxEvent.ORIGIN_SQL);
+        event.setPayload("{\"before\": null, \"after\": {\"paymentId\": 500, \"billingEntityId\": " + billingEntityId
+                + ", \"paymentDate\": \"2025-06-01T00:00:00\", \"amount\": 25.00}}");
+
+        transactionTemplate.executeWithoutResult(status -> sqlChangeReplayer.accept(List.of(event)));
+
+        BalanceView balance = balanceLedgerService.getBalance(billingEntityId).orElseThrow();
+        assertThat(balance.currentBalance()).isEqualTo(Money.of("-25.00"));
+        ReceivablesView receivables = receivablesService.getReceivables(billingEntityId).orElseThrow();
+        assertThat(receivables.unappliedCredit()).isEqualTo(Money.of("25.00"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.emreonsur.smesales.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellTableTest {
+
+    @Test
+    void addingToAnExistingCellSumsItsMeasures() {
+        CellTable table = new CellTable();
+        table.add(100, 1, 7, 250, 1);
+        table.add(100, 1, 7, 150, 2);
+        table.add(100, 1, 8, 99, 1);
+
+        List<long[]> cells = cells(table, 100, 100);
+
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(cells).containsExactlyInAnyOrder(
+                new long[]{100, 1, 7, 400, 3},
+                new long[]{100, 1, 8, 99, 1});
+    }
+
+    @Test
+    void forEachVisitsOnlyTheDayRange() {
+        CellTable table = new CellTable();
+        table.add(99, 1, 0, 10, 1);
+        table.add(100, 1, 0, 20, 1);
+        table.add(101, 1, 0, 30, 1);
+        table.add(102, 1, 0, 40, 1);
+
+        assertThat(cells(table, 100, 101)).extracting(cell -> cell[0]).containsExactlyInAnyOrder(100L, 101L);
+    }
+
+    @Test
+    void growingKeepsEveryCellFindable() {
+        CellTable table = new CellTable();
+        for (int customerId = 0; customerId < 5000; customerId++) {
+            table.add(customerId % 31, customerId, customerId % 7, customerId, 1);
+        }
+        for (int customerId = 0; customerId < 5000; customerId++) {
+            table.add(customerId % 31, customerId, customerId % 7, 1, 1);
+        }
+
+        Map<Integer, long[]> byCustomer = new HashMap<>();
+        table.forEach(0, 30, (day, customerId, productId, amount, count) ->
+                byCustomer.put(customerId, new long[]{amount, count}));
+
+        assertThat(table.size()).isEqualTo(5000);
+        assertThat(byCustomer).hasSize(5000);
+        assertThat(byCustomer.get(4321)).containsExactly(4322, 2);
+    }
+
+    @Test
+    void cellsThatCancelOutStay() {
+        CellTable table = new CellTable();
+        table.add(100, 1, 7, 250, 1);
+        table.add(100, 1, 7, -250, -1);
+
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(cells(table, 100, 100)).containsExactly(new long[]{100, 1, 7, 0, 0});
+    }
+
+    private static List<long[]> cells(CellTable table, int fromDay, int toDay) {
+        List<long[]> cells = new ArrayList<>();
+        table.forEach(fromDay, toDay, (day, customerId, productId, amount, count) ->
+                cells.add(new long[]{day, customerId, productId, amount, count}));
+        return cells;
+    }
+}
@@ -0,0 +1,120 @@
+package com.emreonsur.smesales.report;
+
+import com.emreonsur.smesales.dto.SalesReport;
+import com.emreonsur.smesales.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SalesCubeTest {
+    // A Sunday; June 2nd is the Monday the next week starts on
+    private static final LocalDate JUNE_1 = LocalDate.of(2025, 6, 1);
+
+    private final SalesCube cube = new SalesCube();
+
+    @BeforeEach
+    void setUp() {
+        cube.apply(List.of(
+                // Customer 1: one sale on June 1st with two lines
+                sale(JUNE_1, 1, 3000, 1),
+                line(JUNE_1, 1, 10, 2000, 2),
+                line(JUNE_1, 1, 11, 1000, 1),
+                // Customer 2: one sale on June 2nd with one line
+                sale(JUNE_1.plusDays(1), 2, 500, 1),
+                line(JUNE_1.plusDays(1), 2, 10, 500, 5),
+                // Customer 1 again in July
+                sale(LocalDate.of(2025, 7, 3), 1, 700, 1),
+                line(LocalDate.of(2025, 7, 3), 1, 11, 700, 7)));
+    }
+
+    @Test
+    void dailyTotalsTakeRevenueAndOrdersFromSalesAndUnitsFromLines() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.DAY, JUNE_1, JUNE_1.plusDays(1),
+                null, null, null, null);
+
+        assertThat(rows).containsExactly(
+                new SalesReport.Row(JUNE_1, null, Money.ofMinor(3000), 3L, 1L),
+                new SalesReport.Row(JUNE_1.plusDays(1), null, Money.ofMinor(500), 5L, 1L));
+    }
+
+    @Test
+    void weeksStartOnMonday() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.WEEK, JUNE_1, JUNE_1.plusDays(1),
+                null, null, null, null);
+
+        assertThat(rows).extracting(SalesReport.Row::period)
+                .containsExactly(LocalDate.of(2025, 5, 26), LocalDate.of(2025, 6, 2));
+    }
+
+    @Test
+    void monthsGroupByCustomer() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.MONTH, JUNE_1, LocalDate.of(2025, 7, 31),
+                null, null, SalesCube.GroupBy.CUSTOMER, null);
+
+        assertThat(rows).containsExactly(
+                new SalesReport.Row(JUNE_1, 1, Money.ofMinor(3000), 3L, 1L),
+                new SalesReport.Row(JUNE_1, 2, Money.ofMinor(500), 5L, 1L),
+                new SalesReport.Row(LocalDate.of(2025, 7, 1), 1, Money.ofMinor(700), 7L, 1L));
+    }
+
+    @Test
+    void billingEntityGroupingMapsEachCustomer() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.MONTH, JUNE_1, JUNE_1.plusDays(29),
+                null, null, SalesCube.GroupBy.BILLING_ENTITY, customerId -> 42);
+
+        assertThat(rows).containsExactly(new SalesReport.Row(JUNE_1, 42, Money.ofMinor(3500), 8L, 2L));
+    }
+
+    @Test
+    void productSlicesUseTheLinesAndHaveNoOrders() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.MONTH, JUNE_1, JUNE_1.plusDays(29),
+                null, 10, SalesCube.GroupBy.PRODUCT, null);
+
+        assertThat(rows).containsExactly(new SalesReport.Row(JUNE_1, 10, Money.ofMinor(2500), 7L, null));
+    }
+
+    @Test
+    void customerFilterNarrowsTheCells() {
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.MONTH, JUNE_1, JUNE_1.plusDays(29),
+                customerId -> customerId == 2, null, null, null);
+
+        assertThat(rows).containsExactly(new SalesReport.Row(JUNE_1, null, Money.ofMinor(500), 5L, 1L));
+    }
+
+    @Test
+    void cellsThatCancelOutAreLeftOutOfReports() {
+        cube.apply(List.of(
+                sale(JUNE_1.plusDays(1), 2, -500, -1),
+                line(JUNE_1.plusDays(1), 2, 10, -500, -5)));
+
+        List<SalesReport.Row> rows = cube.query(SalesCube.Bucket.DAY, JUNE_1, JUNE_1.plusDays(1),
+                null, null, null, null);
+
+        assertThat(rows).extracting(SalesReport.Row::period).containsExactly(JUNE_1);
+    }
+
+    @Test
+    void replaceSwapsInTheBuiltCube() {
+        SalesCube.Builder builder = new SalesCube.Builder();
+        builder.addSales(JUNE_1, 5, Money.of("12.00"), 2);
+        builder.addLines(JUNE_1, 5, 10, Money.of("12.00"), 4);
+
+        cube.replace(builder);
+
+        assertThat(cube.cellCount()).isEqualTo(2);
+        assertThat(cube.query(SalesCube.Bucket.DAY, JUNE_1, JUNE_1, null, null, SalesCube.GroupBy.CUSTOMER, null))
+                .containsExactly(new SalesReport.Row(JUNE_1, 5, Money.of("12.00"), 4L, 2L));
+    }
+
+    private static SalesCube.Change sale(LocalDate day, int customerId, long amount, long orders) {
+        return new SalesCube.Change(day.atTime(10, 0), customerId, null, amount, orders);
+    }
+
+    private static SalesCube.Change line(LocalDate day, int customerId, int productId, long amount, long units) {
+        return new SalesCube.Change(day.atTime(10, 0), customerId, productId, amount, units);
+    }
+}
@@ -0,0 +1,122 @@
+package com.emreonsur.smesales.repository;
+
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:field_projections;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FieldProjections.class)
+class FieldProjectionsTest {
+    @Autowired
+    private FieldProjections fieldProjections;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Customer customer;
+    private Sale sale;
+
+    @BeforeEach
+    void setUp() {
+        BillingEntity billingEntity = new BillingEntity();
+        billingEntity.setTradeNumberOrCitizenId("12345678910");
+        billingEntity.setTradeName("Anatolia Trading");
+        billingEntity.setBillingAddress("Address");
+        billingEntity.setCurrentBalance(Money.ZERO);
+        billingEntity.setIsActive(true);
+        entityManager.persist(billingEntity);
+
+        customer = new Customer();
+        customer.setDisplayName("Anatolia Market");
+        customer.setBillingEntity(billingEntity);
+        customer.setDeliveryAddress("Address");
+        customer.setIsActive(true);
+        entityManager.persist(customer);
+
+        sale = new Sale();
+        sale.setCustomer(customer);
+        sale.setOrderDate(LocalDateTime.of(2025, 6, 1, 9, 0));
+        sale.setInvoiceId("PROJ000000000001");
+        sale.setTotalAmount(Money.of("12.50"));
+        entityManager.persist(sale);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void selectsOnlyTheRequestedFieldsAndAlwaysTheId() {
+        List<Map<String, Object>> rows = fieldProjections.findAll(Sale.class, "invoiceId, totalAmount", null);
+
+        assertThat(rows).containsExactly(Map.of(
+                "id", sale.getId(), "invoiceId", "PROJ000000000001", "totalAmount", Money.of("12.50")));
+    }
+
+    @Test
+    void associationAloneGivesItsIdAndDottedNamesNest() {
+        Map<String, Object> row = fieldProjections.findOne(Sale.class,
+                "customer,customer.billingEntity.tradeName", null).orElseThrow();
+
+        assertThat(row).containsEntry("customer", Map.of(
+                "id", customer.getId(),
+                "billingEntity", Map.of("tradeName", "Anatolia Trading")));
+    }
+
+    @Test
+    void whereFiltersOnADottedPath() {
+        assertThat(fieldProjections.findAll(Sale.class, "id", FieldProjections.where("customer.id", customer.getId())))
+                .hasSize(1);
+        assertThat(fieldProjections.findAll(Sale.class, "id", FieldProjections.where("customer.id", -1)))
+                .isEmpty();
+    }
+
+    @Test
+    void unknownFieldsAreRejected() {
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "id,secret", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown field: secret");
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "customer.nothing", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown field: customer.nothing");
+    }
+
+    @Test
+    void collectionsAndPathsThroughPlainAttributesAreRejected() {
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "saleDetails", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("collection");
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "invoiceId.length", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not name an association");
+    }
+
+    @Test
+    void queryTextIsNeverTakenFromFieldNames() {
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "id FROM Sale s --", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unknown field");
+        assertThatThrownBy(() -> fieldProjections.findAll(Sale.class, "customer.id) OR (1=1", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unknown field");
+    }
+}
@@ -0,0 +1,102 @@
+package com.emreonsur.smesales.search;
+
+import com.emreonsur.smesales.dto.SearchResult;
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SearchIndexTest {
+    private static final Set<SearchIndex.Type> ALL = EnumSet.allOf(SearchIndex.Type.class);
+
+    private JdbcTemplate jdbcTemplate;
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        searchIndex = new SearchIndex(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesOutsideATransactionApplyAtOnce() {
+        searchIndex.index(billingEntity(3, "Kapadokya Textiles", "12345678910"));
+
+        assertThat(searchIndex.search("kapadokya", ALL, false, 10))
+                .extracting(SearchResult::type, SearchResult::id, SearchResult::label)
+                .containsExactly(tuple("billing-entity", 3, "Kapadokya Textiles"));
+        assertThat(searchIndex.search("1234567", ALL, false, 10)).extracting(SearchResult::id).containsExactly(3);
+    }
+
+    @Test
+    void changesInsideATransactionApplyOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        searchIndex.index(product(1, "Linden Tea"));
+
+        assertThat(searchIndex.size()).isZero();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(searchIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeTakesADocumentOut() {
+        searchIndex.index(product(1, "Linden Tea"));
+        searchIndex.remove(SearchIndex.Type.PRODUCT, 1);
+
+        assertThat(searchIndex.search("linden", ALL, true, 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildKeepsChangesCommittedWhileLoading() {
+        searchIndex.index(product(1, "Linden Tea"));
+        doAnswer(invocation -> {
+            searchIndex.index(product(2, "Sage Tea"));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT product_id"), any(RowCallbackHandler.class));
+
+        searchIndex.rebuild();
+
+        // The loaded rows stand in for the database, which had neither product
+        assertThat(searchIndex.search("tea", ALL, false, 10)).extracting(SearchResult::id).containsExactly(2);
+    }
+
+    private static Product product(int id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setDisplayName(name);
+        product.setFormalName(name);
+        product.setIsActive(true);
+        return product;
+    }
+
+    private static BillingEntity billingEntity(int id, String tradeName, String tradeNumber) {
+        BillingEntity billingEntity = new BillingEntity();
+        billingEntity.setId(id);
+        billingEntity.setTradeName(tradeName);
+        billingEntity.setTradeNumberOrCitizenId(tradeNumber);
+        billingEntity.setIsActive(true);
+        return billingEntity;
+    }
+}
@@ -0,0 +1,92 @@
+package com.emreonsur.smesales.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextIndexTest {
+    private static final Set<SearchIndex.Type> ALL = EnumSet.allOf(SearchIndex.Type.class);
+
+    private final TextIndex index = new TextIndex();
+
+    @Test
+    void normalizeFoldsCaseMarksAndTurkishIs() {
+        assertThat(TextIndex.normalize("  İSTANBUL Çay-Ocağı ")).isEqualTo("istanbul cay ocagi");
+        assertThat(TextIndex.normalize("Işık")).isEqualTo("isik");
+        assertThat(TextIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void shortPrefixFindsTheWordItStarts() {
+        index.put(SearchIndex.Type.PRODUCT, 1, "Green Tea", true, "Green Tea");
+        index.put(SearchIndex.Type.PRODUCT, 2, "Black Coffee", true, "Black Coffee");
+
+        assertThat(ids(index.search("te", ALL, false, 10))).containsExactly(1);
+        assertThat(ids(index.search("green t", ALL, false, 10))).containsExactly(1);
+    }
+
+    @Test
+    void typoStillMatchesOnSharedTrigrams() {
+        index.put(SearchIndex.Type.CUSTOMER, 1, "Anatolia Market", true, "Anatolia Market");
+        index.put(SearchIndex.Type.CUSTOMER, 2, "Bosphorus Deli", true, "Bosphorus Deli");
+
+        assertThat(ids(index.search("anatolai market", ALL, false, 10))).containsExactly(1);
+    }
+
+    @Test
+    void exactMatchOutranksPrefixMatch() {
+        index.put(SearchIndex.Type.PRODUCT, 1, "Tea Glass Set", true, "Tea Glass Set");
+        index.put(SearchIndex.Type.PRODUCT, 2, "Tea", true, "Tea");
+
+        assertThat(ids(index.search("tea", ALL, false, 10))).containsExactly(2, 1);
+    }
+
+    @Test
+    void typesAndInactiveDocumentsAreFilteredOut() {
+        index.put(SearchIndex.Type.PRODUCT, 1, "Olive Oil", true, "Olive Oil");
+        index.put(SearchIndex.Type.CUSTOMER, 1, "Olive Grocery", true, "Olive Grocery");
+        index.put(SearchIndex.Type.CUSTOMER, 2, "Olive House", false, "Olive House");
+
+        assertThat(index.search("olive", EnumSet.of(SearchIndex.Type.CUSTOMER), false, 10))
+                .extracting(match -> match.document().id()).containsExactly(1);
+        assertThat(index.search("olive", EnumSet.of(SearchIndex.Type.CUSTOMER), true, 10)).hasSize(2);
+    }
+
+    @Test
+    void limitCapsTheResults() {
+        for (int id = 1; id <= 20; id++) {
+            index.put(SearchIndex.Type.PRODUCT, id, "Spice " + id, true, "Spice " + id);
+        }
+
+        assertThat(index.search("spice", ALL, false, 5)).hasSize(5);
+    }
+
+    @Test
+    void removedDocumentsAreNotFoundAndTheirNumberIsReused() {
+        index.put(SearchIndex.Type.PRODUCT, 1, "Hazelnut", true, "Hazelnut");
+        index.remove(SearchIndex.Type.PRODUCT, 1);
+        index.put(SearchIndex.Type.PRODUCT, 2, "Pistachio", true, "Pistachio");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("hazelnut", ALL, false, 10)).isEmpty();
+        assertThat(ids(index.search("pista", ALL, false, 10))).containsExactly(2);
+    }
+
+    @Test
+    void puttingADocumentAgainReplacesItsFields() {
+        index.put(SearchIndex.Type.BILLING_ENTITY, 1, "Old Name", true, "Old Name", "1234567890");
+        index.put(SearchIndex.Type.BILLING_ENTITY, 1, "New Name", true, "New Name", "1234567890");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("old", ALL, false, 10)).isEmpty();
+        assertThat(ids(index.search("12345", ALL, false, 10))).containsExactly(1);
+    }
+
+    private static List<Integer> ids(List<TextIndex.Match> matches) {
+        return matches.stream().map(match -> match.document().id()).toList();
+    }
+}
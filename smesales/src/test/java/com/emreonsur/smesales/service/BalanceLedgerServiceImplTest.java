@@ -0,0 +1,63 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.repository.BalanceLedgerRepository;
+import com.emreonsur.smesales.repository.BillingEntityRepository;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BalanceLedgerServiceImplTest {
+    private BalanceLedgerRepository balanceLedgerRepository;
+    private TransactionTemplate transactionTemplate;
+    private BalanceLedgerServiceImpl balanceLedgerService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        balanceLedgerRepository = mock(BalanceLedgerRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        balanceLedgerService = new BalanceLedgerServiceImpl(balanceLedgerRepository,
+                mock(BillingEntityRepository.class), mock(CustomerRepository.class), transactionTemplate, 1000);
+    }
+
+    @Test
+    void compactionClaimsBoundedRangesUpToTheLastEntrySeen() {
+        when(balanceLedgerRepository.findMaxId()).thenReturn(3500L);
+        when(balanceLedgerRepository.findMinPendingId()).thenReturn(1201L);
+
+        balanceLedgerService.compact();
+
+        verify(balanceLedgerRepository).claimForCompaction(anyLong(), eq(1201L), eq(2200L));
+        verify(balanceLedgerRepository).claimForCompaction(anyLong(), eq(2201L), eq(3200L));
+        verify(balanceLedgerRepository).claimForCompaction(anyLong(), eq(3201L), eq(3500L));
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+    }
+
+    @Test
+    void compactionWithNothingPendingClaimsNothing() {
+        when(balanceLedgerRepository.findMaxId()).thenReturn(3500L);
+        when(balanceLedgerRepository.findMinPendingId()).thenReturn(null);
+
+        balanceLedgerService.compact();
+
+        verify(balanceLedgerRepository, never()).claimForCompaction(anyLong(), anyLong(), anyLong());
+    }
+}
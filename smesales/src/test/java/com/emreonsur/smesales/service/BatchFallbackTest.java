@@ -0,0 +1,61 @@
+package com.emreonsur.smesales.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchFallbackTest {
+    private static final String SECRET = "Duplicate entry 'jane@example.com' for key 'customers.uk_email'";
+
+    @Test
+    void batchThatSucceedsIsWrittenOnce() {
+        List<List<Integer>> calls = new ArrayList<>();
+        List<Integer> written = new ArrayList<>();
+
+        BatchFallback.write(List.of(1, 2, 3), items -> {
+            calls.add(items);
+            return items.stream().map(item -> item * 10).toList();
+        }, (item, result) -> written.add(result), (item, message) -> {
+        });
+
+        assertThat(calls).containsExactly(List.of(1, 2, 3));
+        assertThat(written).containsExactly(10, 20, 30);
+    }
+
+    @Test
+    void failedBatchIsRetriedItemByItem() {
+        List<Integer> written = new ArrayList<>();
+        Map<Integer, String> failed = new HashMap<>();
+
+        BatchFallback.write(List.of(1, 2, 3), items -> {
+            if (items.contains(2)) {
+                throw new DataIntegrityViolationException("could not execute statement",
+                        new SQLException(SECRET, "23000", 1062));
+            }
+            return items;
+        }, (item, result) -> written.add(result), failed::put);
+
+        assertThat(written).containsExactly(1, 3);
+        assertThat(failed).containsOnlyKeys(2);
+        assertThat(failed.get(2)).isEqualTo("A record with the same unique value already exists");
+    }
+
+    @Test
+    void otherFailuresKeepTheirMessage() {
+        Map<Integer, String> failed = new HashMap<>();
+
+        BatchFallback.write(List.of(7), items -> {
+            throw new IllegalArgumentException("Customer not found with id: 7");
+        }, (item, result) -> {
+        }, failed::put);
+
+        assertThat(failed).containsEntry(7, "Customer not found with id: 7");
+    }
+}
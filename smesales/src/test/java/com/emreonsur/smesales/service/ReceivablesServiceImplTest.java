@@ -0,0 +1,335 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.dto.ReceivablesView;
+import com.emreonsur.smesales.entity.PaymentAllocation;
+import com.emreonsur.smesales.entity.PaymentCredit;
+import com.emreonsur.smesales.entity.SaleReceivable;
+import com.emreonsur.smesales.event.PaymentChangedEvent;
+import com.emreonsur.smesales.event.SaleChangedEvent;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.BillingEntityRepository;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.PaymentAllocationRepository;
+import com.emreonsur.smesales.repository.PaymentCreditRepository;
+import com.emreonsur.smesales.repository.SaleReceivableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReceivablesServiceImplTest {
+    private static final int ENTITY_ID = 1;
+    private static final int OTHER_ENTITY_ID = 2;
+    private static final int CUSTOMER_ID = 10;
+    private static final int OTHER_CUSTOMER_ID = 20;
+    private static final LocalDateTime JUNE = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    private SaleReceivableRepository saleReceivableRepository;
+    private PaymentCreditRepository paymentCreditRepository;
+    private PaymentAllocationRepository paymentAllocationRepository;
+    private BillingEntityRepository billingEntityRepository;
+    private ReceivablesServiceImpl receivablesService;
+
+    @BeforeEach
+    void setUp() {
+        saleReceivableRepository = mock(SaleReceivableRepository.class);
+        paymentCreditRepository = mock(PaymentCreditRepository.class);
+        paymentAllocationRepository = mock(PaymentAllocationRepository.class);
+        billingEntityRepository = mock(BillingEntityRepository.class);
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findBillingEntityIdById(CUSTOMER_ID)).thenReturn(Optional.of(ENTITY_ID));
+        when(customerRepository.findBillingEntityIdById(OTHER_CUSTOMER_ID)).thenReturn(Optional.of(OTHER_ENTITY_ID));
+        when(billingEntityRepository.existsById(anyInt())).thenReturn(true);
+        when(paymentCreditRepository.sumOpenByBillingEntityId(anyInt())).thenReturn(BigDecimal.ZERO);
+        receivablesService = new ReceivablesServiceImpl(saleReceivableRepository, paymentCreditRepository,
+                paymentAllocationRepository, billingEntityRepository, customerRepository,
+                mock(TransactionTemplate.class));
+    }
+
+    @Test
+    void creditIsSpreadOverTheOldestSalesFirst() {
+        PaymentCredit credit = credit(100, "30.00", "0.00");
+        SaleReceivable older = receivable(1, JUNE, "20.00", "0.00");
+        SaleReceivable newer = receivable(2, JUNE.plusDays(1), "25.00", "0.00");
+        openCredits(credit);
+        openReceivables(older, newer);
+
+        receivablesService.allocate(ENTITY_ID);
+
+        assertThat(savedAllocations()).extracting(PaymentAllocation::getSaleId, PaymentAllocation::getAmount)
+                .containsExactly(
+                        tuple(1, Money.of("20.00")),
+                        tuple(2, Money.of("10.00")));
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.of("30.00"));
+        assertThat(older.getAllocatedAmount()).isEqualTo(Money.of("20.00"));
+        assertThat(newer.getAllocatedAmount()).isEqualTo(Money.of("10.00"));
+    }
+
+    @Test
+    void saleIsSettledByTheOldestCreditsFirst() {
+        PaymentCredit older = credit(100, "20.00", "0.00");
+        PaymentCredit newer = credit(101, "40.00", "0.00");
+        SaleReceivable receivable = receivable(1, JUNE, "50.00", "0.00");
+        openCredits(older, newer);
+        openReceivables(receivable);
+
+        receivablesService.allocate(ENTITY_ID);
+
+        assertThat(savedAllocations()).extracting(PaymentAllocation::getPaymentId, PaymentAllocation::getAmount)
+                .containsExactly(
+                        tuple(100, Money.of("20.00")),
+                        tuple(101, Money.of("30.00")));
+        assertThat(older.getAllocatedAmount()).isEqualTo(Money.of("20.00"));
+        assertThat(newer.getAllocatedAmount()).isEqualTo(Money.of("30.00"));
+        assertThat(receivable.getAllocatedAmount()).isEqualTo(Money.of("50.00"));
+    }
+
+    @Test
+    void partlyUsedCreditOnlyCoversWhatBothHaveLeft() {
+        PaymentCredit credit = credit(100, "30.00", "12.50");
+        SaleReceivable receivable = receivable(1, JUNE, "25.00", "5.00");
+        openCredits(credit);
+        openReceivables(receivable);
+
+        receivablesService.allocate(ENTITY_ID);
+
+        assertThat(savedAllocations()).singleElement()
+                .extracting(PaymentAllocation::getAmount).isEqualTo(Money.of("17.50"));
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.of("30.00"));
+        assertThat(receivable.getAllocatedAmount()).isEqualTo(Money.of("22.50"));
+    }
+
+    @Test
+    void allocationRunsUnderTheBillingEntityLock() {
+        openCredits(credit(100, "10.00", "0.00"));
+        openReceivables(receivable(1, JUNE, "10.00", "0.00"));
+
+        receivablesService.allocate(ENTITY_ID);
+
+        InOrder order = inOrder(billingEntityRepository, paymentCreditRepository);
+        order.verify(billingEntityRepository).lockById(ENTITY_ID);
+        order.verify(paymentCreditRepository).findOpenByBillingEntityId(ENTITY_ID);
+    }
+
+    @Test
+    void saleThatShrankBelowItsAllocationsGivesThemBack() {
+        SaleReceivable receivable = receivable(1, JUNE, "10.00", "25.00");
+        PaymentCredit credit = credit(100, "25.00", "25.00");
+        when(saleReceivableRepository.findOverAllocatedByBillingEntityId(ENTITY_ID)).thenReturn(List.of(receivable));
+        PaymentAllocation allocation = allocation(100, 1, "25.00");
+        when(paymentAllocationRepository.findBySaleId(1)).thenReturn(List.of(allocation));
+        when(paymentCreditRepository.findById(100)).thenReturn(Optional.of(credit));
+
+        receivablesService.allocate(ENTITY_ID);
+
+        verify(paymentAllocationRepository).delete(allocation);
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        assertThat(receivable.getAllocatedAmount()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void saleMovedToAnotherBillingEntityIsReleasedAndMatchedAgain() {
+        PaymentCredit credit = credit(100, "30.00", "30.00");
+        PaymentAllocation allocation = allocation(100, 1, "30.00");
+        when(paymentAllocationRepository.findBySaleId(1)).thenReturn(List.of(allocation));
+        when(paymentCreditRepository.findById(100)).thenReturn(Optional.of(credit));
+        SaleReceivable stored = receivable(1, JUNE, "30.00", "30.00");
+        when(saleReceivableRepository.findById(1)).thenReturn(Optional.of(stored));
+
+        receivablesService.onSaleChanged(new SaleChangedEvent(
+                sale(1, CUSTOMER_ID, JUNE, "30.00"), sale(1, OTHER_CUSTOMER_ID, JUNE, "30.00")));
+
+        InOrder locks = inOrder(billingEntityRepository);
+        locks.verify(billingEntityRepository).lockById(ENTITY_ID);
+        locks.verify(billingEntityRepository).lockById(OTHER_ENTITY_ID);
+        verify(paymentAllocationRepository).delete(allocation);
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        assertThat(stored.getBillingEntityId()).isEqualTo(OTHER_ENTITY_ID);
+        assertThat(stored.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        verify(paymentCreditRepository).findOpenByBillingEntityId(ENTITY_ID);
+        verify(paymentCreditRepository).findOpenByBillingEntityId(OTHER_ENTITY_ID);
+    }
+
+    @Test
+    void redatedSaleIsReleasedAndMatchedAgain() {
+        PaymentCredit credit = credit(100, "30.00", "30.00");
+        PaymentAllocation allocation = allocation(100, 1, "30.00");
+        when(paymentAllocationRepository.findBySaleId(1)).thenReturn(List.of(allocation));
+        when(paymentCreditRepository.findById(100)).thenReturn(Optional.of(credit));
+        SaleReceivable stored = receivable(1, JUNE, "30.00", "30.00");
+        when(saleReceivableRepository.findById(1)).thenReturn(Optional.of(stored));
+
+        receivablesService.onSaleChanged(new SaleChangedEvent(
+                sale(1, CUSTOMER_ID, JUNE, "30.00"), sale(1, CUSTOMER_ID, JUNE.plusDays(3), "30.00")));
+
+        verify(billingEntityRepository, atLeastOnce()).lockById(ENTITY_ID);
+        verify(paymentAllocationRepository).delete(allocation);
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        assertThat(stored.getOrderDate()).isEqualTo(JUNE.plusDays(3));
+        assertThat(stored.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        verify(paymentCreditRepository).findOpenByBillingEntityId(ENTITY_ID);
+    }
+
+    @Test
+    void deletedSaleGivesItsAllocationsBack() {
+        PaymentCredit credit = credit(100, "30.00", "20.00");
+        PaymentAllocation allocation = allocation(100, 1, "20.00");
+        when(paymentAllocationRepository.findBySaleId(1)).thenReturn(List.of(allocation));
+        when(paymentCreditRepository.findById(100)).thenReturn(Optional.of(credit));
+
+        receivablesService.onSaleChanged(new SaleChangedEvent(sale(1, CUSTOMER_ID, JUNE, "20.00"), null));
+
+        verify(paymentAllocationRepository).delete(allocation);
+        verify(saleReceivableRepository).deleteById(1);
+        assertThat(credit.getAllocatedAmount()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void changedSaleTotalOnlyMovesTheReceivable() {
+        when(saleReceivableRepository.addToTotalAmount(1, Money.of("-7.50"))).thenReturn(1);
+
+        receivablesService.onSaleChanged(new SaleChangedEvent(
+                sale(1, CUSTOMER_ID, JUNE, "30.00"), sale(1, CUSTOMER_ID, JUNE, "22.50")));
+
+        verify(saleReceivableRepository).addToTotalAmount(1, Money.of("-7.50"));
+        verify(billingEntityRepository, never()).lockById(any());
+        verify(paymentAllocationRepository, never()).findBySaleId(any());
+    }
+
+    @Test
+    void changedPaymentAmountIsReleasedAndMatchedAgain() {
+        SaleReceivable receivable = receivable(1, JUNE, "50.00", "40.00");
+        PaymentAllocation allocation = allocation(100, 1, "40.00");
+        when(paymentAllocationRepository.findByPaymentId(100)).thenReturn(List.of(allocation));
+        when(saleReceivableRepository.findById(1)).thenReturn(Optional.of(receivable));
+        PaymentCredit stored = credit(100, "40.00", "40.00");
+        when(paymentCreditRepository.findById(100)).thenReturn(Optional.of(stored));
+
+        receivablesService.onPaymentChanged(new PaymentChangedEvent(
+                payment(100, CUSTOMER_ID, "40.00"), payment(100, CUSTOMER_ID, "15.00")));
+
+        verify(billingEntityRepository, atLeastOnce()).lockById(ENTITY_ID);
+        verify(paymentAllocationRepository).delete(allocation);
+        assertThat(receivable.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        assertThat(stored.getAmount()).isEqualTo(Money.of("15.00"));
+        assertThat(stored.getAllocatedAmount()).isEqualTo(Money.ZERO);
+        verify(paymentCreditRepository).save(stored);
+        verify(paymentCreditRepository).findOpenByBillingEntityId(ENTITY_ID);
+    }
+
+    @Test
+    void deletedPaymentGivesItsAllocationsBack() {
+        SaleReceivable receivable = receivable(1, JUNE, "50.00", "40.00");
+        PaymentAllocation allocation = allocation(100, 1, "40.00");
+        when(paymentAllocationRepository.findByPaymentId(100)).thenReturn(List.of(allocation));
+        when(saleReceivableRepository.findById(1)).thenReturn(Optional.of(receivable));
+
+        receivablesService.onPaymentChanged(new PaymentChangedEvent(payment(100, CUSTOMER_ID, "40.00"), null));
+
+        verify(paymentAllocationRepository).delete(allocation);
+        verify(paymentCreditRepository).deleteById(100);
+        assertThat(receivable.getAllocatedAmount()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void agingBucketsEndAtThirtySixtyAndNinetyDays() {
+        LocalDateTime today = LocalDate.now().atTime(12, 0);
+        openReceivables(
+                receivable(1, today.minusDays(30), "1.00", "0.00"),
+                receivable(2, today.minusDays(31), "2.00", "0.00"),
+                receivable(3, today.minusDays(60), "4.00", "0.00"),
+                receivable(4, today.minusDays(61), "8.00", "0.00"),
+                receivable(5, today.minusDays(90), "16.00", "0.00"),
+                receivable(6, today.minusDays(91), "32.00", "0.00"));
+
+        ReceivablesView view = receivablesService.getReceivables(ENTITY_ID).orElseThrow();
+
+        assertThat(view.days0To30()).isEqualTo(Money.of("1.00"));
+        assertThat(view.days31To60()).isEqualTo(Money.of("6.00"));
+        assertThat(view.days61To90()).isEqualTo(Money.of("24.00"));
+        assertThat(view.over90Days()).isEqualTo(Money.of("32.00"));
+        assertThat(view.openAmount()).isEqualTo(Money.of("63.00"));
+    }
+
+    @Test
+    void agingCountsOnlyWhatIsStillOwed() {
+        openReceivables(receivable(1, LocalDate.now().atStartOfDay(), "50.00", "35.00"));
+        when(paymentCreditRepository.sumOpenByBillingEntityId(ENTITY_ID)).thenReturn(new BigDecimal("4.25"));
+
+        ReceivablesView view = receivablesService.getReceivables(ENTITY_ID).orElseThrow();
+
+        assertThat(view.days0To30()).isEqualTo(Money.of("15.00"));
+        assertThat(view.openAmount()).isEqualTo(Money.of("15.00"));
+        assertThat(view.unappliedCredit()).isEqualTo(Money.of("4.25"));
+    }
+
+    private void openCredits(PaymentCredit... credits) {
+        when(paymentCreditRepository.findOpenByBillingEntityId(ENTITY_ID)).thenReturn(List.of(credits));
+    }
+
+    private void openReceivables(SaleReceivable... receivables) {
+        when(saleReceivableRepository.findOpenByBillingEntityId(ENTITY_ID)).thenReturn(List.of(receivables));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PaymentAllocation> savedAllocations() {
+        ArgumentCaptor<List<PaymentAllocation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(paymentAllocationRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static PaymentCredit credit(int paymentId, String amount, String allocated) {
+        PaymentCredit credit = new PaymentCredit();
+        credit.setPaymentId(paymentId);
+        credit.setBillingEntityId(ENTITY_ID);
+        credit.setPaymentDate(JUNE);
+        credit.setAmount(Money.of(amount));
+        credit.setAllocatedAmount(Money.of(allocated));
+        return credit;
+    }
+
+    private static SaleReceivable receivable(int saleId, LocalDateTime orderDate, String total, String allocated) {
+        SaleReceivable receivable = new SaleReceivable();
+        receivable.setSaleId(saleId);
+        receivable.setBillingEntityId(ENTITY_ID);
+        receivable.setOrderDate(orderDate);
+        receivable.setTotalAmount(Money.of(total));
+        receivable.setAllocatedAmount(Money.of(allocated));
+        return receivable;
+    }
+
+    private static PaymentAllocation allocation(int paymentId, int saleId, String amount) {
+        PaymentAllocation allocation = new PaymentAllocation();
+        allocation.setBillingEntityId(ENTITY_ID);
+        allocation.setPaymentId(paymentId);
+        allocation.setSaleId(saleId);
+        allocation.setAmount(Money.of(amount));
+        return allocation;
+    }
+
+    private static SaleChangedEvent.Snapshot sale(int saleId, int customerId, LocalDateTime orderDate, String total) {
+        return new SaleChangedEvent.Snapshot(saleId, customerId, orderDate, Money.of(total));
+    }
+
+    private static PaymentChangedEvent.Snapshot payment(int paymentId, int customerId, String amount) {
+        return new PaymentChangedEvent.Snapshot(paymentId, customerId, JUNE, Money.of(amount), null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.entity.BillingEntity;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sale_detail_concurrency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class SaleDetailServiceConcurrencyTest {
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private BillingEntityService billingEntityService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private SaleService saleService;
+    @Autowired
+    private SaleDetailService saleDetailService;
+    @Autowired
+    private SaleRepository saleRepository;
+
+    private Product product;
+    private Sale sale;
+
+    @BeforeEach
+    void setUp() {
+        BillingEntity billingEntity = new BillingEntity();
+        billingEntity.setTradeNumberOrCitizenId("12345678910");
+        billingEntity.setTradeName("Concurrency");
+        billingEntity.setBillingAddress("Address");
+        billingEntity.setCurrentBalance(Money.ZERO);
+        billingEntity.setIsActive(true);
+        billingEntity = billingEntityService.createBillingEntity(billingEntity);
+
+        Customer customer = new Customer();
+        customer.setDisplayName("Concurrency");
+        customer.setBillingEntity(billingEntity);
+        customer.setDeliveryAddress("Address");
+        customer.setIsActive(true);
+        customer = customerService.createCustomer(customer);
+
+        product = new Product();
+        product.setFormalName("Concurrency Product");
+        product.setDisplayName("Product");
+        product.setUnitPrice(Money.of("2.50"));
+        product.setStockQuantity(1_000_000);
+        product.setIsActive(true);
+        product = productService.createProduct(product);
+
+        sale = new Sale();
+        sale.setCustomer(customer);
+        sale.setOrderDate(LocalDateTime.now().withNano(0));
+        sale.setInvoiceId("CONC000000000001");
+        sale = saleService.createSale(sale);
+    }
+
+    @Test
+    void concurrentLineUpdatesOnOneSaleBothReachItsTotal() throws Exception {
+        SaleDetail first = saleDetailService.createSaleDetail(line(1));
+        SaleDetail second = saleDetailService.createSaleDetail(line(1));
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int round = 1; round <= ROUNDS; round++) {
+                int firstQuantity = round + 1;
+                int secondQuantity = 2 * round + 1;
+                Future<?> firstUpdate = executor.submit(() -> {
+                    barrier.await();
+                    return saleDetailService.updateSaleDetail(first.getId(), line(firstQuantity));
+                });
+                Future<?> secondUpdate = executor.submit(() -> {
+                    barrier.await();
+                    return saleDetailService.updateSaleDetail(second.getId(), line(secondQuantity));
+                });
+                firstUpdate.get();
+                secondUpdate.get();
+
+                Money expected = Money.of("2.50").times(firstQuantity + secondQuantity);
+                assertThat(saleRepository.findById(sale.getId()).orElseThrow().getTotalAmount())
+                        .as("sale total after round %d", round)
+                        .isEqualTo(expected);
+            }
+        }
+
+        List<SaleDetail> lines = saleDetailService.getSaleDetailsBySaleId(sale.getId());
+        Money sumOfLines = lines.stream().map(SaleDetail::getTotalPrice).reduce(Money.ZERO, Money::plus);
+        assertThat(saleRepository.findById(sale.getId()).orElseThrow().getTotalAmount()).isEqualTo(sumOfLines);
+    }
+
+    private SaleDetail line(int quantity) {
+        Sale saleReference = new Sale();
+        saleReference.setId(sale.getId());
+        Product productReference = new Product();
+        productReference.setId(product.getId());
+
+        SaleDetail saleDetail = new SaleDetail();
+        saleDetail.setSale(saleReference);
+        saleDetail.setProduct(productReference);
+        saleDetail.setQuantity(quantity);
+        return saleDetail;
+    }
+}
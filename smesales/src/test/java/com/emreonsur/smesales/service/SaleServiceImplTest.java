@@ -0,0 +1,98 @@
+package com.emreonsur.smesales.service;
+
+import com.emreonsur.smesales.cache.InvoiceIdIndex;
+import com.emreonsur.smesales.entity.Customer;
+import com.emreonsur.smesales.entity.Product;
+import com.emreonsur.smesales.entity.Sale;
+import com.emreonsur.smesales.entity.SaleDetail;
+import com.emreonsur.smesales.event.SaleDetailChangedEvent;
+import com.emreonsur.smesales.inventory.StockLedger;
+import com.emreonsur.smesales.money.Money;
+import com.emreonsur.smesales.repository.CustomerRepository;
+import com.emreonsur.smesales.repository.ProductRepository;
+import com.emreonsur.smesales.repository.SaleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SaleServiceImplTest {
+    private SaleRepository saleRepository;
+    private StockLedger stockLedger;
+    private ApplicationEventPublisher eventPublisher;
+    private SaleServiceImpl saleService;
+
+    @BeforeEach
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        stockLedger = mock(StockLedger.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        saleService = new SaleServiceImpl(saleRepository, mock(CustomerRepository.class),
+                mock(ProductRepository.class), mock(JdbcTemplate.class), stockLedger, eventPublisher,
+                mock(EntityManager.class), mock(InvoiceIdIndex.class), mock(TransactionTemplate.class),
+                mock(OptimisticUpdates.class));
+    }
+
+    @Test
+    void deletingASaleRestocksItsLines() {
+        Sale sale = sale(1);
+        sale.setSaleDetails(List.of(line(sale, 11, 7, 3), line(sale, 12, 8, 5)));
+        when(saleRepository.findById(1)).thenReturn(Optional.of(sale));
+
+        saleService.deleteSale(1);
+
+        verify(saleRepository).delete(sale);
+        verify(stockLedger).restockForTransaction(7, 3);
+        verify(stockLedger).restockForTransaction(8, 5);
+        verify(eventPublisher, times(2)).publishEvent(any(SaleDetailChangedEvent.class));
+    }
+
+    @Test
+    void creatingASaleWithNestedLinesIsRejected() {
+        Sale sale = sale(null);
+        sale.setSaleDetails(List.of(line(sale, 11, 7, 3)));
+
+        assertThatThrownBy(() -> saleService.createSale(sale))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(saleRepository, never()).save(any());
+    }
+
+    private static Sale sale(Integer id) {
+        Customer customer = new Customer();
+        customer.setId(10);
+        Sale sale = new Sale();
+        sale.setId(id);
+        sale.setCustomer(customer);
+        sale.setOrderDate(LocalDateTime.of(2025, 6, 1, 9, 0));
+        sale.setInvoiceId("INV0000000000001");
+        sale.setTotalAmount(Money.of("62.00"));
+        return sale;
+    }
+
+    private static SaleDetail line(Sale sale, int id, int productId, int quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        SaleDetail saleDetail = new SaleDetail();
+        saleDetail.setId(id);
+        saleDetail.setSale(sale);
+        saleDetail.setProduct(product);
+        saleDetail.setQuantity(quantity);
+        saleDetail.setUnitPrice(Money.of("4.00"));
+        saleDetail.setTotalPrice(Money.of("4.00").times(quantity));
+        return saleDetail;
+    }
+}
@@ -365,6 +365,9 @@ CREATE TABLE sales (
 
 -- Index to enhance search by customer
 CREATE INDEX idx_sales_customer_id ON sales(customer_id);
+
+-- Index supporting keyset pagination by order date, then sale ID
+CREATE INDEX idx_sales_order_date_sale_id ON sales(order_date, sale_id);
 -- ------------------------------------------------------------------
 
 -- ------------------------------------------------------------------
@@ -911,6 +914,7 @@ CALL Get_Customers_And_Their_Sales();
 
 
 -- Get total amount of sales per customer
+-- Note: scans every sale; the application reads 'customer_sales_aggregates' instead
 DELIMITER $$
 CREATE PROCEDURE Get_Total_Sales_Per_Customer()
 BEGIN
@@ -927,6 +931,7 @@ CALL Get_Total_Sales_Per_Customer();
 
 
 -- Get units sold per product
+-- Note: scans every sale line; the application reads 'product_sales_aggregates' instead
 DELIMITER $$
 CREATE PROCEDURE Get_Total_Units_Sold_Per_Product()
 BEGIN
@@ -988,4 +993,503 @@ BEGIN
 END $$
 DELIMITER ;
 
-CALL Get_Payments_For_Entity('Yildizlar Gida AS');
\ No newline at end of file
+CALL Get_Payments_For_Entity('Yildizlar Gida AS');
+
+
+-- ------------------------------------------------------------------
+-- SALES AGGREGATE TABLES
+-- ------------------------------------------------------------------
+-- Running totals per customer and per product, maintained by the
+-- application in the same transaction as every sale and sale line
+-- change, so they can be read by key without scanning the sales.
+--
+-- - 'order_count': number of sales for a customer, number of sale
+--   lines for a product.
+-- - 'last_order_date': latest 'order_date' among those sales.
+-- ------------------------------------------------------------------
+CREATE TABLE customer_sales_aggregates (
+    customer_id INT PRIMARY KEY,
+    revenue DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    last_order_date DATE,
+
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id)
+);
+
+CREATE TABLE product_sales_aggregates (
+    product_id INT PRIMARY KEY,
+    revenue DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    last_order_date DATE,
+
+    FOREIGN KEY (product_id) REFERENCES products(product_id)
+);
+
+-- Backfill from the existing sales
+INSERT INTO customer_sales_aggregates (customer_id, revenue, units_sold, order_count, last_order_date)
+SELECT
+    s.customer_id,
+    SUM(s.total_amount),
+    COALESCE(SUM(u.units), 0),
+    COUNT(*),
+    MAX(s.order_date)
+FROM sales s
+LEFT JOIN (
+    SELECT sale_id, SUM(quantity) AS units
+    FROM sale_details
+    GROUP BY sale_id
+) u ON u.sale_id = s.sale_id
+GROUP BY s.customer_id;
+
+INSERT INTO product_sales_aggregates (product_id, revenue, units_sold, order_count, last_order_date)
+SELECT
+    sd.product_id,
+    SUM(sd.total_price),
+    SUM(sd.quantity),
+    COUNT(*),
+    MAX(s.order_date)
+FROM sale_details sd
+JOIN sales s ON s.sale_id = sd.sale_id
+GROUP BY sd.product_id;
+
+SELECT * FROM customer_sales_aggregates;
+SELECT * FROM product_sales_aggregates;
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- BALANCE LEDGER TABLE
+-- ------------------------------------------------------------------
+-- Append-only record of every change to a billing entity's balance,
+-- written by the application in the same transaction as the sale or
+-- payment change that causes it:
+--   - Sales add 'total_amount' (SALE entries).
+--   - Payments subtract 'amount' (PAYMENT entries).
+--
+-- The application periodically folds claimed entries into
+-- 'billing_entities.current_balance' and stamps them with the ID of
+-- that compaction run. A balance read is:
+--   current_balance + SUM(amount) of entries with 'compaction_id' NULL
+-- ------------------------------------------------------------------
+CREATE TABLE balance_ledger (
+    entry_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    billing_entity_id INT NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL, -- Signed: positive for sales, negative for payments
+    source_type VARCHAR(16) NOT NULL, -- 'SALE' or 'PAYMENT'
+    source_id INT,
+    created_at DATETIME NOT NULL,
+    compaction_id BIGINT, -- NULL until folded into 'current_balance'
+
+    FOREIGN KEY (billing_entity_id) REFERENCES billing_entities(billing_entity_id)
+);
+
+-- Index supporting the un-compacted tail of one billing entity
+CREATE INDEX idx_balance_ledger_entity_compaction ON balance_ledger(billing_entity_id, compaction_id);
+
+-- Index supporting claiming and summing one compaction run
+CREATE INDEX idx_balance_ledger_compaction ON balance_ledger(compaction_id);
+
+-- The balances computed so far by the triggers become the compacted
+-- snapshot; from here on the ledger replaces the triggers, which
+-- serialized every sale and payment of a billing entity on its row.
+-- Note: Insert_Sale and Insert_Payment no longer change balances.
+DROP TRIGGER trigger_sales_after_insert;
+DROP TRIGGER trigger_sales_after_delete;
+DROP TRIGGER trigger_sales_after_update;
+DROP TRIGGER trigger_payments_after_insert;
+DROP TRIGGER trigger_payments_after_delete;
+DROP TRIGGER trigger_payments_after_update;
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- RECEIVABLES TABLES
+-- ------------------------------------------------------------------
+-- Payments are applied to the sales they settle, oldest first
+-- (FIFO) within a billing entity, by the application:
+--   - 'sale_receivables' holds each sale's total and the part of it
+--     already paid; the rest is still owed.
+--   - 'payment_credits' holds each payment's amount and the part of
+--     it already applied; the rest is unallocated credit.
+--   - 'payment_allocations' records every amount applied from one
+--     payment to one sale.
+--
+-- Rows are written and removed together with their sale or payment.
+-- Aging buckets (0-30/31-60/61-90/90+ days) are read from the open
+-- receivables of a billing entity only.
+-- ------------------------------------------------------------------
+CREATE TABLE sale_receivables (
+    sale_id INT PRIMARY KEY,
+    billing_entity_id INT NOT NULL,
+    order_date DATETIME NOT NULL,
+    total_amount DECIMAL(12, 2) NOT NULL,
+    allocated_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+
+    FOREIGN KEY (billing_entity_id) REFERENCES billing_entities(billing_entity_id)
+);
+
+CREATE TABLE payment_credits (
+    payment_id INT PRIMARY KEY,
+    billing_entity_id INT NOT NULL,
+    payment_date DATETIME NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL,
+    allocated_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+
+    FOREIGN KEY (billing_entity_id) REFERENCES billing_entities(billing_entity_id)
+);
+
+CREATE TABLE payment_allocations (
+    allocation_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    billing_entity_id INT NOT NULL,
+    payment_id INT NOT NULL,
+    sale_id INT NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL,
+    allocated_at DATETIME NOT NULL,
+
+    FOREIGN KEY (billing_entity_id) REFERENCES billing_entities(billing_entity_id)
+);
+
+-- Indexes supporting the oldest open sales and credits of one billing entity
+CREATE INDEX idx_sale_receivables_entity_date ON sale_receivables(billing_entity_id, order_date, sale_id);
+CREATE INDEX idx_payment_credits_entity_date ON payment_credits(billing_entity_id, payment_date, payment_id);
+
+-- Indexes supporting the allocations of one billing entity, payment or sale
+CREATE INDEX idx_payment_allocations_entity ON payment_allocations(billing_entity_id);
+CREATE INDEX idx_payment_allocations_payment ON payment_allocations(payment_id);
+CREATE INDEX idx_payment_allocations_sale ON payment_allocations(sale_id);
+
+-- Existing sales and payments start unallocated; the application's
+-- periodic allocation run matches them FIFO shortly after startup.
+INSERT INTO sale_receivables (sale_id, billing_entity_id, order_date, total_amount, allocated_amount)
+SELECT s.sale_id, c.billing_entity_id, s.order_date, s.total_amount, 0
+FROM sales s
+JOIN customers c ON c.customer_id = s.customer_id;
+
+INSERT INTO payment_credits (payment_id, billing_entity_id, payment_date, amount, allocated_amount)
+SELECT p.payment_id, p.billing_entity_id, p.payment_date, p.amount, 0
+FROM payments p;
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- BANK STATEMENT RECONCILIATION
+-- ------------------------------------------------------------------
+-- Statement lines are matched by the application against the
+-- payments of the statement's date range, by 'reference_code',
+-- 'amount' and 'payment_date'.
+-- ------------------------------------------------------------------
+
+-- Index supporting loading the payments of a statement's date range
+CREATE INDEX idx_payments_payment_date ON payments(payment_date);
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- OUTBOX TABLES
+-- ------------------------------------------------------------------
+-- 'outbox_events' records every change to sales, sale details,
+-- payments and products, in the transaction that makes it:
+--   - The application writes APP events itself, with the changed
+--     row's state before and after as a JSON payload.
+--   - The triggers below write SQL events for changes made outside
+--     the application (stored procedures, manual fixes). Application
+--     sessions set @smesales_app when they connect, which the
+--     triggers use to skip the changes the application records.
+--
+-- The application delivers events in 'event_id' order to each of its
+-- consumers and keeps each consumer's position in
+-- 'processing_checkpoints', so a restart resumes where it stopped.
+-- ------------------------------------------------------------------
+CREATE TABLE outbox_events (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(32) NOT NULL, -- 'SALE', 'SALE_DETAIL', 'PAYMENT' or 'PRODUCT'
+    aggregate_id INT NOT NULL,
+    event_type VARCHAR(16) NOT NULL, -- 'CREATED', 'UPDATED' or 'DELETED'
+    origin VARCHAR(8) NOT NULL, -- 'APP' or 'SQL'
+    payload TEXT NOT NULL, -- JSON: {"before": {...}, "after": {...}}
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+
+CREATE TABLE processing_checkpoints (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL, -- Every event up to this ID has been delivered
+    updated_at DATETIME NOT NULL
+);
+
+DELIMITER $$
+
+-- Sales
+CREATE TRIGGER trigger_sales_outbox_after_insert
+AFTER INSERT ON sales
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('SALE', NEW.sale_id, 'CREATED', 'SQL', JSON_OBJECT(
+            'before', NULL,
+            'after', JSON_OBJECT('saleId', NEW.sale_id, 'customerId', NEW.customer_id,
+                'orderDate', DATE_FORMAT(NEW.order_date, '%Y-%m-%dT%H:%i:%s'), 'totalAmount', NEW.total_amount)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_sales_outbox_after_update
+AFTER UPDATE ON sales
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('SALE', NEW.sale_id, 'UPDATED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('saleId', OLD.sale_id, 'customerId', OLD.customer_id,
+                'orderDate', DATE_FORMAT(OLD.order_date, '%Y-%m-%dT%H:%i:%s'), 'totalAmount', OLD.total_amount),
+            'after', JSON_OBJECT('saleId', NEW.sale_id, 'customerId', NEW.customer_id,
+                'orderDate', DATE_FORMAT(NEW.order_date, '%Y-%m-%dT%H:%i:%s'), 'totalAmount', NEW.total_amount)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_sales_outbox_after_delete
+AFTER DELETE ON sales
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('SALE', OLD.sale_id, 'DELETED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('saleId', OLD.sale_id, 'customerId', OLD.customer_id,
+                'orderDate', DATE_FORMAT(OLD.order_date, '%Y-%m-%dT%H:%i:%s'), 'totalAmount', OLD.total_amount),
+            'after', NULL));
+    END IF;
+END $$
+
+-- Sale details; the payload carries the owning sale's customer and order date
+CREATE TRIGGER trigger_sale_details_outbox_after_insert
+AFTER INSERT ON sale_details
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        SELECT 'SALE_DETAIL', NEW.sale_detail_id, 'CREATED', 'SQL', JSON_OBJECT(
+            'before', NULL,
+            'after', JSON_OBJECT('saleDetailId', NEW.sale_detail_id, 'saleId', NEW.sale_id,
+                'productId', NEW.product_id, 'customerId', s.customer_id,
+                'orderDate', DATE_FORMAT(s.order_date, '%Y-%m-%dT%H:%i:%s'),
+                'quantity', NEW.quantity, 'totalPrice', NEW.total_price))
+        FROM sales s
+        WHERE s.sale_id = NEW.sale_id;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_sale_details_outbox_after_update
+AFTER UPDATE ON sale_details
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        SELECT 'SALE_DETAIL', NEW.sale_detail_id, 'UPDATED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('saleDetailId', OLD.sale_detail_id, 'saleId', OLD.sale_id,
+                'productId', OLD.product_id, 'customerId', o.customer_id,
+                'orderDate', DATE_FORMAT(o.order_date, '%Y-%m-%dT%H:%i:%s'),
+                'quantity', OLD.quantity, 'totalPrice', OLD.total_price),
+            'after', JSON_OBJECT('saleDetailId', NEW.sale_detail_id, 'saleId', NEW.sale_id,
+                'productId', NEW.product_id, 'customerId', n.customer_id,
+                'orderDate', DATE_FORMAT(n.order_date, '%Y-%m-%dT%H:%i:%s'),
+                'quantity', NEW.quantity, 'totalPrice', NEW.total_price))
+        FROM sales o, sales n
+        WHERE o.sale_id = OLD.sale_id AND n.sale_id = NEW.sale_id;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_sale_details_outbox_after_delete
+AFTER DELETE ON sale_details
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        SELECT 'SALE_DETAIL', OLD.sale_detail_id, 'DELETED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('saleDetailId', OLD.sale_detail_id, 'saleId', OLD.sale_id,
+                'productId', OLD.product_id, 'customerId', s.customer_id,
+                'orderDate', DATE_FORMAT(s.order_date, '%Y-%m-%dT%H:%i:%s'),
+                'quantity', OLD.quantity, 'totalPrice', OLD.total_price),
+            'after', NULL)
+        FROM sales s
+        WHERE s.sale_id = OLD.sale_id;
+    END IF;
+END $$
+
+-- Payments
+CREATE TRIGGER trigger_payments_outbox_after_insert
+AFTER INSERT ON payments
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PAYMENT', NEW.payment_id, 'CREATED', 'SQL', JSON_OBJECT(
+            'before', NULL,
+            'after', JSON_OBJECT('paymentId', NEW.payment_id, 'billingEntityId', NEW.billing_entity_id,
+                'paymentDate', DATE_FORMAT(NEW.payment_date, '%Y-%m-%dT%H:%i:%s'), 'amount', NEW.amount)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_payments_outbox_after_update
+AFTER UPDATE ON payments
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PAYMENT', NEW.payment_id, 'UPDATED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('paymentId', OLD.payment_id, 'billingEntityId', OLD.billing_entity_id,
+                'paymentDate', DATE_FORMAT(OLD.payment_date, '%Y-%m-%dT%H:%i:%s'), 'amount', OLD.amount),
+            'after', JSON_OBJECT('paymentId', NEW.payment_id, 'billingEntityId', NEW.billing_entity_id,
+                'paymentDate', DATE_FORMAT(NEW.payment_date, '%Y-%m-%dT%H:%i:%s'), 'amount', NEW.amount)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_payments_outbox_after_delete
+AFTER DELETE ON payments
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PAYMENT', OLD.payment_id, 'DELETED', 'SQL', JSON_OBJECT(
+            'before', JSON_OBJECT('paymentId', OLD.payment_id, 'billingEntityId', OLD.billing_entity_id,
+                'paymentDate', DATE_FORMAT(OLD.payment_date, '%Y-%m-%dT%H:%i:%s'), 'amount', OLD.amount),
+            'after', NULL));
+    END IF;
+END $$
+
+-- Products; consumers reload the product, so only its ID is recorded
+CREATE TRIGGER trigger_products_outbox_after_insert
+AFTER INSERT ON products
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PRODUCT', NEW.product_id, 'CREATED', 'SQL',
+            JSON_OBJECT('before', NULL, 'after', JSON_OBJECT('productId', NEW.product_id)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_products_outbox_after_update
+AFTER UPDATE ON products
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PRODUCT', NEW.product_id, 'UPDATED', 'SQL',
+            JSON_OBJECT('before', JSON_OBJECT('productId', OLD.product_id),
+                'after', JSON_OBJECT('productId', NEW.product_id)));
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_products_outbox_after_delete
+AFTER DELETE ON products
+FOR EACH ROW
+BEGIN
+    IF @smesales_app IS NULL THEN
+        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, origin, payload)
+        VALUES ('PRODUCT', OLD.product_id, 'DELETED', 'SQL',
+            JSON_OBJECT('before', JSON_OBJECT('productId', OLD.product_id), 'after', NULL));
+    END IF;
+END $$
+
+DELIMITER ;
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- ENTITY VERSIONS
+-- ------------------------------------------------------------------
+-- 'version' is raised on every change to a product, customer or
+-- billing entity and serves as its ETag; the application answers
+-- conditional GETs (If-None-Match) with 304 Not Modified while it
+-- is unchanged. Collection ETags are computed from COUNT, MAX/SUM of
+-- the IDs and SUM of the versions of the listed rows.
+--   - The application raises 'version' itself, also in its own bulk
+--     updates (stock write-back, balance compaction).
+--   - The BEFORE UPDATE triggers below raise it for every other
+--     update, so changes made by the stored procedures or by hand
+--     are seen by clients too.
+-- ------------------------------------------------------------------
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customers ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE billing_entities ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+DELIMITER $$
+
+CREATE TRIGGER trigger_products_version_before_update
+BEFORE UPDATE ON products
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_customers_version_before_update
+BEFORE UPDATE ON customers
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_billing_entities_version_before_update
+BEFORE UPDATE ON billing_entities
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+DELIMITER ;
+-- ------------------------------------------------------------------
+
+
+-- ------------------------------------------------------------------
+-- OPTIMISTIC LOCKING
+-- ------------------------------------------------------------------
+-- Sales, sale details and payments get a 'version' too. Every update
+-- made by the application checks and raises the version it read, so
+-- a concurrent change is detected instead of overwritten:
+--   - PUT and PATCH answer 409 Conflict when the row changed in
+--     between; PATCH requests without If-Match are first retried on
+--     the current row.
+--   - Updates write only the columns that changed.
+-- ------------------------------------------------------------------
+ALTER TABLE sales ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE sale_details ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+DELIMITER $$
+
+CREATE TRIGGER trigger_sales_version_before_update
+BEFORE UPDATE ON sales
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_sale_details_version_before_update
+BEFORE UPDATE ON sale_details
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+CREATE TRIGGER trigger_payments_version_before_update
+BEFORE UPDATE ON payments
+FOR EACH ROW
+BEGIN
+    IF NEW.version = OLD.version THEN
+        SET NEW.version = OLD.version + 1;
+    END IF;
+END $$
+
+DELIMITER ;
+-- ------------------------------------------------------------------